@@ -0,0 +1,88 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.BatchEvaluator;
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.types.fp.DoubleCalculatorFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// parallel speedup is ratio of 'parallel' and 'batch' scores
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+	private static final String EXPR = "max(x, 2) * -y + sqrt(x * x + y * y) / (x + 1)";
+
+	@Param({ "1000", "100000", "1000000" })
+	public int rows;
+
+	private Calculator<Double, ExprType> calculator;
+
+	private IExecutable<Double> executable;
+
+	private BatchEvaluator<Double> batch;
+
+	private double[] x;
+
+	private double[] y;
+
+	private double[] output;
+
+	@Setup
+	public void setup() {
+		calculator = DoubleCalculatorFactory.createDefault();
+		executable = calculator.compilers.compile(ExprType.INFIX, EXPR);
+
+		final Random random = new Random(0);
+		x = new double[rows];
+		y = new double[rows];
+		for (int i = 0; i < rows; i++) {
+			x[i] = random.nextDouble();
+			y[i] = random.nextDouble();
+		}
+		output = new double[rows];
+
+		batch = calculator.environment.createBatch(executable);
+		batch.bind("x", BatchEvaluator.InputColumn.of(x));
+		batch.bind("y", BatchEvaluator.InputColumn.of(y));
+	}
+
+	@Benchmark
+	public double[] perRow() {
+		for (int i = 0; i < rows; i++) {
+			calculator.environment.setGlobalSymbol("x", x[i]);
+			calculator.environment.setGlobalSymbol("y", y[i]);
+			output[i] = calculator.environment.executeAndPop(executable);
+		}
+		return output;
+	}
+
+	@Benchmark
+	public double[] batch() {
+		batch.evaluate(BatchEvaluator.OutputColumn.of(output));
+		return output;
+	}
+
+	@Benchmark
+	public double[] parallel() {
+		batch.evaluateParallel(BatchEvaluator.OutputColumn.of(output));
+		return output;
+	}
+}
@@ -0,0 +1,59 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.types.fp.DoubleCalculatorFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// compile cache is disabled by default, so every call is full compilation
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompilerBenchmark {
+
+	@Param({ "PREFIX", "INFIX", "POSTFIX" })
+	public ExprType exprType;
+
+	private Calculator<Double, ExprType> calculator;
+
+	private String expr;
+
+	@Setup
+	public void setup() {
+		calculator = DoubleCalculatorFactory.createDefault();
+
+		switch (exprType) {
+			case PREFIX:
+				expr = "(+ (* (max a 2 c) (- b)) (/ (sqrt (+ (* a a) (* b b))) (+ c 1)) (^ a 2))";
+				break;
+			case INFIX:
+				expr = "max(a, 2, c) * -b + sqrt(a * a + b * b) / (c + 1) + a ^ 2";
+				break;
+			case POSTFIX:
+				expr = "a 2 c max$3 b neg * a a * b b * + sqrt c 1 + / + a 2 ^ +";
+				break;
+			default:
+				throw new AssertionError(exprType);
+		}
+	}
+
+	@Benchmark
+	public IExecutable<Double> compile() {
+		return calculator.compilers.compile(exprType, expr);
+	}
+}
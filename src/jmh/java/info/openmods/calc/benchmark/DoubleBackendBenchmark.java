@@ -0,0 +1,68 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.executable.ExecutionBackend;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.parsing.BasicCompilerMapFactory;
+import info.openmods.calc.types.fp.DoubleCalculatorFactory;
+import info.openmods.calc.types.fp.DoubleExpression;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DoubleBackendBenchmark {
+
+	public enum Backend {
+		OBJECT_LIST,
+		BYTECODE,
+		GENERATED_CLASS,
+		PRIMITIVE
+	}
+
+	private static final String EXPR = "max(a, 2) * -b + sqrt(a * a + b * b) / (a + 1) + a ^ 2 - min(a, b, 4) * 3";
+
+	@Param
+	public Backend backend;
+
+	private Calculator<Double, ExprType> calculator;
+
+	private IExecutable<Double> executable;
+
+	private DoubleExpression expression;
+
+	@Setup
+	public void setup() {
+		final BasicCompilerMapFactory<Double> compilerFactory = new BasicCompilerMapFactory<Double>();
+		compilerFactory.setExecutionBackend(backend == Backend.BYTECODE? ExecutionBackend.BYTECODE : ExecutionBackend.OBJECT_LIST);
+		calculator = new DoubleCalculatorFactory<ExprType>().create(compilerFactory);
+		if (backend == Backend.GENERATED_CLASS) calculator.compilers.setHotTierThreshold(0);
+
+		calculator.environment.setGlobalSymbol("a", 5.0);
+		calculator.environment.setGlobalSymbol("b", 3.0);
+
+		executable = calculator.compilers.compile(ExprType.INFIX, EXPR);
+		expression = DoubleExpression.create(calculator.environment, executable);
+	}
+
+	@Benchmark
+	public double execute() {
+		if (backend == Backend.PRIMITIVE) return expression.evaluate();
+		return calculator.environment.executeAndPop(executable);
+	}
+}
@@ -0,0 +1,102 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.types.bigint.BigIntCalculatorFactory;
+import info.openmods.calc.types.bool.BoolCalculatorFactory;
+import info.openmods.calc.types.fp.DoubleCalculatorFactory;
+import info.openmods.calc.types.fraction.FractionCalculatorFactory;
+import info.openmods.calc.types.multi.TypedValue;
+import info.openmods.calc.types.multi.TypedValueCalculatorFactory;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.math.Fraction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// inputs are globals, so nothing can be folded during compilation
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionBenchmark {
+
+	public enum CalculatorType {
+		DOUBLE {
+			@Override
+			public Runner<?> create() {
+				return new Runner<Double>(DoubleCalculatorFactory.createDefault(), "5", "3", "max(a, 2) * -b + sqrt(a * a + b * b) / (a + 1) + a ^ 2");
+			}
+		},
+		BIGINT {
+			@Override
+			public Runner<?> create() {
+				return new Runner<BigInteger>(BigIntCalculatorFactory.createDefault(), "5", "3", "(a * b + 12345678901234567890) % 1000000007 - a ** 3 + (b ^ a)");
+			}
+		},
+		FRACTION {
+			@Override
+			public Runner<?> create() {
+				return new Runner<Fraction>(FractionCalculatorFactory.createDefault(), "5", "3", "a / 3 + b * 2 / 7 - (a - b) / (a + b)");
+			}
+		},
+		BOOL {
+			@Override
+			public Runner<?> create() {
+				return new Runner<Boolean>(BoolCalculatorFactory.createDefault(), "true", "false", "(a & ~b) | (a ^ b) | ~(a | b) & (a => b) | (a <=> b)");
+			}
+		},
+		TYPED {
+			@Override
+			public Runner<?> create() {
+				return new Runner<TypedValue>(TypedValueCalculatorFactory.create(), "5", "3", "let([x = a * 2, y = b + 1.5], if(x > y, x - y, str(y) + 'x'))");
+			}
+		};
+
+		public abstract Runner<?> create();
+	}
+
+	public static class Runner<E> {
+		private final Calculator<E, ExprType> calculator;
+
+		private final IExecutable<E> executable;
+
+		public Runner(Calculator<E, ExprType> calculator, String a, String b, String expr) {
+			this.calculator = calculator;
+			calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "a", a);
+			calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "b", b);
+			this.executable = calculator.compilers.compile(ExprType.INFIX, expr);
+		}
+
+		public Object execute() {
+			return calculator.environment.executeAndPop(executable);
+		}
+	}
+
+	@Param
+	public CalculatorType calculatorType;
+
+	private Runner<?> runner;
+
+	@Setup
+	public void setup() {
+		runner = calculatorType.create();
+	}
+
+	@Benchmark
+	public Object execute() {
+		return runner.execute();
+	}
+}
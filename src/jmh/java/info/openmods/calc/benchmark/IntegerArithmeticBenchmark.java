@@ -0,0 +1,84 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.types.multi.TypedValue;
+import info.openmods.calc.types.multi.TypedValueCalculatorFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// int operations in typed calculator, inputs are globals, so nothing can be folded during compilation
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntegerArithmeticBenchmark {
+
+	public enum Magnitude {
+		// results in canonical value range
+		TINY("7", "3"),
+		INT("1234567", "7654321"),
+		// products overflow long
+		LONG("1234567890123", "9876543210987"),
+		// never fits in long
+		HUGE("123456789012345678901234567890", "987654321098765432109876543210");
+
+		public final String a;
+
+		public final String b;
+
+		private Magnitude(String a, String b) {
+			this.a = a;
+			this.b = b;
+		}
+	}
+
+	@Param
+	public Magnitude magnitude;
+
+	private Calculator<TypedValue, ExprType> calculator;
+
+	private IExecutable<TypedValue> add;
+
+	private IExecutable<TypedValue> multiply;
+
+	private IExecutable<TypedValue> compare;
+
+	@Setup
+	public void setup() {
+		calculator = TypedValueCalculatorFactory.create();
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "a", magnitude.a);
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "b", magnitude.b);
+		add = calculator.compilers.compile(ExprType.INFIX, "a + b - (b - a) + -a");
+		multiply = calculator.compilers.compile(ExprType.INFIX, "a * b + a * a");
+		compare = calculator.compilers.compile(ExprType.INFIX, "a < b && a <= b && a != b");
+	}
+
+	@Benchmark
+	public TypedValue add() {
+		return calculator.environment.executeAndPop(add);
+	}
+
+	@Benchmark
+	public TypedValue multiply() {
+		return calculator.environment.executeAndPop(multiply);
+	}
+
+	@Benchmark
+	public TypedValue compare() {
+		return calculator.environment.executeAndPop(compare);
+	}
+}
@@ -0,0 +1,71 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.types.multi.TypedValue;
+import info.openmods.calc.types.multi.TypedValueCalculatorFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// sizes are limited, since some functions recurse once per element and overflow default thread stack
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListFunctionsBenchmark {
+
+	public enum Operation {
+		MAP("map((x) -> x * 2, input)"),
+		FILTER("filter((x) -> x % 3 == 0, input)"),
+		REDUCE("reduce((acc, x) -> acc + x, 0, input)"),
+		SORT("sort(input)"),
+		REVERSE("reverse(input)"),
+		ZIP("zip(input, input)"),
+		TAKE_DROP("drop(take(input, half), quarter)"),
+		ENUMERATE("enumerate(input)");
+
+		public final String expr;
+
+		private Operation(String expr) {
+			this.expr = expr;
+		}
+	}
+
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	@Param
+	public Operation operation;
+
+	private Calculator<TypedValue, ExprType> calculator;
+
+	private IExecutable<TypedValue> executable;
+
+	@Setup
+	public void setup() {
+		calculator = TypedValueCalculatorFactory.create();
+		// reversed, so sort has some work to do
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "input", "reverse(range(" + size + "))");
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "half", Integer.toString(size / 2));
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "quarter", Integer.toString(size / 4));
+		executable = calculator.compilers.compile(ExprType.INFIX, operation.expr);
+	}
+
+	@Benchmark
+	public TypedValue execute() {
+		return calculator.environment.executeAndPop(executable);
+	}
+}
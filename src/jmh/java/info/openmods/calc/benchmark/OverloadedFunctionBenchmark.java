@@ -0,0 +1,86 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.Frame;
+import info.openmods.calc.FrameFactory;
+import info.openmods.calc.symbol.ICallable;
+import info.openmods.calc.types.multi.TypeDomain;
+import info.openmods.calc.types.multi.TypedValue;
+import info.openmods.calc.types.multi.TypedValueCalculatorFactory;
+import info.openmods.calc.utils.OptionalInt;
+import info.openmods.calc.utils.Stack;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// rotating argument types prevent resolution from relying only on last used variant
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverloadedFunctionBenchmark {
+
+	public enum Function {
+		ABS("abs"),
+		FLOOR("floor"),
+		NUMBER("number");
+
+		public final String symbol;
+
+		private Function(String symbol) {
+			this.symbol = symbol;
+		}
+	}
+
+	@Param
+	public Function function;
+
+	@Param({ "false", "true" })
+	public boolean mixedTypes;
+
+	private ICallable<TypedValue> callable;
+
+	private TypedValue[] args;
+
+	private int nextArg;
+
+	private Frame<TypedValue> frame;
+
+	@Setup
+	public void setup() {
+		final Calculator<TypedValue, ExprType> calculator = TypedValueCalculatorFactory.create();
+		callable = calculator.environment.topFrame().symbols().get(function.symbol);
+
+		final TypeDomain domain = calculator.environment.nullValue().domain;
+		final TypedValue intValue = domain.create(BigInteger.class, BigInteger.valueOf(-5));
+		final TypedValue doubleValue = domain.create(Double.class, -2.5);
+		final TypedValue boolValue = domain.create(Boolean.class, Boolean.TRUE);
+		args = mixedTypes? new TypedValue[] { intValue, doubleValue, boolValue } : new TypedValue[] { doubleValue };
+
+		frame = FrameFactory.createTopFrame();
+	}
+
+	@Benchmark
+	public TypedValue call() {
+		final TypedValue arg = args[nextArg];
+		nextArg = (nextArg + 1) % args.length;
+
+		final Stack<TypedValue> stack = frame.stack();
+		stack.push(arg);
+		callable.call(frame, OptionalInt.ONE, OptionalInt.ONE);
+		return stack.pop();
+	}
+}
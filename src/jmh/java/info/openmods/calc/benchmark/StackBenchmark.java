@@ -0,0 +1,139 @@
+package info.openmods.calc.benchmark;
+
+import com.google.common.collect.Lists;
+import info.openmods.calc.utils.Stack;
+import info.openmods.calc.utils.StackUnderflowException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ListStack is copy of previous list-backed implementation. 'substack' benchmarks mimic function calls
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StackBenchmark {
+
+	private static class ListStack<E> {
+
+		private final List<E> data;
+		private final int bottomElement;
+
+		public ListStack() {
+			this.data = Lists.newArrayList();
+			this.bottomElement = 0;
+		}
+
+		private ListStack(List<E> data, int bottomElement) {
+			this.data = data;
+			this.bottomElement = bottomElement;
+		}
+
+		public void push(E value) {
+			data.add(value);
+		}
+
+		public E pop() {
+			if (size() == 0) throw new StackUnderflowException();
+			try {
+				return data.remove(data.size() - 1);
+			} catch (IndexOutOfBoundsException e) {
+				throw new StackUnderflowException();
+			}
+		}
+
+		public int size() {
+			return data.size() - bottomElement;
+		}
+
+		public ListStack<E> substack(int depth) {
+			final int newBottom = data.size() - depth;
+			if (newBottom < bottomElement) throw new StackUnderflowException(String.format("Not enough elements to create substack: required %s, size %d", depth, size()));
+			return newBottom == 0? this : new ListStack<E>(data, newBottom);
+		}
+	}
+
+	@Param({ "10", "1000" })
+	public int size;
+
+	private final Stack<Integer> arrayStack = Stack.create();
+
+	private final ListStack<Integer> listStack = new ListStack<Integer>();
+
+	private Integer[] values;
+
+	@Setup
+	public void setup() {
+		values = new Integer[size];
+		for (int i = 0; i < size; i++)
+			values[i] = i;
+
+		// base element, so substacks are not same as whole stack
+		arrayStack.push(-1);
+		listStack.push(-1);
+	}
+
+	@Benchmark
+	public int pushPopArray() {
+		final Stack<Integer> stack = arrayStack;
+		for (Integer v : values)
+			stack.push(v);
+
+		int result = 0;
+		for (int i = 0; i < size; i++)
+			result += stack.pop();
+		return result;
+	}
+
+	@Benchmark
+	public int pushPopList() {
+		final ListStack<Integer> stack = listStack;
+		for (Integer v : values)
+			stack.push(v);
+
+		int result = 0;
+		for (int i = 0; i < size; i++)
+			result += stack.pop();
+		return result;
+	}
+
+	@Benchmark
+	public int substackArray() {
+		final Stack<Integer> stack = arrayStack;
+		stack.push(0);
+		for (Integer v : values) {
+			stack.push(v);
+			final Stack<Integer> args = stack.substack(2);
+			final int b = args.pop();
+			final int a = args.pop();
+			args.push(a + b);
+		}
+		return stack.pop();
+	}
+
+	@Benchmark
+	public int substackList() {
+		final ListStack<Integer> stack = listStack;
+		stack.push(0);
+		for (Integer v : values) {
+			stack.push(v);
+			final ListStack<Integer> args = stack.substack(2);
+			final int b = args.pop();
+			final int a = args.pop();
+			args.push(a + b);
+		}
+		return stack.pop();
+	}
+}
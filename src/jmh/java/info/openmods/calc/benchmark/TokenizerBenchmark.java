@@ -0,0 +1,56 @@
+package info.openmods.calc.benchmark;
+
+import com.google.common.base.Strings;
+import info.openmods.calc.parsing.token.Token;
+import info.openmods.calc.parsing.token.TokenIterator;
+import info.openmods.calc.parsing.token.Tokenizer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+
+	private static final String FRAGMENT = "max(alpha_1, 0x1F) * 3.25e2 + 'str\\ting' <= -beta.gamma && [1, 2, #sym] ";
+
+	@Param({ "1", "100", "10000" })
+	public int repeats;
+
+	private Tokenizer tokenizer;
+
+	private String input;
+
+	@Setup
+	public void setup() {
+		tokenizer = new Tokenizer();
+		for (String op : new String[] { "+", "-", "*", "/", "<=", "&&", "." })
+			tokenizer.addOperator(op);
+		tokenizer.addModifier("#");
+
+		input = Strings.repeat(FRAGMENT, repeats);
+	}
+
+	@Benchmark
+	public void tokenize(Blackhole bh) {
+		final TokenIterator it = tokenizer.tokenize(input);
+		while (it.hasNext()) {
+			final Token token = it.next();
+			bh.consume(token);
+		}
+	}
+}
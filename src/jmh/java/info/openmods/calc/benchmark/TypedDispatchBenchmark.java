@@ -0,0 +1,166 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Frame;
+import info.openmods.calc.FrameFactory;
+import info.openmods.calc.executable.BinaryOperator;
+import info.openmods.calc.symbol.ICallable;
+import info.openmods.calc.types.multi.TypeDomain;
+import info.openmods.calc.types.multi.TypedBinaryOperator;
+import info.openmods.calc.types.multi.TypedFunction;
+import info.openmods.calc.types.multi.TypedFunction.DispatchArg;
+import info.openmods.calc.types.multi.TypedFunction.Variant;
+import info.openmods.calc.types.multi.TypedValue;
+import info.openmods.calc.utils.OptionalInt;
+import info.openmods.calc.utils.Stack;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// operators and functions are called directly, so only dispatch on argument types is measured
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypedDispatchBenchmark {
+
+	public enum Args {
+		INT_INT,
+		STRING_STRING,
+		INT_STRING,
+		STRING_INT
+	}
+
+	public static class Functions {
+		@Variant
+		public static Integer apply(@DispatchArg Integer left, @DispatchArg Integer right) {
+			return left + right;
+		}
+
+		@Variant
+		public static String apply(@DispatchArg String left, @DispatchArg String right) {
+			return left + right;
+		}
+
+		@Variant
+		public static String apply(@DispatchArg Integer left, @DispatchArg String right) {
+			return left + right;
+		}
+
+		@Variant
+		public static String apply(@DispatchArg String left, @DispatchArg Integer right) {
+			return left + right;
+		}
+	}
+
+	private static class IntIntOperation implements TypedBinaryOperator.ISimpleVariantOperation<Integer, Integer, Integer> {
+		@Override
+		public Integer apply(Integer left, Integer right) {
+			return left + right;
+		}
+	}
+
+	private static class StringStringOperation implements TypedBinaryOperator.ISimpleVariantOperation<String, String, String> {
+		@Override
+		public String apply(String left, String right) {
+			return left + right;
+		}
+	}
+
+	private static class IntStringOperation implements TypedBinaryOperator.ISimpleVariantOperation<Integer, String, String> {
+		@Override
+		public String apply(Integer left, String right) {
+			return left + right;
+		}
+	}
+
+	private static class StringIntOperation implements TypedBinaryOperator.ISimpleVariantOperation<String, Integer, String> {
+		@Override
+		public String apply(String left, Integer right) {
+			return left + right;
+		}
+	}
+
+	@Param
+	public Args args;
+
+	private BinaryOperator<TypedValue> operator;
+
+	private ICallable<TypedValue> function;
+
+	private TypedValue left;
+
+	private TypedValue right;
+
+	private Frame<TypedValue> frame;
+
+	@Setup
+	public void setup() {
+		final TypeDomain domain = new TypeDomain();
+		domain.registerType(Integer.class);
+		domain.registerType(String.class);
+		domain.registerType(Boolean.class);
+
+		operator = new TypedBinaryOperator.Builder("+", 0)
+				.registerOperation(new IntIntOperation())
+				.registerOperation(new StringStringOperation())
+				.registerOperation(new IntStringOperation())
+				.registerOperation(new StringIntOperation())
+				.build(domain);
+
+		function = TypedFunction.builder().addVariants(Functions.class).build(domain, null);
+
+		final TypedValue intValue = domain.create(Integer.class, 4);
+		final TypedValue stringValue = domain.create(String.class, "a");
+		switch (args) {
+			case INT_INT:
+				left = intValue;
+				right = intValue;
+				break;
+			case STRING_STRING:
+				left = stringValue;
+				right = stringValue;
+				break;
+			case INT_STRING:
+				left = intValue;
+				right = stringValue;
+				break;
+			case STRING_INT:
+				left = stringValue;
+				right = intValue;
+				break;
+			default:
+				throw new AssertionError(args);
+		}
+
+		frame = FrameFactory.createTopFrame();
+	}
+
+	@Benchmark
+	public TypedValue binaryOperator() {
+		final Stack<TypedValue> stack = frame.stack();
+		stack.push(left);
+		stack.push(right);
+		operator.execute(frame);
+		return stack.pop();
+	}
+
+	@Benchmark
+	public TypedValue function() {
+		final Stack<TypedValue> stack = frame.stack();
+		stack.push(left);
+		stack.push(right);
+		function.call(frame, OptionalInt.TWO, OptionalInt.ONE);
+		return stack.pop();
+	}
+}
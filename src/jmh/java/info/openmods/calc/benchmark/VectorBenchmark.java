@@ -0,0 +1,84 @@
+package info.openmods.calc.benchmark;
+
+import info.openmods.calc.Calculator;
+import info.openmods.calc.ExprType;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.types.multi.TypedValue;
+import info.openmods.calc.types.multi.TypedValueCalculatorFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// lists don't support indexing, so element access uses 'drop' as closest equivalent
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VectorBenchmark {
+
+	public enum Container {
+		LIST("range(size)", "car(drop(input, half))"),
+		VECTOR("vrange(size)", "input[half]");
+
+		public final String create;
+
+		public final String access;
+
+		private Container(String create, String access) {
+			this.create = create;
+			this.access = access;
+		}
+	}
+
+	public enum Operation {
+		LENGTH("len(input)"),
+		ACCESS(null),
+		MAP("map((x) -> x * 2, input)"),
+		REDUCE("reduce((acc, x) -> acc + x, 0, input)"),
+		SORT("sort(input)");
+
+		public final String expr;
+
+		private Operation(String expr) {
+			this.expr = expr;
+		}
+	}
+
+	@Param({ "100", "1000" })
+	public int size;
+
+	@Param
+	public Container container;
+
+	@Param
+	public Operation operation;
+
+	private Calculator<TypedValue, ExprType> calculator;
+
+	private IExecutable<TypedValue> executable;
+
+	@Setup
+	public void setup() {
+		calculator = TypedValueCalculatorFactory.create();
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "size", Integer.toString(size));
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "half", Integer.toString(size / 2));
+		calculator.compileAndSetGlobalSymbol(ExprType.INFIX, "input", container.create);
+		executable = calculator.compilers.compile(ExprType.INFIX, operation.expr != null? operation.expr : container.access);
+	}
+
+	@Benchmark
+	public TypedValue execute() {
+		return calculator.environment.executeAndPop(executable);
+	}
+}
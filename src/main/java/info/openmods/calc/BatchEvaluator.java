@@ -0,0 +1,398 @@
+package info.openmods.calc;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.symbol.ISymbol;
+import info.openmods.calc.symbol.SingleReturnCallable;
+import info.openmods.calc.symbol.SlotLayout;
+import info.openmods.calc.symbol.SlotSymbolMap;
+import info.openmods.calc.symbol.SymbolMap;
+import info.openmods.calc.utils.OptionalInt;
+import info.openmods.calc.utils.Stack;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// keeps frame between calls, so single evaluator must not be used concurrently (see evaluateParallel)
+public class BatchEvaluator<E> {
+
+	public abstract static class InputColumn<E> {
+		public abstract int size();
+
+		public abstract E get(int row);
+
+		public static <E> InputColumn<E> of(final List<E> values) {
+			return new InputColumn<E>() {
+				@Override
+				public int size() {
+					return values.size();
+				}
+
+				@Override
+				public E get(int row) {
+					return values.get(row);
+				}
+			};
+		}
+
+		public static <E> InputColumn<E> of(final E[] values) {
+			return new InputColumn<E>() {
+				@Override
+				public int size() {
+					return values.length;
+				}
+
+				@Override
+				public E get(int row) {
+					return values[row];
+				}
+			};
+		}
+
+		public static InputColumn<Double> of(final double[] values) {
+			return new InputColumn<Double>() {
+				@Override
+				public int size() {
+					return values.length;
+				}
+
+				@Override
+				public Double get(int row) {
+					return values[row];
+				}
+			};
+		}
+	}
+
+	public abstract static class OutputColumn<E> {
+		public abstract int size();
+
+		public abstract void set(int row, E value);
+
+		public static <E> OutputColumn<E> of(final List<E> values) {
+			return new OutputColumn<E>() {
+				@Override
+				public int size() {
+					return values.size();
+				}
+
+				@Override
+				public void set(int row, E value) {
+					values.set(row, value);
+				}
+			};
+		}
+
+		public static <E> OutputColumn<E> of(final E[] values) {
+			return new OutputColumn<E>() {
+				@Override
+				public int size() {
+					return values.length;
+				}
+
+				@Override
+				public void set(int row, E value) {
+					values[row] = value;
+				}
+			};
+		}
+
+		// null results are written as NaN
+		public static OutputColumn<Double> of(final double[] values) {
+			return new OutputColumn<Double>() {
+				@Override
+				public int size() {
+					return values.length;
+				}
+
+				@Override
+				public void set(int row, Double value) {
+					values[row] = value != null? value : Double.NaN;
+				}
+			};
+		}
+	}
+
+	public static class Result {
+		private final int rowCount;
+
+		private final SortedMap<Integer, Exception> failures;
+
+		private Result(int rowCount, SortedMap<Integer, Exception> failures) {
+			this.rowCount = rowCount;
+			this.failures = failures;
+		}
+
+		public int rowCount() {
+			return rowCount;
+		}
+
+		public boolean hasFailures() {
+			return !failures.isEmpty();
+		}
+
+		public int failureCount() {
+			return failures.size();
+		}
+
+		public SortedMap<Integer, Exception> failures() {
+			return failures;
+		}
+	}
+
+	private static class ColumnSymbol<E> extends SingleReturnCallable<E> implements ISymbol<E> {
+		private final Worker<E> worker;
+
+		private final InputColumn<? extends E> column;
+
+		public ColumnSymbol(Worker<E> worker, InputColumn<? extends E> column) {
+			this.worker = worker;
+			this.column = column;
+		}
+
+		@Override
+		public E get() {
+			return column.get(worker.currentRow);
+		}
+
+		@Override
+		public E call(Frame<E> frame, OptionalInt argumentsCount) {
+			if (!argumentsCount.compareIfPresent(0)) throw new IllegalArgumentException("Expected no arguments but got " + argumentsCount.get());
+			return get();
+		}
+	}
+
+	// all state needed to evaluate rows - one per thread
+	private static class Worker<E> {
+		private final Environment<E> env;
+
+		private final SymbolMap<E> globals;
+
+		private final SlotLayout layout;
+
+		private final List<InputColumn<? extends E>> columns;
+
+		private final Stack<E> stack = Stack.create();
+
+		private SlotSymbolMap<E> scope;
+
+		private Frame<E> frame;
+
+		private int currentRow;
+
+		private IExecutionListener listener;
+
+		public Worker(Environment<E> env, SlotLayout layout, List<InputColumn<? extends E>> columns) {
+			this.env = env;
+			this.globals = env.topFrame().symbols();
+			this.layout = layout;
+			this.columns = columns;
+			resetScope();
+		}
+
+		private void resetScope() {
+			scope = new SlotSymbolMap<E>(globals, layout);
+			for (int i = 0; i < columns.size(); i++)
+				scope.setSlot(i, new ColumnSymbol<E>(this, columns.get(i)));
+			frame = new Frame<E>(scope, stack, listener);
+		}
+
+		public void evaluate(IExecutable<E> executable, int fromRow, int toRow, OutputColumn<? super E> output, E nullValue, IExecutionListener listener, ExecutionBudget budget, Map<Integer, Exception> failures) {
+			this.listener = listener;
+			frame.setListener(listener);
+			for (int row = fromRow; row < toRow; row++) {
+				currentRow = row;
+				try {
+					// budget is applied per row, same as for separate executions
+					env.execute(frame, executable, budget);
+					output.set(row, stack.popAndExpectEmptyStack());
+				} catch (Exception e) {
+					stack.clear();
+					failures.put(row, e);
+					output.set(row, nullValue);
+				}
+
+				// names defined by expression itself should not leak to next row
+				if (scope.hasOverflow()) resetScope();
+			}
+		}
+	}
+
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	private final Environment<E> env;
+
+	private final IExecutable<E> executable;
+
+	private final Map<String, InputColumn<? extends E>> columns = Maps.newLinkedHashMap();
+
+	private SlotLayout layout;
+
+	private Worker<E> worker;
+
+	public BatchEvaluator(Environment<E> env, IExecutable<E> executable) {
+		this.env = env;
+		this.executable = executable;
+	}
+
+	public BatchEvaluator<E> bind(String name, InputColumn<? extends E> column) {
+		columns.put(name, column);
+		layout = null;
+		worker = null;
+		return this;
+	}
+
+	public BatchEvaluator<E> bind(String name, List<E> column) {
+		return bind(name, InputColumn.of(column));
+	}
+
+	public BatchEvaluator<E> bind(String name, E[] column) {
+		return bind(name, InputColumn.of(column));
+	}
+
+	public BatchEvaluator<E> unbindAll() {
+		columns.clear();
+		layout = null;
+		worker = null;
+		return this;
+	}
+
+	private Worker<E> createWorker() {
+		// single layout for all workers, so cached symbol lookups are shared
+		if (layout == null) layout = SlotLayout.create(columns.keySet());
+		return new Worker<E>(env, layout, ImmutableList.copyOf(columns.values()));
+	}
+
+	private int rowCount() {
+		Preconditions.checkState(!columns.isEmpty(), "No columns bound");
+		int rowCount = -1;
+		for (Map.Entry<String, InputColumn<? extends E>> e : columns.entrySet()) {
+			final int size = e.getValue().size();
+			if (rowCount < 0) rowCount = size;
+			else Preconditions.checkState(rowCount == size, "Column '%s' has %s rows, expected %s", e.getKey(), size, rowCount);
+		}
+		return rowCount;
+	}
+
+	private int checkedRowCount(OutputColumn<?> output) {
+		final int rowCount = rowCount();
+		Preconditions.checkArgument(output.size() >= rowCount, "Output column too small: expected at least %s rows, got %s", rowCount, output.size());
+		return rowCount;
+	}
+
+	// failed rows get null value and don't stop evaluation of remaining rows
+	public Result evaluate(OutputColumn<? super E> output) {
+		final int rowCount = checkedRowCount(output);
+		if (worker == null) worker = createWorker();
+
+		final SortedMap<Integer, Exception> failures = Maps.newTreeMap();
+		worker.evaluate(executable, 0, rowCount, output, env.nullValue(), env.getExecutionListener(), env.getExecutionBudget(), failures);
+		return new Result(rowCount, ImmutableSortedMap.copyOfSorted(failures));
+	}
+
+	public Result evaluate(List<E> output) {
+		return evaluate(OutputColumn.of(output));
+	}
+
+	public Result evaluate(E[] output) {
+		return evaluate(OutputColumn.of(output));
+	}
+
+	// every chunk gets own frame, so globals must not be modified until this returns. Output must accept concurrent writes
+	public Result evaluateParallel(final OutputColumn<? super E> output, ExecutorService executor, int chunkSize) {
+		final int rowCount = checkedRowCount(output);
+		if (layout == null) layout = SlotLayout.create(columns.keySet());
+
+		final E nullValue = env.nullValue();
+		final IExecutionListener listener = env.getExecutionListener();
+		final ExecutionBudget budget = env.getExecutionBudget();
+		return runChunks(rowCount, executor, chunkSize, new IChunkTask() {
+			@Override
+			public void run(int fromRow, int toRow, Map<Integer, Exception> failures) {
+				createWorker().evaluate(executable, fromRow, toRow, output, nullValue, listener, budget, failures);
+			}
+		});
+	}
+
+	public Result evaluateParallel(OutputColumn<? super E> output) {
+		return evaluateParallel(output, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	private interface IChunkTask {
+		public void run(int fromRow, int toRow, Map<Integer, Exception> failures);
+	}
+
+	private static Result runChunks(int rowCount, ExecutorService executor, int chunkSize, final IChunkTask task) {
+		Preconditions.checkArgument(chunkSize > 0, "Invalid chunk size: %s", chunkSize);
+
+		final List<Future<Map<Integer, Exception>>> chunks = Lists.newArrayList();
+		for (int chunkStart = 0; chunkStart < rowCount; chunkStart += chunkSize) {
+			final int fromRow = chunkStart;
+			final int toRow = Math.min(rowCount, chunkStart + chunkSize);
+			chunks.add(executor.submit(new Callable<Map<Integer, Exception>>() {
+				@Override
+				public Map<Integer, Exception> call() {
+					final Map<Integer, Exception> failures = Maps.newTreeMap();
+					task.run(fromRow, toRow, failures);
+					return failures;
+				}
+			}));
+		}
+
+		final ImmutableSortedMap.Builder<Integer, Exception> failures = ImmutableSortedMap.naturalOrder();
+		try {
+			for (Future<Map<Integer, Exception>> chunk : chunks)
+				failures.putAll(chunk.get());
+		} catch (InterruptedException e) {
+			for (Future<?> chunk : chunks)
+				chunk.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for batch", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if (cause instanceof Error) throw (Error)cause;
+			throw new RuntimeException(cause);
+		}
+
+		return new Result(rowCount, failures.build());
+	}
+
+	public static <E> Result evaluateAllParallel(final Environment<E> env, final List<? extends IExecutable<E>> expressions, final OutputColumn<? super E> output, ExecutorService executor, int chunkSize) {
+		final int rowCount = expressions.size();
+		Preconditions.checkArgument(output.size() >= rowCount, "Output column too small: expected at least %s rows, got %s", rowCount, output.size());
+
+		final E nullValue = env.nullValue();
+		return runChunks(rowCount, executor, chunkSize, new IChunkTask() {
+			@Override
+			public void run(int fromRow, int toRow, Map<Integer, Exception> failures) {
+				for (int row = fromRow; row < toRow; row++) {
+					// fresh context per expression, since they may define own symbols
+					final ExecutionContext<E> context = env.createContext();
+					try {
+						context.execute(expressions.get(row));
+						output.set(row, context.frame().stack().popAndExpectEmptyStack());
+					} catch (Exception e) {
+						failures.put(row, e);
+						output.set(row, nullValue);
+					}
+				}
+			}
+		});
+	}
+
+	public static <E> Result evaluateAllParallel(Environment<E> env, List<? extends IExecutable<E>> expressions, OutputColumn<? super E> output) {
+		// few chunks per worker, so uneven expressions still balance
+		final int chunkSize = Math.max(1, expressions.size() / (4 * ForkJoinPool.getCommonPoolParallelism()));
+		return evaluateAllParallel(env, expressions, output, ForkJoinPool.commonPool(), chunkSize);
+	}
+}
@@ -53,6 +53,11 @@ public class Calculator<E, M> {
 		return environment.executeAndPop(executable);
 	}
 
+	public BatchEvaluator<E> compileBatch(M exprType, String expr) {
+		final IExecutable<E> executable = compilers.compile(exprType, expr);
+		return environment.createBatch(executable);
+	}
+
 	public String compileExecuteAndPrint(M exprType, String expr) {
 		final E result = compileExecuteAndPop(exprType, expr);
 		return printer.repr(result);
@@ -64,6 +69,10 @@ public class Calculator<E, M> {
 		return value;
 	}
 
+	public ReactiveDefinitions<E, M> createReactiveDefinitions() {
+		return new ReactiveDefinitions<E, M>(this);
+	}
+
 	public void compileAndDefineGlobalFunction(M exprType, String id, int argCount, String bodyExpr) {
 		final IExecutable<E> funcBody = compilers.compile(exprType, bodyExpr);
 		environment.setGlobalSymbol(id, new CompiledFunction<E>(argCount, 1, funcBody, environment.topFrame()));
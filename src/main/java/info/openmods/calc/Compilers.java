@@ -1,9 +1,14 @@
 package info.openmods.calc;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
+import info.openmods.calc.executable.HotExecutable;
 import info.openmods.calc.executable.IExecutable;
 import java.util.Map;
+import org.apache.commons.lang3.tuple.Pair;
 
 public class Compilers<E, M> {
 	public interface ICompiler<E> {
@@ -12,14 +17,65 @@ public class Compilers<E, M> {
 
 	private final Map<M, ICompiler<E>> compilers;
 
+	private Cache<Pair<M, String>, IExecutable<E>> cache;
+
+	private int hotTierThreshold;
+
 	public Compilers(Map<M, ICompiler<E>> compilers) {
 		this.compilers = ImmutableMap.copyOf(compilers);
 	}
 
+	// cached expressions with folded constants will not see later changes in environment
+	public void setCacheCapacity(int capacity) {
+		Preconditions.checkArgument(capacity >= 0, "Invalid cache capacity: %s", capacity);
+		this.cache = capacity > 0
+				? CacheBuilder.newBuilder().maximumSize(capacity).recordStats().<Pair<M, String>, IExecutable<E>> build()
+				: null;
+	}
+
+	public boolean isCacheEnabled() {
+		return cache != null;
+	}
+
+	public CacheStats getCacheStats() {
+		final Cache<Pair<M, String>, IExecutable<E>> cache = this.cache;
+		return cache != null? cache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+	}
+
+	public void invalidateCache() {
+		final Cache<Pair<M, String>, IExecutable<E>> cache = this.cache;
+		if (cache != null) cache.invalidateAll();
+	}
+
+	// only affects expressions compiled after this call, 0 disables
+	public void setHotTierThreshold(int threshold) {
+		Preconditions.checkArgument(threshold >= 0, "Invalid threshold: %s", threshold);
+		this.hotTierThreshold = threshold;
+	}
+
+	public int getHotTierThreshold() {
+		return hotTierThreshold;
+	}
+
 	public IExecutable<E> compile(M type, String input) {
+		final Cache<Pair<M, String>, IExecutable<E>> cache = this.cache;
+		if (cache == null) return compileUncached(type, input);
+
+		final Pair<M, String> key = Pair.of(type, input);
+		IExecutable<E> result = cache.getIfPresent(key);
+		if (result == null) {
+			result = compileUncached(type, input);
+			cache.put(key, result);
+		}
+
+		return result;
+	}
+
+	private IExecutable<E> compileUncached(M type, String input) {
 		final ICompiler<E> compiler = compilers.get(type);
 		Preconditions.checkArgument(compiler != null, "Unknown compiler: " + type);
-		return compiler.compile(input);
+		final IExecutable<E> result = compiler.compile(input);
+		return hotTierThreshold > 0? HotExecutable.wrap(result, hotTierThreshold) : result;
 	}
 
 }
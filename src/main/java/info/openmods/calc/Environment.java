@@ -14,6 +14,8 @@ public class Environment<E> {
 
 	private final E nullValue;
 
+	private ExecutionBudget budget;
+
 	public Environment(E nullValue) {
 		this.nullValue = nullValue;
 	}
@@ -42,6 +44,32 @@ public class Environment<E> {
 		topFrame.symbols().put(name, value);
 	}
 
+	// constants may be inlined, so redefining them won't affect already compiled code
+	public void setGlobalConstant(String name, E value) {
+		topFrame.symbols().putConstant(name, value);
+	}
+
+	public void setExecutionListener(IExecutionListener listener) {
+		topFrame.setListener(listener);
+	}
+
+	public IExecutionListener getExecutionListener() {
+		return topFrame.listener();
+	}
+
+	public void setExecutionBudget(ExecutionBudget budget) {
+		this.budget = budget;
+	}
+
+	public ExecutionBudget getExecutionBudget() {
+		return budget;
+	}
+
+	void execute(Frame<E> frame, IExecutable<E> executable, ExecutionBudget budget) {
+		if (budget == null) executable.execute(frame);
+		else budget.execute(frame, executable);
+	}
+
 	public Frame<E> topFrame() {
 		return topFrame;
 	}
@@ -52,12 +80,24 @@ public class Environment<E> {
 		return freshFrame;
 	}
 
+	public ExecutionContext<E> createContext() {
+		return new ExecutionContext<E>(this);
+	}
+
+	public BatchEvaluator<E> createBatch(IExecutable<E> executable) {
+		return new BatchEvaluator<E>(this, executable);
+	}
+
 	public void execute(IExecutable<E> executable) {
-		executable.execute(topFrame);
+		execute(topFrame, executable, budget);
 	}
 
 	public E executeAndPop(IExecutable<E> executable) {
-		executable.execute(topFrame);
+		return executeAndPop(executable, budget);
+	}
+
+	public E executeAndPop(IExecutable<E> executable, ExecutionBudget budget) {
+		execute(topFrame, executable, budget);
 		final Stack<E> stack = topFrame.stack();
 
 		if (stack.isEmpty()) {
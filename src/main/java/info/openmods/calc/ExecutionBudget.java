@@ -0,0 +1,171 @@
+package info.openmods.calc;
+
+import com.google.common.base.Preconditions;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.utils.Stack;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// budget is only configuration - every execution starts with fresh counters
+public class ExecutionBudget {
+
+	public enum Limit {
+		INSTRUCTIONS,
+		TIME,
+		STACK_DEPTH,
+		CALL_DEPTH,
+		ALLOCATIONS
+	}
+
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	// System.nanoTime is not free, so deadline is only checked every 256 instructions
+	private static final int TIME_CHECK_MASK = 0xFF;
+
+	private static final ThreadLocal<Tracker> activeTracker = new ThreadLocal<Tracker>();
+
+	// allows allocation checks to skip thread local lookup when no budget is used anywhere
+	private static final AtomicInteger activeTrackersCount = new AtomicInteger();
+
+	private long maxInstructions = UNLIMITED;
+
+	private long timeoutNanos = UNLIMITED;
+
+	private long maxStackDepth = UNLIMITED;
+
+	private long maxCallDepth = UNLIMITED;
+
+	private long maxAllocatedElements = UNLIMITED;
+
+	public static ExecutionBudget create() {
+		return new ExecutionBudget();
+	}
+
+	public ExecutionBudget setMaxInstructions(long maxInstructions) {
+		Preconditions.checkArgument(maxInstructions >= 0, "Invalid instruction limit: %s", maxInstructions);
+		this.maxInstructions = maxInstructions;
+		return this;
+	}
+
+	public ExecutionBudget setTimeout(long timeout, TimeUnit unit) {
+		Preconditions.checkArgument(timeout >= 0, "Invalid timeout: %s", timeout);
+		this.timeoutNanos = unit.toNanos(timeout);
+		return this;
+	}
+
+	public ExecutionBudget setMaxStackDepth(long maxStackDepth) {
+		Preconditions.checkArgument(maxStackDepth >= 0, "Invalid stack depth limit: %s", maxStackDepth);
+		this.maxStackDepth = maxStackDepth;
+		return this;
+	}
+
+	// calling closure stored in variable counts twice (symbol call + closure call)
+	public ExecutionBudget setMaxCallDepth(long maxCallDepth) {
+		Preconditions.checkArgument(maxCallDepth >= 0, "Invalid call depth limit: %s", maxCallDepth);
+		this.maxCallDepth = maxCallDepth;
+		return this;
+	}
+
+	public ExecutionBudget setMaxAllocatedElements(long maxAllocatedElements) {
+		Preconditions.checkArgument(maxAllocatedElements >= 0, "Invalid allocation limit: %s", maxAllocatedElements);
+		this.maxAllocatedElements = maxAllocatedElements;
+		return this;
+	}
+
+	private class Tracker implements IExecutionListener {
+		private final IExecutionListener delegate;
+
+		private final Tracker previousTracker;
+
+		private final long deadline;
+
+		private final long maxStackSize;
+
+		private long instructions;
+
+		private long callDepth;
+
+		private long allocatedElements;
+
+		private Tracker(IExecutionListener delegate, Tracker previousTracker, int initialStackSize) {
+			this.delegate = delegate;
+			this.previousTracker = previousTracker;
+			final long now = System.nanoTime();
+			this.deadline = timeoutNanos < UNLIMITED - now? now + timeoutNanos : UNLIMITED;
+			this.maxStackSize = maxStackDepth < UNLIMITED - initialStackSize? initialStackSize + maxStackDepth : UNLIMITED;
+		}
+
+		@Override
+		public void enter(Kind kind, String id, Frame<?> frame) {
+			final long instructions = ++this.instructions;
+			if (instructions > maxInstructions) throw new ExecutionBudgetExceededException(Limit.INSTRUCTIONS, "Instruction limit exceeded: " + maxInstructions);
+			if ((instructions & TIME_CHECK_MASK) == 0 && deadline != UNLIMITED && System.nanoTime() > deadline) throw new ExecutionBudgetExceededException(Limit.TIME, "Execution time limit exceeded: " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+			if (frame.stack().totalSize() > maxStackSize) throw new ExecutionBudgetExceededException(Limit.STACK_DEPTH, "Stack depth limit exceeded: " + maxStackDepth);
+
+			if (kind == Kind.SYMBOL_CALL || kind == Kind.CLOSURE_CALL) {
+				if (callDepth >= maxCallDepth) throw new ExecutionBudgetExceededException(Limit.CALL_DEPTH, "Call depth limit exceeded: " + maxCallDepth);
+				callDepth++;
+			}
+
+			if (delegate != null) delegate.enter(kind, id, frame);
+		}
+
+		@Override
+		public void exit(Kind kind, String id, Frame<?> frame) {
+			if (kind == Kind.SYMBOL_CALL || kind == Kind.CLOSURE_CALL) callDepth--;
+			if (delegate != null) delegate.exit(kind, id, frame);
+		}
+
+		private void checkAllocation(long elements) {
+			if (elements > maxAllocatedElements - allocatedElements) throw new ExecutionBudgetExceededException(Limit.ALLOCATIONS, "Allocation limit exceeded: " + maxAllocatedElements);
+		}
+
+		private void allocate(long elements) {
+			checkAllocation(elements);
+			allocatedElements += elements;
+		}
+	}
+
+	public <E> void execute(Frame<E> frame, IExecutable<E> executable) {
+		final IExecutionListener listener = frame.listener();
+		final Stack<E> stack = frame.stack();
+		final Tracker tracker = new Tracker(listener, activeTracker.get(), stack.totalSize());
+
+		activeTracker.set(tracker);
+		activeTrackersCount.incrementAndGet();
+		frame.setListener(tracker);
+		try {
+			executable.execute(frame);
+		} catch (RuntimeException e) {
+			throw unwrapBudgetException(e);
+		} finally {
+			frame.setListener(listener);
+			activeTrackersCount.decrementAndGet();
+			if (tracker.previousTracker != null) activeTracker.set(tracker.previousTracker);
+			else activeTracker.remove();
+		}
+	}
+
+	// some functions wrap exceptions thrown by called code, but budget errors should be visible to caller
+	private static RuntimeException unwrapBudgetException(RuntimeException e) {
+		Throwable cause = e;
+		while (cause != null) {
+			if (cause instanceof ExecutionBudgetExceededException) return (ExecutionBudgetExceededException)cause;
+			cause = cause.getCause();
+		}
+		return e;
+	}
+
+	public static void allocate(long elements) {
+		if (activeTrackersCount.get() == 0) return;
+		final Tracker tracker = activeTracker.get();
+		if (tracker != null) tracker.allocate(elements);
+	}
+
+	// used to fail early, before big temporary collections are created
+	public static void checkAllocation(long elements) {
+		if (activeTrackersCount.get() == 0) return;
+		final Tracker tracker = activeTracker.get();
+		if (tracker != null) tracker.checkAllocation(elements);
+	}
+}
@@ -0,0 +1,13 @@
+package info.openmods.calc;
+
+public class ExecutionBudgetExceededException extends ExecutionErrorException {
+	private static final long serialVersionUID = 4128459616418727137L;
+
+	public final ExecutionBudget.Limit limit;
+
+	public ExecutionBudgetExceededException(ExecutionBudget.Limit limit, String cause) {
+		super(cause);
+		this.limit = limit;
+	}
+
+}
@@ -0,0 +1,67 @@
+package info.openmods.calc;
+
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.symbol.ISymbol;
+import info.openmods.calc.symbol.SlotLayout;
+import info.openmods.calc.symbol.SlotSymbolMap;
+import info.openmods.calc.utils.Stack;
+
+// globals are shared between contexts, so they must not be modified while other threads execute
+public class ExecutionContext<E> {
+
+	// shared by all contexts, so cached symbol lookups stay valid when same expression is executed in different contexts
+	private static final SlotLayout LAYOUT = SlotLayout.create(Environment.VAR_ANS);
+
+	private static final int ANS_SLOT = LAYOUT.indexOf(Environment.VAR_ANS);
+
+	private final Environment<E> env;
+
+	private final E nullValue;
+
+	private final SlotSymbolMap<E> symbols;
+
+	private final Frame<E> frame;
+
+	public ExecutionContext(Environment<E> env) {
+		this.env = env;
+		this.nullValue = env.nullValue();
+		this.symbols = new SlotSymbolMap<E>(env.topFrame().symbols(), LAYOUT);
+		this.frame = new Frame<E>(symbols, new Stack<E>());
+	}
+
+	public Frame<E> frame() {
+		return frame;
+	}
+
+	public void setSymbol(String name, ISymbol<E> symbol) {
+		symbols.put(name, symbol);
+	}
+
+	public void setSymbol(String name, E value) {
+		symbols.put(name, value);
+	}
+
+	public ISymbol<E> getSymbol(String name) {
+		return symbols.get(name);
+	}
+
+	public void execute(IExecutable<E> executable) {
+		frame.setListener(env.getExecutionListener());
+		env.execute(frame, executable, env.getExecutionBudget());
+	}
+
+	public E executeAndPop(IExecutable<E> executable) {
+		frame.setListener(env.getExecutionListener());
+		env.execute(frame, executable, env.getExecutionBudget());
+		final Stack<E> stack = frame.stack();
+
+		if (stack.isEmpty()) {
+			symbols.setSlotValue(ANS_SLOT, nullValue);
+			return null;
+		} else {
+			final E result = stack.pop();
+			symbols.setSlotValue(ANS_SLOT, result);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package info.openmods.calc;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+// in sampling mode values are totals of sampled executions - multiply by sample interval to get estimates
+public class ExecutionProfiler implements IExecutionListener {
+
+	public static class Entry {
+		public final Kind kind;
+
+		public final String id;
+
+		private long calls;
+
+		private long totalNanos;
+
+		private long selfNanos;
+
+		private long selfAllocatedBytes;
+
+		private Entry(Kind kind, String id) {
+			this.kind = kind;
+			this.id = id;
+		}
+
+		private Entry(Entry other) {
+			this.kind = other.kind;
+			this.id = other.id;
+			synchronized (other) {
+				this.calls = other.calls;
+				this.totalNanos = other.totalNanos;
+				this.selfNanos = other.selfNanos;
+				this.selfAllocatedBytes = other.selfAllocatedBytes;
+			}
+		}
+
+		private synchronized void update(boolean outermost, long elapsedNanos, long selfNanos, long selfAllocatedBytes) {
+			this.calls++;
+			if (outermost) this.totalNanos += elapsedNanos;
+			this.selfNanos += selfNanos;
+			this.selfAllocatedBytes += selfAllocatedBytes;
+		}
+
+		public long calls() {
+			return calls;
+		}
+
+		// recursive calls are only counted once
+		public long totalNanos() {
+			return totalNanos;
+		}
+
+		public long selfNanos() {
+			return selfNanos;
+		}
+
+		public long selfAllocatedBytes() {
+			return selfAllocatedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s %s: calls=%d, total=%.3fms, self=%.3fms, self alloc=%dB", kind, id, calls, totalNanos / 1e6, selfNanos / 1e6, selfAllocatedBytes);
+		}
+	}
+
+	private static class Record {
+		private Entry entry;
+		private boolean outermost;
+		private long startNanos;
+		private long childNanos;
+		private long startAllocatedBytes;
+		private long childAllocatedBytes;
+	}
+
+	private class ThreadState {
+		private final List<Record> records = Lists.newArrayList();
+
+		// number of active records for every entry, used to detect recursion
+		private final Map<Entry, int[]> activeEntries = Maps.newIdentityHashMap();
+
+		private int depth;
+
+		private boolean sampling;
+
+		private int rootExecutions;
+
+		public void enter(Kind kind, String id) {
+			if (depth == 0) sampling = (rootExecutions++ % sampleInterval) == 0;
+
+			if (sampling) {
+				final Record record;
+				if (depth < records.size()) {
+					record = records.get(depth);
+				} else {
+					record = new Record();
+					records.add(record);
+				}
+
+				final Entry entry = getEntry(kind, id);
+				record.entry = entry;
+
+				int[] activeCount = activeEntries.get(entry);
+				if (activeCount == null) {
+					activeCount = new int[1];
+					activeEntries.put(entry, activeCount);
+				}
+				record.outermost = activeCount[0]++ == 0;
+
+				record.childNanos = 0;
+				record.childAllocatedBytes = 0;
+				record.startAllocatedBytes = allocatedBytes();
+				record.startNanos = System.nanoTime();
+			}
+
+			depth++;
+		}
+
+		public void exit() {
+			depth--;
+
+			if (sampling) {
+				final long endNanos = System.nanoTime();
+				final long endAllocatedBytes = allocatedBytes();
+				final Record record = records.get(depth);
+
+				final long elapsedNanos = endNanos - record.startNanos;
+				final long allocatedBytes = endAllocatedBytes - record.startAllocatedBytes;
+				record.entry.update(record.outermost, elapsedNanos, elapsedNanos - record.childNanos, allocatedBytes - record.childAllocatedBytes);
+				activeEntries.get(record.entry)[0]--;
+
+				if (depth > 0) {
+					final Record parent = records.get(depth - 1);
+					parent.childNanos += elapsedNanos;
+					parent.childAllocatedBytes += allocatedBytes;
+				}
+
+				record.entry = null;
+			}
+		}
+	}
+
+	private final Map<Kind, ConcurrentMap<String, Entry>> entries = new EnumMap<Kind, ConcurrentMap<String, Entry>>(Kind.class);
+
+	private final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+		@Override
+		protected ThreadState initialValue() {
+			return new ThreadState();
+		}
+	};
+
+	private final int sampleInterval;
+
+	private final com.sun.management.ThreadMXBean allocationCounter;
+
+	public ExecutionProfiler(int sampleInterval, boolean measureAllocations) {
+		Preconditions.checkArgument(sampleInterval > 0, "Invalid sample interval: %s", sampleInterval);
+		this.sampleInterval = sampleInterval;
+		this.allocationCounter = measureAllocations? createAllocationCounter() : null;
+
+		for (Kind kind : Kind.values())
+			entries.put(kind, Maps.<String, Entry> newConcurrentMap());
+	}
+
+	public ExecutionProfiler() {
+		this(1, false);
+	}
+
+	private static com.sun.management.ThreadMXBean createAllocationCounter() {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+		final com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean)bean;
+		if (!result.isThreadAllocatedMemorySupported()) return null;
+		result.setThreadAllocatedMemoryEnabled(true);
+		return result;
+	}
+
+	private long allocatedBytes() {
+		return allocationCounter != null? allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	private Entry getEntry(Kind kind, String id) {
+		final ConcurrentMap<String, Entry> kindEntries = entries.get(kind);
+		final Entry existing = kindEntries.get(id);
+		if (existing != null) return existing;
+
+		final Entry newEntry = new Entry(kind, id);
+		final Entry racedEntry = kindEntries.putIfAbsent(id, newEntry);
+		return racedEntry != null? racedEntry : newEntry;
+	}
+
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	public boolean isMeasuringAllocations() {
+		return allocationCounter != null;
+	}
+
+	@Override
+	public void enter(Kind kind, String id, Frame<?> frame) {
+		threadState.get().enter(kind, id);
+	}
+
+	@Override
+	public void exit(Kind kind, String id, Frame<?> frame) {
+		threadState.get().exit();
+	}
+
+	// sorted by self time, descending
+	public List<Entry> snapshot() {
+		final List<Entry> result = Lists.newArrayList();
+		for (ConcurrentMap<String, Entry> kindEntries : entries.values())
+			for (Entry e : kindEntries.values())
+				result.add(new Entry(e));
+
+		Collections.sort(result, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry o1, Entry o2) {
+				return Long.compare(o2.selfNanos, o1.selfNanos);
+			}
+		});
+		return ImmutableList.copyOf(result);
+	}
+
+	public Entry get(Kind kind, String id) {
+		final Entry entry = entries.get(kind).get(id);
+		return entry != null? new Entry(entry) : null;
+	}
+
+	// should not be called during execution
+	public void reset() {
+		for (ConcurrentMap<String, Entry> kindEntries : entries.values())
+			kindEntries.clear();
+	}
+
+	public String report() {
+		final StringBuilder result = new StringBuilder();
+		if (sampleInterval > 1) result.append("Sampled every ").append(sampleInterval).append(" top-level events\n");
+		for (Entry e : snapshot())
+			result.append(e).append('\n');
+		return result.toString();
+	}
+}
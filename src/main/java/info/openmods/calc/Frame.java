@@ -8,9 +8,17 @@ public class Frame<E> {
 
 	private final Stack<E> stack;
 
+	// copied to frames derived from this one, null when not instrumented
+	private IExecutionListener listener;
+
 	public Frame(SymbolMap<E> symbols, Stack<E> stack) {
+		this(symbols, stack, null);
+	}
+
+	public Frame(SymbolMap<E> symbols, Stack<E> stack, IExecutionListener listener) {
 		this.symbols = symbols;
 		this.stack = stack;
+		this.listener = listener;
 	}
 
 	public Stack<E> stack() {
@@ -20,4 +28,12 @@ public class Frame<E> {
 	public SymbolMap<E> symbols() {
 		return symbols;
 	}
+
+	public IExecutionListener listener() {
+		return listener;
+	}
+
+	public void setListener(IExecutionListener listener) {
+		this.listener = listener;
+	}
 }
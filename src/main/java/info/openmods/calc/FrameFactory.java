@@ -9,35 +9,47 @@ import info.openmods.calc.utils.Stack;
 public class FrameFactory {
 
 	public static <E> Frame<E> newLocalFrameWithSubstack(Frame<E> enclosingFrame, int depth) {
-		return new Frame<E>(new LocalSymbolMap<E>(enclosingFrame.symbols()), enclosingFrame.stack().substack(depth));
+		return new Frame<E>(new LocalSymbolMap<E>(enclosingFrame.symbols()), enclosingFrame.stack().substack(depth), enclosingFrame.listener());
 	}
 
 	public static <E> Frame<E> newLocalFrame(SymbolMap<E> parentSymbols) {
-		return new Frame<E>(new LocalSymbolMap<E>(parentSymbols), new Stack<E>());
+		return newLocalFrame(parentSymbols, null);
+	}
+
+	public static <E> Frame<E> newLocalFrame(SymbolMap<E> parentSymbols, IExecutionListener listener) {
+		return new Frame<E>(new LocalSymbolMap<E>(parentSymbols), new Stack<E>(), listener);
 	}
 
 	public static <E> Frame<E> newLocalFrame(Frame<E> parent, Stack<E> stack) {
-		return new Frame<E>(parent.symbols(), stack);
+		return new Frame<E>(parent.symbols(), stack, parent.listener());
 	}
 
 	public static <E> Frame<E> newLocalFrame(Frame<E> enclosingFrame) {
-		return newLocalFrame(enclosingFrame.symbols());
+		return new Frame<E>(new LocalSymbolMap<E>(enclosingFrame.symbols()), new Stack<E>(), enclosingFrame.listener());
 	}
 
 	public static <E> Frame<E> symbolsToFrame(SymbolMap<E> symbols) {
-		return new Frame<E>(symbols, new Stack<E>());
+		return symbolsToFrame(symbols, null);
+	}
+
+	public static <E> Frame<E> symbolsToFrame(SymbolMap<E> symbols, IExecutionListener listener) {
+		return new Frame<E>(symbols, new Stack<E>(), listener);
 	}
 
 	public static <E> Frame<E> newProtectionFrameWithSubstack(Frame<E> enclosingFrame, int depth) {
-		return new Frame<E>(new ProtectionSymbolMap<E>(enclosingFrame.symbols()), enclosingFrame.stack().substack(depth));
+		return new Frame<E>(new ProtectionSymbolMap<E>(enclosingFrame.symbols()), enclosingFrame.stack().substack(depth), enclosingFrame.listener());
 	}
 
 	public static <E> Frame<E> createProtectionFrame(SymbolMap<E> symbols) {
-		return new Frame<E>(new ProtectionSymbolMap<E>(symbols), new Stack<E>());
+		return createProtectionFrame(symbols, null);
+	}
+
+	public static <E> Frame<E> createProtectionFrame(SymbolMap<E> symbols, IExecutionListener listener) {
+		return new Frame<E>(new ProtectionSymbolMap<E>(symbols), new Stack<E>(), listener);
 	}
 
 	public static <E> Frame<E> newClosureFrame(SymbolMap<E> scopeSymbols, Frame<E> stackFrame, int depth) {
-		return new Frame<E>(new LocalSymbolMap<E>(scopeSymbols), stackFrame.stack().substack(depth));
+		return new Frame<E>(new LocalSymbolMap<E>(scopeSymbols), stackFrame.stack().substack(depth), stackFrame.listener());
 	}
 
 	public static <E> Frame<E> createTopFrame() {
@@ -0,0 +1,16 @@
+package info.openmods.calc;
+
+// exit is called even if execution fails
+public interface IExecutionListener {
+
+	public enum Kind {
+		SYMBOL_GET,
+		SYMBOL_CALL,
+		OPERATOR,
+		CLOSURE_CALL
+	}
+
+	public void enter(Kind kind, String id, Frame<?> frame);
+
+	public void exit(Kind kind, String id, Frame<?> frame);
+}
@@ -0,0 +1,241 @@
+package info.openmods.calc;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import info.openmods.calc.executable.IExecutable;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// dependencies are recorded on every evaluation, so they always match last taken code paths
+public class ReactiveDefinitions<E, M> {
+
+	public interface IChangeListener<E> {
+		public void onChange(String id, E oldValue, E newValue);
+	}
+
+	private static class Definition<E> {
+		public final IExecutable<E> executable;
+
+		public final Set<String> dependencies;
+
+		public final E value;
+
+		public Definition(IExecutable<E> executable, Set<String> dependencies, E value) {
+			this.executable = executable;
+			this.dependencies = dependencies;
+			this.value = value;
+		}
+	}
+
+	private static class DependencyRecorder implements IExecutionListener {
+		private final IExecutionListener delegate;
+
+		private final Set<String> symbols = Sets.newHashSet();
+
+		public DependencyRecorder(IExecutionListener delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void enter(Kind kind, String id, Frame<?> frame) {
+			if (kind == Kind.SYMBOL_GET || kind == Kind.SYMBOL_CALL) symbols.add(id);
+			if (delegate != null) delegate.enter(kind, id, frame);
+		}
+
+		@Override
+		public void exit(Kind kind, String id, Frame<?> frame) {
+			if (delegate != null) delegate.exit(kind, id, frame);
+		}
+	}
+
+	private final Calculator<E, M> calculator;
+
+	private final Map<String, Definition<E>> definitions = Maps.newHashMap();
+
+	// symbol -> definitions that read it
+	private final Multimap<String, String> dependents = HashMultimap.create();
+
+	private final List<IChangeListener<E>> listeners = Lists.newArrayList();
+
+	public ReactiveDefinitions(Calculator<E, M> calculator) {
+		this.calculator = calculator;
+	}
+
+	public void addListener(IChangeListener<E> listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(IChangeListener<E> listener) {
+		listeners.remove(listener);
+	}
+
+	public boolean isDefined(String id) {
+		return definitions.containsKey(id);
+	}
+
+	public E getValue(String id) {
+		final Definition<E> definition = definitions.get(id);
+		Preconditions.checkArgument(definition != null, "Symbol %s is not defined", id);
+		return definition.value;
+	}
+
+	public Set<String> getDependencies(String id) {
+		final Definition<E> definition = definitions.get(id);
+		Preconditions.checkArgument(definition != null, "Symbol %s is not defined", id);
+		return Collections.unmodifiableSet(definition.dependencies);
+	}
+
+	public E define(M exprType, String id, String expr) {
+		final IExecutable<E> executable = calculator.compilers.compile(exprType, expr);
+		final Definition<E> previous = definitions.get(id);
+
+		final Definition<E> definition = evaluate(executable);
+		Preconditions.checkState(!createsCycle(id, definition.dependencies), "Definition of %s creates dependency cycle", id);
+		store(id, definition);
+
+		if (previous == null) notifyListeners(id, null, definition.value);
+		else if (!Objects.equal(previous.value, definition.value)) notifyListeners(id, previous.value, definition.value);
+
+		propagate(ImmutableSet.of(id));
+		return definition.value;
+	}
+
+	// symbol keeps last value, but is no longer updated
+	public void undefine(String id) {
+		final Definition<E> definition = definitions.remove(id);
+		if (definition != null) {
+			for (String dependency : definition.dependencies)
+				dependents.remove(dependency, id);
+		}
+	}
+
+	public void setInput(String id, E value) {
+		setInputs(Collections.singletonMap(id, value));
+	}
+
+	// every affected definition is evaluated at most once
+	public void setInputs(Map<String, E> values) {
+		for (String id : values.keySet())
+			Preconditions.checkArgument(!definitions.containsKey(id), "Symbol %s is defined by expression and cannot be set directly", id);
+
+		for (Map.Entry<String, E> e : values.entrySet())
+			calculator.environment.setGlobalSymbol(e.getKey(), e.getValue());
+
+		propagate(values.keySet());
+	}
+
+	// for symbols changed outside this object (like redefined functions)
+	public void invalidate(String... ids) {
+		propagate(ImmutableSet.copyOf(ids));
+	}
+
+	private Definition<E> evaluate(IExecutable<E> executable) {
+		final Environment<E> env = calculator.environment;
+		final IExecutionListener listener = env.getExecutionListener();
+		final DependencyRecorder recorder = new DependencyRecorder(listener);
+		env.setExecutionListener(recorder);
+		final E value;
+		try {
+			value = env.executeAndPop(executable);
+		} finally {
+			env.setExecutionListener(listener);
+		}
+
+		return new Definition<E>(executable, recorder.symbols, value);
+	}
+
+	private void store(String id, Definition<E> definition) {
+		final Definition<E> previous = definitions.put(id, definition);
+		if (previous != null) {
+			for (String dependency : previous.dependencies)
+				dependents.remove(dependency, id);
+		}
+
+		for (String dependency : definition.dependencies)
+			dependents.put(dependency, id);
+
+		calculator.environment.setGlobalSymbol(id, definition.value);
+	}
+
+	private boolean createsCycle(String id, Set<String> dependencies) {
+		final Set<String> visited = Sets.newHashSet();
+		final Deque<String> queue = Lists.newLinkedList(dependencies);
+		while (!queue.isEmpty()) {
+			final String symbol = queue.pop();
+			if (symbol.equals(id)) return true;
+			if (!visited.add(symbol)) continue;
+
+			final Definition<E> definition = definitions.get(symbol);
+			if (definition != null) queue.addAll(definition.dependencies);
+		}
+		return false;
+	}
+
+	private List<String> sortAffected(Set<String> changedSymbols) {
+		// collect all definitions reachable from changed symbols
+		final Set<String> affected = Sets.newHashSet();
+		final Deque<String> queue = Lists.newLinkedList(changedSymbols);
+		while (!queue.isEmpty()) {
+			final String symbol = queue.pop();
+			for (String dependent : dependents.get(symbol))
+				if (affected.add(dependent)) queue.add(dependent);
+		}
+
+		// Kahn's algorithm, restricted to affected definitions
+		final Map<String, Integer> pendingDependencies = Maps.newHashMap();
+		for (String id : affected) {
+			int count = 0;
+			for (String dependency : definitions.get(id).dependencies)
+				if (affected.contains(dependency)) count++;
+			pendingDependencies.put(id, count);
+			if (count == 0) queue.add(id);
+		}
+
+		final List<String> result = Lists.newArrayList();
+		while (!queue.isEmpty()) {
+			final String id = queue.pop();
+			result.add(id);
+			for (String dependent : dependents.get(id)) {
+				final Integer count = pendingDependencies.get(dependent);
+				if (count != null) {
+					pendingDependencies.put(dependent, count - 1);
+					if (count == 1) queue.add(dependent);
+				}
+			}
+		}
+
+		Preconditions.checkState(result.size() == affected.size(), "Dependency cycle in definitions: %s", affected);
+		return result;
+	}
+
+	private void propagate(Set<String> changedSymbols) {
+		final Set<String> changed = Sets.newHashSet(changedSymbols);
+
+		for (String id : sortAffected(changedSymbols)) {
+			final Definition<E> current = definitions.get(id);
+			if (Collections.disjoint(current.dependencies, changed)) continue;
+
+			final Definition<E> updated = evaluate(current.executable);
+			store(id, updated);
+
+			if (!Objects.equal(current.value, updated.value)) {
+				changed.add(id);
+				notifyListeners(id, current.value, updated.value);
+			}
+		}
+	}
+
+	private void notifyListeners(String id, E oldValue, E newValue) {
+		for (IChangeListener<E> listener : listeners)
+			listener.onChange(id, oldValue, newValue);
+	}
+}
@@ -20,6 +20,8 @@ public class SingleExprEvaluator<E, M> {
 
 	private IExecutable<E> compiledExpr;
 
+	private ExecutionBudget budget;
+
 	public SingleExprEvaluator(Calculator<E, M> calculator) {
 		this.calculator = calculator;
 	}
@@ -35,6 +37,11 @@ public class SingleExprEvaluator<E, M> {
 		this.useFallback = false;
 	}
 
+	// overrides environment budget. Expression that exceeds it is replaced with fallback
+	public void setExecutionBudget(ExecutionBudget budget) {
+		this.budget = budget;
+	}
+
 	public boolean isExprValid() {
 		if (useFallback) return false;
 
@@ -65,7 +72,8 @@ public class SingleExprEvaluator<E, M> {
 		conf.accept(calculator.environment);
 
 		try {
-			return calculator.environment.executeAndPop(compiledExpr);
+			final Environment<E> env = calculator.environment;
+			return env.executeAndPop(compiledExpr, budget != null? budget : env.getExecutionBudget());
 		} catch (Exception ex) {
 			useFallback = true;
 			return fallbackValue.get();
@@ -49,6 +49,21 @@ public abstract class BinaryOperator<E> extends Operator<E> {
 		}
 	}
 
+	public abstract static class Pure<E> extends Direct<E> {
+		public Pure(String id, int precedence, OperatorAssociativity associativity) {
+			super(id, precedence, associativity);
+		}
+
+		public Pure(String id, int precendence) {
+			super(id, precendence);
+		}
+
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+	}
+
 	public abstract static class Scoped<E> extends BinaryOperator<E> {
 		public Scoped(String id, int precedence, OperatorAssociativity associativity) {
 			super(id, precedence, associativity);
@@ -0,0 +1,350 @@
+package info.openmods.calc.executable;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import info.openmods.calc.ExecutionErrorException;
+import info.openmods.calc.Frame;
+import info.openmods.calc.IExecutionListener;
+import info.openmods.calc.symbol.ISymbol;
+import info.openmods.calc.utils.OptionalInt;
+import info.openmods.calc.utils.Stack;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// every instruction is single int: opcode in lowest bits, index into one of tables in remaining ones
+public class BytecodeProgram<E> implements IExecutable<E> {
+
+	private static final int OPCODE_BITS = 3;
+	private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+
+	private static final int OP_VALUE = 0;
+	private static final int OP_OPERATOR = 1;
+	private static final int OP_SYMBOL_GET = 2;
+	private static final int OP_SYMBOL_CALL = 3;
+	private static final int OP_EXECUTE = 4;
+
+	private static class CallSite {
+		private final int symbol;
+		private final OptionalInt argCount;
+		private final OptionalInt returnCount;
+
+		public CallSite(int symbol, OptionalInt argCount, OptionalInt returnCount) {
+			this.symbol = symbol;
+			this.argCount = argCount;
+			this.returnCount = returnCount;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(symbol, argCount, returnCount);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof CallSite) {
+				final CallSite other = (CallSite)obj;
+				return other.symbol == this.symbol &&
+						other.argCount.equals(this.argCount) &&
+						other.returnCount.equals(this.returnCount);
+			}
+			return false;
+		}
+	}
+
+	private final int[] code;
+
+	private final Object[] constants;
+
+	private final Operator<E>[] operators;
+
+	private final String[] symbols;
+
+	private final SymbolLookupCache<E>[] symbolCaches;
+
+	private final CallSite[] callSites;
+
+	private final IExecutable<E>[] executables;
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private BytecodeProgram(Builder<E> builder) {
+		this.code = new int[builder.code.size()];
+		for (int i = 0; i < code.length; i++)
+			code[i] = builder.code.get(i);
+
+		this.constants = builder.constants.toArray();
+		this.operators = builder.operators.toArray(new Operator[builder.operators.size()]);
+		this.symbols = builder.symbols.toArray(new String[builder.symbols.size()]);
+		this.symbolCaches = new SymbolLookupCache[symbols.length];
+		for (int i = 0; i < symbols.length; i++)
+			symbolCaches[i] = new SymbolLookupCache<E>(symbols[i]);
+		this.callSites = builder.callSites.toArray(new CallSite[builder.callSites.size()]);
+		this.executables = builder.executables.toArray(new IExecutable[builder.executables.size()]);
+	}
+
+	public static class Builder<E> {
+		private final List<Integer> code = Lists.newArrayList();
+		private final List<Object> constants = Lists.newArrayList();
+		private final List<Operator<E>> operators = Lists.newArrayList();
+		private final List<String> symbols = Lists.newArrayList();
+		private final Map<String, Integer> symbolIndices = Maps.newHashMap();
+		private final List<CallSite> callSites = Lists.newArrayList();
+		private final List<IExecutable<E>> executables = Lists.newArrayList();
+
+		private void addInstruction(int opcode, int operand) {
+			code.add((operand << OPCODE_BITS) | opcode);
+		}
+
+		private int symbolIndex(String id) {
+			Integer index = symbolIndices.get(id);
+			if (index == null) {
+				index = symbols.size();
+				symbols.add(id);
+				symbolIndices.put(id, index);
+			}
+			return index;
+		}
+
+		public Builder<E> appendValue(E value) {
+			addInstruction(OP_VALUE, constants.size());
+			constants.add(value);
+			return this;
+		}
+
+		public Builder<E> appendOperator(Operator<E> operator) {
+			addInstruction(OP_OPERATOR, operators.size());
+			operators.add(operator);
+			return this;
+		}
+
+		public Builder<E> appendSymbolGet(String id) {
+			addInstruction(OP_SYMBOL_GET, symbolIndex(id));
+			return this;
+		}
+
+		public Builder<E> appendSymbolCall(String id, OptionalInt argCount, OptionalInt returnCount) {
+			addInstruction(OP_SYMBOL_CALL, callSites.size());
+			callSites.add(new CallSite(symbolIndex(id), argCount, returnCount));
+			return this;
+		}
+
+		public Builder<E> appendExecutable(IExecutable<E> executable) {
+			if (executable instanceof Value) {
+				appendValue(((Value<E>)executable).value());
+			} else if (executable instanceof Operator) {
+				appendOperator((Operator<E>)executable);
+			} else if (executable instanceof SymbolGet) {
+				appendSymbolGet(((SymbolGet<E>)executable).id());
+			} else if (executable instanceof SymbolCall) {
+				final SymbolCall<E> call = (SymbolCall<E>)executable;
+				appendSymbolCall(call.id(), call.argCount(), call.returnCount());
+			} else if (executable instanceof ExecutableList) {
+				for (IExecutable<E> e : ((ExecutableList<E>)executable).getCommands())
+					appendExecutable(e);
+			} else if (executable instanceof BytecodeProgram) {
+				for (IExecutable<E> e : ((BytecodeProgram<E>)executable).getCommands())
+					appendExecutable(e);
+			} else if (!(executable instanceof NoopExecutable)) {
+				addInstruction(OP_EXECUTE, executables.size());
+				executables.add(executable);
+			}
+			return this;
+		}
+
+		public BytecodeProgram<E> build() {
+			return new BytecodeProgram<E>(this);
+		}
+	}
+
+	public static <E> Builder<E> builder() {
+		return new Builder<E>();
+	}
+
+	public static <E> IExecutable<E> wrap(List<IExecutable<E>> commands) {
+		if (commands.size() == 0) return new NoopExecutable<E>();
+		if (commands.size() == 1) return commands.get(0);
+
+		final Builder<E> builder = builder();
+		for (IExecutable<E> command : commands)
+			builder.appendExecutable(command);
+		return builder.build();
+	}
+
+	private ISymbol<E> findSymbol(Frame<E> frame, int symbolIndex) {
+		final ISymbol<E> symbol = symbolCaches[symbolIndex].lookup(frame.symbols());
+		Preconditions.checkNotNull(symbol, "Unknown symbol: %s", symbols[symbolIndex]);
+		return symbol;
+	}
+
+	private void executeSymbolGet(Frame<E> frame, Stack<E> stack, int symbolIndex) {
+		final ISymbol<E> symbol = findSymbol(frame, symbolIndex);
+
+		try {
+			stack.push(symbol.get());
+		} catch (ExecutionErrorException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to get symbol '" + symbols[symbolIndex] + "'", e);
+		}
+	}
+
+	private void executeSymbolCall(Frame<E> frame, int callIndex) {
+		final CallSite callSite = callSites[callIndex];
+		final ISymbol<E> symbol = findSymbol(frame, callSite.symbol);
+
+		try {
+			symbol.call(frame, callSite.argCount, callSite.returnCount);
+		} catch (ExecutionErrorException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to execute symbol '" + symbols[callSite.symbol] + "'", e);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void execute(Frame<E> frame) {
+		final IExecutionListener listener = frame.listener();
+		if (listener != null) {
+			executeInstrumented(frame, listener);
+			return;
+		}
+
+		final Stack<E> stack = frame.stack();
+		final int[] code = this.code;
+
+		for (int pc = 0; pc < code.length; pc++) {
+			final int instruction = code[pc];
+			final int operand = instruction >>> OPCODE_BITS;
+			switch (instruction & OPCODE_MASK) {
+				case OP_VALUE:
+					stack.push((E)constants[operand]);
+					break;
+				case OP_OPERATOR:
+					operators[operand].execute(frame);
+					break;
+				case OP_SYMBOL_GET:
+					executeSymbolGet(frame, stack, operand);
+					break;
+				case OP_SYMBOL_CALL:
+					executeSymbolCall(frame, operand);
+					break;
+				case OP_EXECUTE:
+					executables[operand].execute(frame);
+					break;
+				default:
+					throw new IllegalStateException("Invalid instruction: " + instruction);
+			}
+		}
+	}
+
+	private void executeInstrumented(Frame<E> frame, IExecutionListener listener) {
+		for (int instruction : code) {
+			final int operand = instruction >>> OPCODE_BITS;
+			switch (instruction & OPCODE_MASK) {
+				case OP_VALUE:
+					@SuppressWarnings("unchecked")
+					final E value = (E)constants[operand];
+					frame.stack().push(value);
+					break;
+				case OP_OPERATOR:
+					Operator.executeInstrumented(operators[operand], frame, listener);
+					break;
+				case OP_SYMBOL_GET: {
+					final String id = symbols[operand];
+					listener.enter(IExecutionListener.Kind.SYMBOL_GET, id, frame);
+					try {
+						executeSymbolGet(frame, frame.stack(), operand);
+					} finally {
+						listener.exit(IExecutionListener.Kind.SYMBOL_GET, id, frame);
+					}
+					break;
+				}
+				case OP_SYMBOL_CALL: {
+					final String id = symbols[callSites[operand].symbol];
+					listener.enter(IExecutionListener.Kind.SYMBOL_CALL, id, frame);
+					try {
+						executeSymbolCall(frame, operand);
+					} finally {
+						listener.exit(IExecutionListener.Kind.SYMBOL_CALL, id, frame);
+					}
+					break;
+				}
+				case OP_EXECUTE:
+					executables[operand].execute(frame);
+					break;
+				default:
+					throw new IllegalStateException("Invalid instruction: " + instruction);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<IExecutable<E>> getCommands() {
+		final ImmutableList.Builder<IExecutable<E>> result = ImmutableList.builder();
+		for (int instruction : code) {
+			final int operand = instruction >>> OPCODE_BITS;
+			switch (instruction & OPCODE_MASK) {
+				case OP_VALUE:
+					result.add(Value.create((E)constants[operand]));
+					break;
+				case OP_OPERATOR:
+					result.add(operators[operand]);
+					break;
+				case OP_SYMBOL_GET:
+					result.add(new SymbolGet<E>(symbols[operand]));
+					break;
+				case OP_SYMBOL_CALL: {
+					final CallSite callSite = callSites[operand];
+					result.add(new SymbolCall<E>(symbols[callSite.symbol], callSite.argCount, callSite.returnCount));
+					break;
+				}
+				case OP_EXECUTE:
+					result.add(executables[operand]);
+					break;
+				default:
+					throw new IllegalStateException("Invalid instruction: " + instruction);
+			}
+		}
+		return result.build();
+	}
+
+	@Override
+	public String toString() {
+		return "bytecode{" + Joiner.on(' ').join(getCommands()) + "}";
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 37;
+		result = prime * result + Arrays.hashCode(code);
+		result = prime * result + Arrays.hashCode(constants);
+		result = prime * result + Arrays.hashCode(operators);
+		result = prime * result + Arrays.hashCode(symbols);
+		result = prime * result + Arrays.hashCode(callSites);
+		result = prime * result + Arrays.hashCode(executables);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+
+		if (obj instanceof BytecodeProgram) {
+			final BytecodeProgram<?> other = (BytecodeProgram<?>)obj;
+			return Arrays.equals(this.code, other.code) &&
+					Arrays.equals(this.constants, other.constants) &&
+					Arrays.equals(this.operators, other.operators) &&
+					Arrays.equals(this.symbols, other.symbols) &&
+					Arrays.equals(this.callSites, other.callSites) &&
+					Arrays.equals(this.executables, other.executables);
+		}
+
+		return false;
+	}
+}
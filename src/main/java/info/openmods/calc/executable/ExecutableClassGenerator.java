@@ -0,0 +1,297 @@
+package info.openmods.calc.executable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// every command gets own call site, so JIT sees single receiver type and can inline whole expression
+public class ExecutableClassGenerator {
+
+	// each command takes at most 10 bytes in 'execute' and 9 in constructor, so this keeps methods well below 64k limit
+	public static final int MAX_COMMANDS = 4096;
+
+	private static final String CLASS_PREFIX = "info/openmods/calc/executable/generated/CompiledExpression";
+
+	private static final String OBJECT_CLASS = "java/lang/Object";
+	private static final String EXECUTABLE_CLASS = "info/openmods/calc/executable/IExecutable";
+	private static final String EXECUTABLE_DESC = "L" + EXECUTABLE_CLASS + ";";
+	private static final String CONSTRUCTOR_DESC = "([" + EXECUTABLE_DESC + ")V";
+	private static final String EXECUTE_DESC = "(Linfo/openmods/calc/Frame;)V";
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_PRIVATE = 0x0002;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int CLASS_VERSION_JAVA_8 = 52;
+
+	private static final AtomicInteger classCounter = new AtomicInteger();
+
+	private static class ConstantPool {
+		private static final int CONSTANT_UTF8 = 1;
+		private static final int CONSTANT_CLASS = 7;
+		private static final int CONSTANT_FIELDREF = 9;
+		private static final int CONSTANT_METHODREF = 10;
+		private static final int CONSTANT_INTERFACE_METHODREF = 11;
+		private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream output = new DataOutputStream(bytes);
+		private final Map<String, Integer> entries = Maps.newHashMap();
+		private int nextIndex = 1;
+		private boolean written;
+
+		private Integer find(String key) {
+			return entries.get(key);
+		}
+
+		private int register(String key) {
+			Preconditions.checkState(!written, "Constant pool already written, can't add %s", key);
+			final int index = nextIndex++;
+			entries.put(key, index);
+			return index;
+		}
+
+		public int utf8(String value) throws IOException {
+			final String key = "U" + value;
+			final Integer existing = find(key);
+			if (existing != null) return existing;
+
+			output.writeByte(CONSTANT_UTF8);
+			output.writeUTF(value);
+			return register(key);
+		}
+
+		public int classRef(String name) throws IOException {
+			final String key = "C" + name;
+			final Integer existing = find(key);
+			if (existing != null) return existing;
+
+			final int nameIndex = utf8(name);
+			output.writeByte(CONSTANT_CLASS);
+			output.writeShort(nameIndex);
+			return register(key);
+		}
+
+		private int nameAndType(String name, String desc) throws IOException {
+			final String key = "N" + name + ":" + desc;
+			final Integer existing = find(key);
+			if (existing != null) return existing;
+
+			final int nameIndex = utf8(name);
+			final int descIndex = utf8(desc);
+			output.writeByte(CONSTANT_NAME_AND_TYPE);
+			output.writeShort(nameIndex);
+			output.writeShort(descIndex);
+			return register(key);
+		}
+
+		private int memberRef(int tag, String owner, String name, String desc) throws IOException {
+			final String key = tag + owner + "." + name + ":" + desc;
+			final Integer existing = find(key);
+			if (existing != null) return existing;
+
+			final int classIndex = classRef(owner);
+			final int nameAndTypeIndex = nameAndType(name, desc);
+			output.writeByte(tag);
+			output.writeShort(classIndex);
+			output.writeShort(nameAndTypeIndex);
+			return register(key);
+		}
+
+		public int fieldRef(String owner, String name, String desc) throws IOException {
+			return memberRef(CONSTANT_FIELDREF, owner, name, desc);
+		}
+
+		public int methodRef(String owner, String name, String desc) throws IOException {
+			return memberRef(CONSTANT_METHODREF, owner, name, desc);
+		}
+
+		public int interfaceMethodRef(String owner, String name, String desc) throws IOException {
+			return memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, desc);
+		}
+
+		public void writeTo(DataOutputStream target) throws IOException {
+			written = true;
+			target.writeShort(nextIndex);
+			output.flush();
+			bytes.writeTo(target);
+		}
+	}
+
+	private static class Code {
+		private static final int ALOAD_0 = 0x2a;
+		private static final int ALOAD_1 = 0x2b;
+		private static final int ICONST_0 = 0x03;
+		private static final int BIPUSH = 0x10;
+		private static final int SIPUSH = 0x11;
+		private static final int AALOAD = 0x32;
+		private static final int RETURN = 0xb1;
+		private static final int GETFIELD = 0xb4;
+		private static final int PUTFIELD = 0xb5;
+		private static final int INVOKESPECIAL = 0xb7;
+		private static final int INVOKEINTERFACE = 0xb9;
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream output = new DataOutputStream(bytes);
+
+		public Code op(int opcode) throws IOException {
+			output.writeByte(opcode);
+			return this;
+		}
+
+		public Code op(int opcode, int index) throws IOException {
+			output.writeByte(opcode);
+			output.writeShort(index);
+			return this;
+		}
+
+		public Code pushInt(int value) throws IOException {
+			if (value <= 5) {
+				output.writeByte(ICONST_0 + value);
+			} else if (value <= Byte.MAX_VALUE) {
+				output.writeByte(BIPUSH);
+				output.writeByte(value);
+			} else {
+				output.writeByte(SIPUSH);
+				output.writeShort(value);
+			}
+			return this;
+		}
+
+		public Code invokeInterface(int index, int argSlots) throws IOException {
+			output.writeByte(INVOKEINTERFACE);
+			output.writeShort(index);
+			output.writeByte(argSlots);
+			output.writeByte(0);
+			return this;
+		}
+
+		public byte[] toByteArray() throws IOException {
+			output.flush();
+			return bytes.toByteArray();
+		}
+	}
+
+	private static class GeneratedClassLoader extends ClassLoader {
+		public GeneratedClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		public Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	private static String fieldName(int index) {
+		return "c" + index;
+	}
+
+	private static void writeMethod(DataOutputStream output, ConstantPool pool, String name, String desc, int maxStack, int maxLocals, byte[] code) throws IOException {
+		output.writeShort(ACC_PUBLIC);
+		output.writeShort(pool.utf8(name));
+		output.writeShort(pool.utf8(desc));
+		output.writeShort(1); // attributes
+
+		output.writeShort(pool.utf8("Code"));
+		output.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+		output.writeShort(maxStack);
+		output.writeShort(maxLocals);
+		output.writeInt(code.length);
+		output.write(code);
+		output.writeShort(0); // exception table
+		output.writeShort(0); // attributes
+	}
+
+	private static byte[] generateClass(String className, int commandCount) throws IOException {
+		final ConstantPool pool = new ConstantPool();
+		final int thisClass = pool.classRef(className);
+		final int superClass = pool.classRef(OBJECT_CLASS);
+		final int executableClass = pool.classRef(EXECUTABLE_CLASS);
+
+		final int objectInit = pool.methodRef(OBJECT_CLASS, "<init>", "()V");
+		final int executeMethod = pool.interfaceMethodRef(EXECUTABLE_CLASS, "execute", EXECUTE_DESC);
+
+		final Code constructor = new Code();
+		constructor.op(Code.ALOAD_0).op(Code.INVOKESPECIAL, objectInit);
+
+		final Code execute = new Code();
+
+		for (int i = 0; i < commandCount; i++) {
+			final int field = pool.fieldRef(className, fieldName(i), EXECUTABLE_DESC);
+			constructor.op(Code.ALOAD_0).op(Code.ALOAD_1).pushInt(i).op(Code.AALOAD).op(Code.PUTFIELD, field);
+			execute.op(Code.ALOAD_0).op(Code.GETFIELD, field).op(Code.ALOAD_1).invokeInterface(executeMethod, 2);
+		}
+
+		constructor.op(Code.RETURN);
+		execute.op(Code.RETURN);
+
+		final byte[] constructorCode = constructor.toByteArray();
+		final byte[] executeCode = execute.toByteArray();
+
+		// all constants must be registered before pool is written
+		final int fieldDescIndex = pool.utf8(EXECUTABLE_DESC);
+		final int[] fieldNameIndices = new int[commandCount];
+		for (int i = 0; i < commandCount; i++)
+			fieldNameIndices[i] = pool.utf8(fieldName(i));
+		pool.utf8("<init>");
+		pool.utf8(CONSTRUCTOR_DESC);
+		pool.utf8("execute");
+		pool.utf8("Code");
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream output = new DataOutputStream(bytes);
+
+		output.writeInt(0xCAFEBABE);
+		output.writeShort(0);
+		output.writeShort(CLASS_VERSION_JAVA_8);
+		pool.writeTo(output);
+
+		output.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+		output.writeShort(thisClass);
+		output.writeShort(superClass);
+		output.writeShort(1);
+		output.writeShort(executableClass);
+
+		output.writeShort(commandCount);
+		for (int i = 0; i < commandCount; i++) {
+			output.writeShort(ACC_PRIVATE | ACC_FINAL);
+			output.writeShort(fieldNameIndices[i]);
+			output.writeShort(fieldDescIndex);
+			output.writeShort(0);
+		}
+
+		output.writeShort(2);
+		writeMethod(output, pool, "<init>", CONSTRUCTOR_DESC, 3, 2, constructorCode);
+		writeMethod(output, pool, "execute", EXECUTE_DESC, 2, 2, executeCode);
+
+		output.writeShort(0); // class attributes
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	public static boolean canCompile(List<? extends IExecutable<?>> commands) {
+		return commands.size() <= MAX_COMMANDS;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static <E> IExecutable<E> compile(List<IExecutable<E>> commands) {
+		if (!canCompile(commands)) throw new IllegalArgumentException("Too many commands to compile: " + commands.size());
+
+		final String className = CLASS_PREFIX + classCounter.incrementAndGet();
+		try {
+			final byte[] classBytes = generateClass(className, commands.size());
+			final GeneratedClassLoader loader = new GeneratedClassLoader(IExecutable.class.getClassLoader());
+			final Class<?> cls = loader.define(className.replace('/', '.'), classBytes);
+			final IExecutable<E>[] args = commands.toArray(new IExecutable[commands.size()]);
+			return (IExecutable<E>)cls.getConstructor(IExecutable[].class).newInstance((Object)args);
+		} catch (Exception e) {
+			throw new IllegalStateException("Failed to generate class for " + commands, e);
+		}
+	}
+}
@@ -3,6 +3,7 @@ package info.openmods.calc.executable;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import info.openmods.calc.Frame;
+import info.openmods.calc.IExecutionListener;
 import java.util.List;
 
 public class ExecutableList<E> implements IExecutable<E> {
@@ -24,8 +25,20 @@ public class ExecutableList<E> implements IExecutable<E> {
 
 	@Override
 	public void execute(Frame<E> frame) {
-		for (IExecutable<E> e : commands)
-			e.execute(frame);
+		final IExecutionListener listener = frame.listener();
+		if (listener != null) {
+			executeInstrumented(frame, listener);
+		} else {
+			for (IExecutable<E> e : commands)
+				e.execute(frame);
+		}
+	}
+
+	private void executeInstrumented(Frame<E> frame, IExecutionListener listener) {
+		for (IExecutable<E> e : commands) {
+			if (e instanceof Operator) Operator.executeInstrumented((Operator<E>)e, frame, listener);
+			else e.execute(frame);
+		}
 	}
 
 	@Override
@@ -0,0 +1,20 @@
+package info.openmods.calc.executable;
+
+import java.util.List;
+
+public enum ExecutionBackend {
+	OBJECT_LIST {
+		@Override
+		public <E> IExecutable<E> wrap(List<IExecutable<E>> commands) {
+			return ExecutableList.wrap(commands);
+		}
+	},
+	BYTECODE {
+		@Override
+		public <E> IExecutable<E> wrap(List<IExecutable<E>> commands) {
+			return BytecodeProgram.wrap(commands);
+		}
+	};
+
+	public abstract <E> IExecutable<E> wrap(List<IExecutable<E>> commands);
+}
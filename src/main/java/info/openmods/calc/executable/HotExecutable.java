@@ -0,0 +1,91 @@
+package info.openmods.calc.executable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import info.openmods.calc.Frame;
+import java.util.List;
+
+public class HotExecutable<E> implements IExecutable<E> {
+
+	private final IExecutable<E> original;
+
+	private final int threshold;
+
+	// races are harmless: at worst expression is compiled twice or executes few more times in interpreter
+	private int executionCount;
+
+	private volatile IExecutable<E> compiled;
+
+	private volatile boolean compilationFailed;
+
+	public HotExecutable(IExecutable<E> original, int threshold) {
+		Preconditions.checkArgument(threshold >= 0, "Invalid threshold: %s", threshold);
+		this.original = original;
+		this.threshold = threshold;
+	}
+
+	public static <E> IExecutable<E> wrap(IExecutable<E> executable, int threshold) {
+		// single commands gain nothing from compilation
+		return (executable instanceof ExecutableList || executable instanceof BytecodeProgram)? new HotExecutable<E>(executable, threshold) : executable;
+	}
+
+	public IExecutable<E> original() {
+		return original;
+	}
+
+	public boolean isCompiled() {
+		return compiled != null;
+	}
+
+	@Override
+	public void execute(Frame<E> frame) {
+		// generated classes skip instrumentation hooks
+		if (frame.listener() != null) {
+			original.execute(frame);
+			return;
+		}
+
+		final IExecutable<E> compiled = this.compiled;
+		if (compiled != null) {
+			compiled.execute(frame);
+		} else {
+			if (!compilationFailed && ++executionCount > threshold) compile();
+			original.execute(frame);
+		}
+	}
+
+	private void compile() {
+		final List<IExecutable<E>> commands = Lists.newArrayList();
+		if (original instanceof ExecutableList) ((ExecutableList<E>)original).deepFlatten(commands);
+		else if (original instanceof BytecodeProgram) commands.addAll(((BytecodeProgram<E>)original).getCommands());
+		else commands.add(original);
+
+		if (!ExecutableClassGenerator.canCompile(commands)) {
+			compilationFailed = true;
+			return;
+		}
+
+		try {
+			this.compiled = ExecutableClassGenerator.compile(commands);
+		} catch (RuntimeException e) {
+			compilationFailed = true;
+		} catch (LinkageError e) {
+			compilationFailed = true;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return original.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return (obj instanceof HotExecutable) && ((HotExecutable<?>)obj).original.equals(this.original);
+	}
+
+	@Override
+	public String toString() {
+		return original.toString();
+	}
+}
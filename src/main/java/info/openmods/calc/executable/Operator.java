@@ -1,5 +1,7 @@
 package info.openmods.calc.executable;
 
+import info.openmods.calc.Frame;
+import info.openmods.calc.IExecutionListener;
 import info.openmods.calc.parsing.ast.IOperator;
 
 public abstract class Operator<E> implements IExecutable<E>, IOperator<Operator<E>> {
@@ -18,4 +20,17 @@ public abstract class Operator<E> implements IExecutable<E>, IOperator<Operator<
 		return id;
 	}
 
+	public boolean isPure() {
+		return false;
+	}
+
+	static <E> void executeInstrumented(Operator<E> operator, Frame<E> frame, IExecutionListener listener) {
+		listener.enter(IExecutionListener.Kind.OPERATOR, operator.id, frame);
+		try {
+			operator.execute(frame);
+		} finally {
+			listener.exit(IExecutionListener.Kind.OPERATOR, operator.id, frame);
+		}
+	}
+
 }
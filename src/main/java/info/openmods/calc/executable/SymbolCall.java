@@ -4,6 +4,7 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import info.openmods.calc.ExecutionErrorException;
 import info.openmods.calc.Frame;
+import info.openmods.calc.IExecutionListener;
 import info.openmods.calc.symbol.ISymbol;
 import info.openmods.calc.utils.OptionalInt;
 
@@ -18,25 +19,52 @@ public class SymbolCall<E> implements IExecutable<E> {
 
 	private final OptionalInt returnCount;
 
+	private final SymbolLookupCache<E> lookupCache;
+
 	public SymbolCall(String id) {
 		this(id, DEFAULT_ARG_COUNT, DEFAULT_RET_COUNT);
 	}
 
 	public SymbolCall(String id, int argumentCount, int returnCount) {
-		this.id = id;
-		this.argCount = OptionalInt.of(argumentCount);
-		this.returnCount = OptionalInt.of(returnCount);
+		this(id, OptionalInt.of(argumentCount), OptionalInt.of(returnCount));
 	}
 
 	public SymbolCall(String id, OptionalInt argumentCount, OptionalInt returnCount) {
 		this.id = id;
 		this.argCount = argumentCount;
 		this.returnCount = returnCount;
+		this.lookupCache = new SymbolLookupCache<E>(id);
+	}
+
+	public String id() {
+		return id;
+	}
+
+	public OptionalInt argCount() {
+		return argCount;
+	}
+
+	public OptionalInt returnCount() {
+		return returnCount;
 	}
 
 	@Override
 	public void execute(Frame<E> frame) {
-		final ISymbol<E> symbol = frame.symbols().get(id);
+		final IExecutionListener listener = frame.listener();
+		if (listener == null) {
+			executeSymbol(frame);
+		} else {
+			listener.enter(IExecutionListener.Kind.SYMBOL_CALL, id, frame);
+			try {
+				executeSymbol(frame);
+			} finally {
+				listener.exit(IExecutionListener.Kind.SYMBOL_CALL, id, frame);
+			}
+		}
+	}
+
+	private void executeSymbol(Frame<E> frame) {
+		final ISymbol<E> symbol = lookupCache.lookup(frame.symbols());
 		Preconditions.checkNotNull(symbol, "Unknown symbol: %s", id);
 
 		try {
@@ -3,19 +3,41 @@ package info.openmods.calc.executable;
 import com.google.common.base.Preconditions;
 import info.openmods.calc.ExecutionErrorException;
 import info.openmods.calc.Frame;
+import info.openmods.calc.IExecutionListener;
 import info.openmods.calc.symbol.ISymbol;
 
 public class SymbolGet<E> implements IExecutable<E> {
 
 	private final String id;
 
+	private final SymbolLookupCache<E> lookupCache;
+
 	public SymbolGet(String id) {
 		this.id = id;
+		this.lookupCache = new SymbolLookupCache<E>(id);
+	}
+
+	public String id() {
+		return id;
 	}
 
 	@Override
 	public void execute(Frame<E> frame) {
-		final ISymbol<E> symbol = frame.symbols().get(id);
+		final IExecutionListener listener = frame.listener();
+		if (listener == null) {
+			executeSymbol(frame);
+		} else {
+			listener.enter(IExecutionListener.Kind.SYMBOL_GET, id, frame);
+			try {
+				executeSymbol(frame);
+			} finally {
+				listener.exit(IExecutionListener.Kind.SYMBOL_GET, id, frame);
+			}
+		}
+	}
+
+	private void executeSymbol(Frame<E> frame) {
+		final ISymbol<E> symbol = lookupCache.lookup(frame.symbols());
 		Preconditions.checkNotNull(symbol, "Unknown symbol: %s", id);
 
 		try {
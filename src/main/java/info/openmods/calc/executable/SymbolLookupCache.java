@@ -0,0 +1,131 @@
+package info.openmods.calc.executable;
+
+import com.google.common.collect.Lists;
+import info.openmods.calc.symbol.ISymbol;
+import info.openmods.calc.symbol.SlotLayout;
+import info.openmods.calc.symbol.SlotSymbolMap;
+import info.openmods.calc.symbol.SymbolCell;
+import info.openmods.calc.symbol.SymbolMap;
+import java.util.List;
+
+// address is reused while scope chain has same shape, so lookups from function bodies don't need hashing
+class SymbolLookupCache<E> {
+
+	private abstract static class Binding<E> {
+		private final SlotLayout[] skippedScopes;
+
+		public Binding(List<SlotLayout> skippedScopes) {
+			this.skippedScopes = skippedScopes.toArray(new SlotLayout[skippedScopes.size()]);
+		}
+
+		public ISymbol<E> lookup(SymbolMap<E> symbols) {
+			SymbolMap<E> current = symbols;
+			for (SlotLayout layout : skippedScopes) {
+				if (!(current instanceof SlotSymbolMap)) return null;
+				final SlotSymbolMap<E> scope = (SlotSymbolMap<E>)current;
+				if (scope.layout() != layout || scope.hasOverflow()) return null;
+				current = scope.parent();
+			}
+
+			return lookupTarget(current);
+		}
+
+		protected abstract ISymbol<E> lookupTarget(SymbolMap<E> symbols);
+	}
+
+	private static class SlotBinding<E> extends Binding<E> {
+		private final SlotLayout layout;
+		private final int index;
+
+		public SlotBinding(List<SlotLayout> skippedScopes, SlotLayout layout, int index) {
+			super(skippedScopes);
+			this.layout = layout;
+			this.index = index;
+		}
+
+		@Override
+		protected ISymbol<E> lookupTarget(SymbolMap<E> symbols) {
+			if (!(symbols instanceof SlotSymbolMap)) return null;
+			final SlotSymbolMap<E> scope = (SlotSymbolMap<E>)symbols;
+			return scope.layout() == layout? scope.getSlot(index) : null;
+		}
+	}
+
+	private static class CellBinding<E> extends Binding<E> {
+		private final SymbolMap<E> symbols;
+		private final int layoutVersion;
+		private final SymbolCell<E> cell;
+
+		public CellBinding(List<SlotLayout> skippedScopes, SymbolMap<E> symbols, int layoutVersion, SymbolCell<E> cell) {
+			super(skippedScopes);
+			this.symbols = symbols;
+			this.layoutVersion = layoutVersion;
+			this.cell = cell;
+		}
+
+		@Override
+		protected ISymbol<E> lookupTarget(SymbolMap<E> symbols) {
+			return (this.symbols == symbols && this.layoutVersion == symbols.layoutVersion())? cell.get() : null;
+		}
+	}
+
+	private final String id;
+
+	// single immutable object, so concurrent executions at worst see stale binding and do full lookup
+	private Binding<E> binding;
+
+	// set when lookups end in different non-slot maps (like let scopes, created on every execution) - binding would be replaced every time
+	private boolean uncacheable;
+
+	public SymbolLookupCache(String id) {
+		this.id = id;
+	}
+
+	public ISymbol<E> lookup(SymbolMap<E> symbols) {
+		if (uncacheable) return symbols.get(id);
+
+		final Binding<E> binding = this.binding;
+		if (binding != null) {
+			final ISymbol<E> symbol = binding.lookup(symbols);
+			if (symbol != null) return symbol;
+		}
+
+		return resolve(symbols);
+	}
+
+	private ISymbol<E> resolve(SymbolMap<E> symbols) {
+		final List<SlotLayout> skippedScopes = Lists.newArrayList();
+
+		SymbolMap<E> current = symbols;
+		while (current instanceof SlotSymbolMap) {
+			final SlotSymbolMap<E> scope = (SlotSymbolMap<E>)current;
+			if (scope.hasOverflow()) return symbols.get(id);
+
+			final SlotLayout layout = scope.layout();
+			final int index = layout.indexOf(id);
+			if (index >= 0) {
+				final ISymbol<E> symbol = scope.getSlot(index);
+				// unfilled slot - let scope decide
+				if (symbol == null) return symbols.get(id);
+				this.binding = new SlotBinding<E>(skippedScopes, layout, index);
+				return symbol;
+			}
+
+			skippedScopes.add(layout);
+			current = scope.parent();
+		}
+
+		final Binding<E> previous = this.binding;
+		if (previous instanceof CellBinding && ((CellBinding<E>)previous).symbols != current) {
+			uncacheable = true;
+			this.binding = null;
+			return symbols.get(id);
+		}
+
+		final SymbolCell<E> cell = current.getCell(id);
+		if (cell == null) return symbols.get(id);
+
+		this.binding = new CellBinding<E>(skippedScopes, current, current.layoutVersion(), cell);
+		return cell.get();
+	}
+}
@@ -34,6 +34,22 @@ public abstract class UnaryOperator<E> extends Operator<E> {
 		}
 	}
 
+	public abstract static class Pure<E> extends Direct<E> {
+
+		public Pure(String id, int precendence) {
+			super(id, precendence);
+		}
+
+		public Pure(String id) {
+			super(id);
+		}
+
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+	}
+
 	@Override
 	public OperatorArity arity() {
 		return OperatorArity.UNARY;
@@ -11,6 +11,10 @@ public class Value<E> implements IExecutable<E> {
 		this.value = value;
 	}
 
+	public E value() {
+		return value;
+	}
+
 	@Override
 	public void execute(Frame<E> frame) {
 		frame.stack().push(value);
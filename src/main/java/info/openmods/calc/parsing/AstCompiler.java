@@ -2,10 +2,11 @@ package info.openmods.calc.parsing;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.PeekingIterator;
-import info.openmods.calc.executable.ExecutableList;
+import info.openmods.calc.executable.ExecutionBackend;
 import info.openmods.calc.executable.IExecutable;
 import info.openmods.calc.parsing.ast.IAstParser;
 import info.openmods.calc.parsing.ast.IParserState;
+import info.openmods.calc.parsing.node.ConstantFolder;
 import info.openmods.calc.parsing.node.IExprNode;
 import info.openmods.calc.parsing.token.Token;
 import java.util.List;
@@ -14,18 +15,33 @@ public class AstCompiler<E> implements ITokenStreamCompiler<E> {
 
 	private final IParserState<IExprNode<E>> initialCompilerState;
 
-	public AstCompiler(IParserState<IExprNode<E>> initialCompilerState) {
+	private final ConstantFolder<E> constantFolder;
+
+	private final ExecutionBackend backend;
+
+	public AstCompiler(IParserState<IExprNode<E>> initialCompilerState, ConstantFolder<E> constantFolder, ExecutionBackend backend) {
 		this.initialCompilerState = initialCompilerState;
+		this.constantFolder = constantFolder;
+		this.backend = backend;
+	}
+
+	public AstCompiler(IParserState<IExprNode<E>> initialCompilerState, ConstantFolder<E> constantFolder) {
+		this(initialCompilerState, constantFolder, ExecutionBackend.OBJECT_LIST);
+	}
+
+	public AstCompiler(IParserState<IExprNode<E>> initialCompilerState) {
+		this(initialCompilerState, null);
 	}
 
 	@Override
 	public IExecutable<E> compile(PeekingIterator<Token> input) {
 		final IAstParser<IExprNode<E>> parser = initialCompilerState.getParser();
-		final IExprNode<E> rootNode = parser.parse(initialCompilerState, input);
+		IExprNode<E> rootNode = parser.parse(initialCompilerState, input);
+		if (constantFolder != null) rootNode = constantFolder.fold(rootNode);
 
 		final List<IExecutable<E>> output = Lists.newArrayList();
 		rootNode.flatten(output);
-		return ExecutableList.wrap(output);
+		return backend.wrap(output);
 	}
 
 }
@@ -11,6 +11,7 @@ import info.openmods.calc.ExprType;
 import info.openmods.calc.Frame;
 import info.openmods.calc.ICompilerMapFactory;
 import info.openmods.calc.executable.ExecutableList;
+import info.openmods.calc.executable.ExecutionBackend;
 import info.openmods.calc.executable.IExecutable;
 import info.openmods.calc.executable.Operator;
 import info.openmods.calc.executable.Value;
@@ -23,6 +24,7 @@ import info.openmods.calc.parsing.ast.ISymbolCallStateTransition;
 import info.openmods.calc.parsing.ast.InfixParser;
 import info.openmods.calc.parsing.ast.MappedParserState;
 import info.openmods.calc.parsing.ast.PrefixParser;
+import info.openmods.calc.parsing.node.ConstantFolder;
 import info.openmods.calc.parsing.node.DefaultExprNodeFactory;
 import info.openmods.calc.parsing.node.DummyNode;
 import info.openmods.calc.parsing.node.IExprNode;
@@ -84,6 +86,18 @@ public class BasicCompilerMapFactory<E> implements ICompilerMapFactory<E, ExprTy
 		}
 	}
 
+	private ExecutionBackend executionBackend = ExecutionBackend.OBJECT_LIST;
+
+	// must be called before create
+	public BasicCompilerMapFactory<E> setExecutionBackend(ExecutionBackend executionBackend) {
+		this.executionBackend = Preconditions.checkNotNull(executionBackend);
+		return this;
+	}
+
+	protected ExecutionBackend getExecutionBackend() {
+		return executionBackend;
+	}
+
 	@Override
 	public Compilers<E, ExprType> create(E nullValue, IValueParser<E> valueParser, IOperatorDictionary<Operator<E>> operators, Environment<E> environment) {
 		final Tokenizer prefixTokenizer = new Tokenizer();
@@ -115,9 +129,11 @@ public class BasicCompilerMapFactory<E> implements ICompilerMapFactory<E, ExprTy
 		configureCompilerStateCommon(prefixCompilerState, environment);
 		configureCompilerStateCommon(infixCompilerState, environment);
 
+		final ConstantFolder<E> constantFolder = createConstantFolder(environment);
+
 		final Map<ExprType, ICompiler<E>> compilers = Maps.newHashMap();
-		compilers.put(ExprType.PREFIX, new WrappedCompiler<E>(prefixTokenizer, createPrefixParser(prefixCompilerState)));
-		compilers.put(ExprType.INFIX, new WrappedCompiler<E>(infixTokenizer, createInfixParser(infixCompilerState)));
+		compilers.put(ExprType.PREFIX, new WrappedCompiler<E>(prefixTokenizer, createPrefixParser(prefixCompilerState, constantFolder)));
+		compilers.put(ExprType.INFIX, new WrappedCompiler<E>(infixTokenizer, createInfixParser(infixCompilerState, constantFolder)));
 		compilers.put(ExprType.POSTFIX, new WrappedCompiler<E>(postfixTokenizer, createPostfixParser(valueParser, operators, environment)));
 		return new Compilers<E, ExprType>(compilers);
 	}
@@ -143,8 +159,8 @@ public class BasicCompilerMapFactory<E> implements ICompilerMapFactory<E, ExprTy
 		return createCompilerState(prefixParser);
 	}
 
-	protected ITokenStreamCompiler<E> createPrefixParser(IParserState<IExprNode<E>> compilerState) {
-		return new AstCompiler<E>(compilerState);
+	protected ITokenStreamCompiler<E> createPrefixParser(IParserState<IExprNode<E>> compilerState, ConstantFolder<E> constantFolder) {
+		return new AstCompiler<E>(compilerState, constantFolder, executionBackend);
 	}
 
 	protected void setupInfixTokenizer(Tokenizer tokenizer) {}
@@ -154,8 +170,8 @@ public class BasicCompilerMapFactory<E> implements ICompilerMapFactory<E, ExprTy
 		return createCompilerState(infixParser);
 	}
 
-	protected ITokenStreamCompiler<E> createInfixParser(IParserState<IExprNode<E>> compilerState) {
-		return new AstCompiler<E>(compilerState);
+	protected ITokenStreamCompiler<E> createInfixParser(IParserState<IExprNode<E>> compilerState, ConstantFolder<E> constantFolder) {
+		return new AstCompiler<E>(compilerState, constantFolder, executionBackend);
 	}
 
 	protected void setupPostfixTokenizer(Tokenizer tokenizer) {
@@ -166,7 +182,7 @@ public class BasicCompilerMapFactory<E> implements ICompilerMapFactory<E, ExprTy
 		final MappedPostfixParser<IExecutable<E>> compiler = new MappedPostfixParser<IExecutable<E>>() {
 			@Override
 			protected IExecutableListBuilder<IExecutable<E>> createListBuilder() {
-				return new DefaultExecutableListBuilder<E>(valueParser, operators);
+				return new DefaultExecutableListBuilder<E>(valueParser, operators, executionBackend);
 			}
 		};
 		final PostfixParser<IExecutable<E>> parser = addSymbolGetState(addConstantEvaluatorState(valueParser, operators, env, compiler));
@@ -211,6 +227,10 @@ public class BasicCompilerMapFactory<E> implements ICompilerMapFactory<E, ExprTy
 		});
 	}
 
+	protected ConstantFolder<E> createConstantFolder(Environment<E> environment) {
+		return new ConstantFolder<E>(environment);
+	}
+
 	protected DefaultExprNodeFactory<E> createExprNodeFactory(IValueParser<E> valueParser) {
 		return new DefaultExprNodeFactory<E>(valueParser);
 	}
@@ -1,7 +1,9 @@
 package info.openmods.calc.parsing;
 
 import com.google.common.collect.Lists;
+import info.openmods.calc.executable.BytecodeProgram;
 import info.openmods.calc.executable.ExecutableList;
+import info.openmods.calc.executable.ExecutionBackend;
 import info.openmods.calc.executable.IExecutable;
 import info.openmods.calc.executable.NoopExecutable;
 import info.openmods.calc.executable.Operator;
@@ -19,12 +21,18 @@ public class DefaultExecutableListBuilder<E> implements IExecutableListBuilder<I
 
 	private final IValueParser<E> valueParser;
 	private final IOperatorDictionary<Operator<E>> operators;
+	private final ExecutionBackend backend;
 
 	private final List<IExecutable<E>> buffer = Lists.newArrayList();
 
-	public DefaultExecutableListBuilder(IValueParser<E> valueParser, IOperatorDictionary<Operator<E>> operators) {
+	public DefaultExecutableListBuilder(IValueParser<E> valueParser, IOperatorDictionary<Operator<E>> operators, ExecutionBackend backend) {
 		this.valueParser = valueParser;
 		this.operators = operators;
+		this.backend = backend;
+	}
+
+	public DefaultExecutableListBuilder(IValueParser<E> valueParser, IOperatorDictionary<Operator<E>> operators) {
+		this(valueParser, operators, ExecutionBackend.OBJECT_LIST);
 	}
 
 	protected void addToBuffer(IExecutable<E> executable) {
@@ -74,6 +82,9 @@ public class DefaultExecutableListBuilder<E> implements IExecutableListBuilder<I
 
 			for (IExecutable<E> e : flattenedList)
 				addToBuffer(e);
+		} else if (executable instanceof BytecodeProgram) {
+			for (IExecutable<E> e : ((BytecodeProgram<E>)executable).getCommands())
+				addToBuffer(e);
 		} else {
 			addToBuffer(executable);
 		}
@@ -81,7 +92,7 @@ public class DefaultExecutableListBuilder<E> implements IExecutableListBuilder<I
 
 	@Override
 	public IExecutable<E> build() {
-		return ExecutableList.wrap(buffer);
+		return backend.wrap(buffer);
 	}
 
 }
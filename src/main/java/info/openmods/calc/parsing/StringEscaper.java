@@ -54,7 +54,7 @@ public class StringEscaper {
 		return builder.toString();
 	}
 
-	public static Pair<String, Integer> unescapeDelimitedString(String input, int start) {
+	public static Pair<String, Integer> unescapeDelimitedString(CharSequence input, int start) {
 		final StringBuilder result = new StringBuilder();
 
 		int pos = start;
@@ -95,8 +95,8 @@ public class StringEscaper {
 		return Pair.of(result.toString(), pos);
 	}
 
-	private static char[] parseHexChar(String input, int pos, int digits) {
-		final String code = input.substring(pos, pos + digits);
+	private static char[] parseHexChar(CharSequence input, int pos, int digits) {
+		final String code = input.subSequence(pos, pos + digits).toString();
 		final int intCode = Integer.parseInt(code, 16);
 		return Character.toChars(intCode);
 	}
@@ -0,0 +1,105 @@
+package info.openmods.calc.parsing.node;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import info.openmods.calc.Environment;
+import info.openmods.calc.Frame;
+import info.openmods.calc.symbol.ISymbol;
+import info.openmods.calc.utils.Stack;
+import java.util.List;
+
+// only exact basic node classes are inspected - others may introduce scopes or need unevaluated args
+public class ConstantFolder<E> {
+
+	private final Environment<E> env;
+
+	public ConstantFolder(Environment<E> env) {
+		this.env = env;
+	}
+
+	public IExprNode<E> fold(IExprNode<E> node) {
+		final Class<?> nodeCls = node.getClass();
+
+		if (nodeCls == BinaryOpNode.class) return foldBinaryOp((BinaryOpNode<E>)node);
+		if (nodeCls == UnaryOpNode.class) return foldUnaryOp((UnaryOpNode<E>)node);
+		if (nodeCls == SymbolCallNode.class) return foldSymbolCall((SymbolCallNode<E>)node);
+		if (nodeCls == SymbolGetNode.class) return foldSymbolGet((SymbolGetNode<E>)node);
+		if (nodeCls == BracketNode.class) return foldBracket(node, new BracketNode<E>(fold(getOnlyChild(node))));
+		if (nodeCls == DummyNode.class) return foldBracket(node, new DummyNode<E>(fold(getOnlyChild(node))));
+
+		return foldCustomNode(node);
+	}
+
+	protected IExprNode<E> foldCustomNode(IExprNode<E> node) {
+		return node;
+	}
+
+	protected static <E> boolean isConstant(IExprNode<E> node) {
+		return node.getClass() == ValueNode.class;
+	}
+
+	protected List<IExprNode<E>> foldAll(Iterable<IExprNode<E>> nodes) {
+		final List<IExprNode<E>> result = Lists.newArrayList();
+		for (IExprNode<E> node : nodes)
+			result.add(fold(node));
+		return result;
+	}
+
+	protected boolean canFoldCall(String symbol, List<IExprNode<E>> foldedArgs) {
+		for (IExprNode<E> arg : foldedArgs)
+			if (!isConstant(arg)) return false;
+
+		return isPureSymbol(symbol);
+	}
+
+	private static <E> IExprNode<E> getOnlyChild(IExprNode<E> node) {
+		return Iterables.getOnlyElement(node.getChildren());
+	}
+
+	private boolean isPureSymbol(String id) {
+		final ISymbol<E> symbol = env.topFrame().symbols().get(id);
+		return symbol != null && symbol.isPure();
+	}
+
+	private IExprNode<E> foldBinaryOp(BinaryOpNode<E> node) {
+		final IExprNode<E> left = fold(node.left);
+		final IExprNode<E> right = fold(node.right);
+		final BinaryOpNode<E> result = (left == node.left && right == node.right)? node : new BinaryOpNode<E>(node.operator, left, right);
+		return (node.operator.isPure() && isConstant(left) && isConstant(right))? evaluate(result) : result;
+	}
+
+	private IExprNode<E> foldUnaryOp(UnaryOpNode<E> node) {
+		final IExprNode<E> arg = fold(node.argument);
+		final UnaryOpNode<E> result = (arg == node.argument)? node : new UnaryOpNode<E>(node.operator, arg);
+		return (node.operator.isPure() && isConstant(arg))? evaluate(result) : result;
+	}
+
+	private IExprNode<E> foldSymbolCall(SymbolCallNode<E> node) {
+		final List<IExprNode<E>> args = foldAll(node.getChildren());
+		final SymbolCallNode<E> result = new SymbolCallNode<E>(node.symbol(), args);
+		return canFoldCall(node.symbol(), args)? evaluate(result) : result;
+	}
+
+	private IExprNode<E> foldSymbolGet(SymbolGetNode<E> node) {
+		return isPureSymbol(node.symbol())? evaluate(node) : node;
+	}
+
+	private IExprNode<E> foldBracket(IExprNode<E> node, IExprNode<E> foldedNode) {
+		final IExprNode<E> foldedChild = getOnlyChild(foldedNode);
+		// brackets are transparent during flattening, so they are not needed around single value
+		return isConstant(foldedChild)? foldedChild : foldedNode;
+	}
+
+	protected IExprNode<E> evaluate(IExprNode<E> node) {
+		final Frame<E> resultFrame;
+		try {
+			resultFrame = env.executeIsolated(ExprUtils.flattenNode(node));
+		} catch (Exception e) {
+			// errors are left for runtime, to be reported at usual point
+			return node;
+		}
+
+		final Stack<E> results = resultFrame.stack();
+		return results.size() == 1? new ValueNode<E>(results.peek(0)) : node;
+	}
+}
@@ -0,0 +1,94 @@
+package info.openmods.calc.parsing.token;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+public class PrefixTrie {
+
+	private static final char[] NO_KEYS = new char[0];
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private static class Node {
+		// sorted, for binary search
+		private final char[] keys;
+
+		private final Node[] children;
+
+		private final String terminal;
+
+		public Node(char[] keys, Node[] children, String terminal) {
+			this.keys = keys;
+			this.children = children;
+			this.terminal = terminal;
+		}
+
+		public Node child(char ch) {
+			final int index = Arrays.binarySearch(keys, ch);
+			return index >= 0? children[index] : null;
+		}
+	}
+
+	public static final PrefixTrie EMPTY = new PrefixTrie(new Node(NO_KEYS, NO_CHILDREN, null));
+
+	private final Node root;
+
+	private PrefixTrie(Node root) {
+		this.root = root;
+	}
+
+	public static PrefixTrie create(Set<String> entries) {
+		if (entries.isEmpty()) return EMPTY;
+		final List<String> sorted = ImmutableSortedSet.copyOf(entries).asList();
+		for (String entry : sorted)
+			Preconditions.checkArgument(!entry.isEmpty(), "Empty entry in %s", entries);
+
+		return new PrefixTrie(createNode(sorted, 0, sorted.size(), 0));
+	}
+
+	// entries[start, end) are sorted and share first 'depth' characters
+	private static Node createNode(List<String> entries, int start, int end, int depth) {
+		String terminal = null;
+		if (entries.get(start).length() == depth) terminal = entries.get(start++);
+
+		int childCount = 0;
+		for (int i = start; i < end; i++)
+			if (i == start || entries.get(i).charAt(depth) != entries.get(i - 1).charAt(depth)) childCount++;
+
+		final char[] keys = childCount > 0? new char[childCount] : NO_KEYS;
+		final Node[] children = childCount > 0? new Node[childCount] : NO_CHILDREN;
+
+		int child = 0;
+		int groupStart = start;
+		while (groupStart < end) {
+			final char key = entries.get(groupStart).charAt(depth);
+			int groupEnd = groupStart + 1;
+			while (groupEnd < end && entries.get(groupEnd).charAt(depth) == key)
+				groupEnd++;
+
+			keys[child] = key;
+			children[child] = createNode(entries, groupStart, groupEnd, depth + 1);
+			child++;
+			groupStart = groupEnd;
+		}
+
+		return new Node(keys, children, terminal);
+	}
+
+	public String findLongestPrefix(CharSequence input, int start) {
+		final int end = input.length();
+		Node node = root;
+		String result = null;
+
+		for (int i = start; i < end; i++) {
+			node = node.child(input.charAt(i));
+			if (node == null) break;
+			if (node.terminal != null) result = node.terminal;
+		}
+
+		return result;
+	}
+}
@@ -1,103 +1,115 @@
 package info.openmods.calc.parsing.token;
 
 import com.google.common.collect.AbstractIterator;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multiset;
 import com.google.common.collect.PeekingIterator;
-import com.google.common.collect.TreeMultiset;
-import com.google.common.primitives.Ints;
 import info.openmods.calc.parsing.StringEscaper;
-import java.util.Comparator;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.apache.commons.lang3.tuple.Pair;
 
 public class TokenIterator extends AbstractIterator<Token> implements PeekingIterator<Token> {
 
-	private static final Pattern DEC_NUMBER = Pattern.compile("^([0-9](?:_*[0-9]+)*(?:\\.[0-9](?:_*[0-9]+)*)?)");
+	private static final int NO_MATCH = -1;
 
-	private static final Pattern HEX_NUMBER = Pattern.compile("^0x([0-9A-Fa-f](?:_*[0-9A-Fa-f]+)*(?:\\.[0-9A-Fa-f](?:_*[0-9A-Fa-f]+)*)?)");
-
-	private static final Pattern OCT_NUMBER = Pattern.compile("^0((?:_*[0-7]+)+(?:\\.[0-7](?:_*[0-7]+)*)?)");
-
-	private static final Pattern BIN_NUMBER = Pattern.compile("^0b([01](?:_*[01]+)*(?:\\.[01](?:_*[01]+)*)?)");
-
-	private static final Pattern QUOTED_NUMBER = Pattern.compile("^([0-9]+#[0-9A-Za-z'\"](?:_*[0-9A-Za-z'\"]+)*(?:\\.[0-9A-Za-z'\"](?:_*[0-9A-Za-z'\"]+)*)?)");
+	private interface CharClass {
+		public boolean matches(char ch);
+	}
 
-	private static final Pattern SYMBOL = Pattern.compile("^([_A-Za-z][_0-9A-Za-z]*)");
+	private static final CharClass DEC_DIGIT = new CharClass() {
+		@Override
+		public boolean matches(char ch) {
+			return ch >= '0' && ch <= '9';
+		}
+	};
 
-	private static final Pattern SYMBOL_ARGS = Pattern.compile("^(\\$[0-9]*,?[0-9]*)");
+	private static final CharClass HEX_DIGIT = new CharClass() {
+		@Override
+		public boolean matches(char ch) {
+			return (ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'F') || (ch >= 'a' && ch <= 'f');
+		}
+	};
 
-	private static final Set<String> STRING_STARTERS = ImmutableSet.of("\"", "'");
+	private static final CharClass OCT_DIGIT = new CharClass() {
+		@Override
+		public boolean matches(char ch) {
+			return ch >= '0' && ch <= '7';
+		}
+	};
 
-	private static final Comparator<String> ORDER_BY_LENGTH = new Comparator<String>() {
+	private static final CharClass BIN_DIGIT = new CharClass() {
 		@Override
-		public int compare(String o1, String o2) {
-			int sizes = Ints.compare(o2.length(), o1.length());
-			if (sizes != 0) return sizes;
+		public boolean matches(char ch) {
+			return ch == '0' || ch == '1';
+		}
+	};
 
-			return o1.compareTo(o2);
+	private static final CharClass QUOTED_DIGIT = new CharClass() {
+		@Override
+		public boolean matches(char ch) {
+			return (ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z') || ch == '\'' || ch == '"';
 		}
 	};
 
-	private final Multiset<String> operators = TreeMultiset.create(ORDER_BY_LENGTH);
+	private final PrefixTrie operators;
+
+	private final PrefixTrie modifiers;
 
-	private final Multiset<String> modifiers = TreeMultiset.create(ORDER_BY_LENGTH);
+	private final CharSequence input;
 
-	private String input;
+	private final int end;
 
-	public TokenIterator(String input, Set<String> operators, Set<String> modifiers) {
+	private int pos;
+
+	public TokenIterator(CharSequence input, PrefixTrie operators, PrefixTrie modifiers) {
 		this.input = input;
-		this.modifiers.addAll(modifiers);
-		this.operators.addAll(operators);
+		this.end = input.length();
+		this.modifiers = modifiers;
+		this.operators = operators;
+	}
+
+	public TokenIterator(CharSequence input, Set<String> operators, Set<String> modifiers) {
+		this(input, PrefixTrie.create(operators), PrefixTrie.create(modifiers));
 	}
 
 	@Override
 	protected Token computeNext() {
 		try {
-			if (input.isEmpty()) return endOfData();
 			skipWhitespace();
-			if (input.isEmpty()) return endOfData();
+			if (pos >= end) return endOfData();
 
 			{
-				final String nextCh = input.substring(0, 1);
-				if (STRING_STARTERS.contains(nextCh)) return consumeStringLiteral();
-				if (TokenUtils.isOpeningBracket(nextCh)) return rawToken(1, TokenType.LEFT_BRACKET);
-				if (TokenUtils.isClosingBracket(nextCh)) return rawToken(1, TokenType.RIGHT_BRACKET);
-				if (nextCh.equals(",")) return rawToken(1, TokenType.SEPARATOR);
+				final char nextCh = input.charAt(pos);
+				if (nextCh == '"' || nextCh == '\'') return consumeStringLiteral();
+				if (nextCh == '(' || nextCh == '[' || nextCh == '{') return rawToken(1, TokenType.LEFT_BRACKET);
+				if (nextCh == ')' || nextCh == ']' || nextCh == '}') return rawToken(1, TokenType.RIGHT_BRACKET);
+				if (nextCh == ',') return rawToken(1, TokenType.SEPARATOR);
 			}
 
-			final Matcher symbolMatcher = SYMBOL.matcher(input);
+			final int symbolEnd = scanSymbol(pos);
 
-			if (symbolMatcher.find()) {
-				final String symbol = symbolMatcher.group(1);
+			if (symbolEnd != NO_MATCH) {
+				final int symbolLength = symbolEnd - pos;
 				{
 					final String modifier = findPrefix(this.modifiers);
-					if (modifier != null && modifier.length() >= symbol.length()) {
-						discardInput(modifier.length());
+					if (modifier != null && modifier.length() >= symbolLength) {
+						pos += modifier.length();
 						return new Token(TokenType.MODIFIER, modifier);
 					}
 				}
 				{
 					final String operator = findPrefix(this.operators);
-					if (operator != null && operator.length() >= symbol.length()) {
-						discardInput(operator.length());
+					if (operator != null && operator.length() >= symbolLength) {
+						pos += operator.length();
 						return new Token(TokenType.OPERATOR, operator);
 					}
 				}
 
 				{
-					discardInput(symbolMatcher.end());
+					final int argsEnd = scanSymbolArgs(symbolEnd);
 
-					final Matcher argMatcher = SYMBOL_ARGS.matcher(input);
-
-					if (argMatcher.find()) {
-						discardInput(argMatcher.end());
-						final String symbolArgs = argMatcher.group(1);
-						return new Token(TokenType.SYMBOL_WITH_ARGS, symbol + symbolArgs);
+					if (argsEnd != NO_MATCH) {
+						return rawToken(argsEnd - pos, TokenType.SYMBOL_WITH_ARGS);
 					} else {
-						return new Token(TokenType.SYMBOL, symbol);
+						return rawToken(symbolLength, TokenType.SYMBOL);
 					}
 				}
 			}
@@ -105,102 +117,174 @@ public class TokenIterator extends AbstractIterator<Token> implements PeekingIte
 			{
 				final String modifier = findPrefix(this.modifiers);
 				if (modifier != null) {
-					discardInput(modifier.length());
+					pos += modifier.length();
 					return new Token(TokenType.MODIFIER, modifier);
 				}
 			}
 			{
 				final String operator = findPrefix(this.operators);
 				if (operator != null) {
-					discardInput(operator.length());
+					pos += operator.length();
 					return new Token(TokenType.OPERATOR, operator);
 				}
 			}
 
-			Token result;
+			int numberEnd;
 
-			result = tryPattern(QUOTED_NUMBER, TokenType.QUOTED_NUMBER);
-			if (result != null) return result;
+			numberEnd = scanQuotedNumber(pos);
+			if (numberEnd != NO_MATCH) return rawToken(numberEnd - pos, TokenType.QUOTED_NUMBER);
 
-			result = tryPattern(HEX_NUMBER, TokenType.HEX_NUMBER);
-			if (result != null) return result;
+			numberEnd = scanPrefixedNumber(pos, 'x', HEX_DIGIT);
+			if (numberEnd != NO_MATCH) return prefixedToken(2, numberEnd, TokenType.HEX_NUMBER);
 
-			result = tryPattern(OCT_NUMBER, TokenType.OCT_NUMBER);
-			if (result != null) return result;
+			numberEnd = scanOctNumber(pos);
+			if (numberEnd != NO_MATCH) return prefixedToken(1, numberEnd, TokenType.OCT_NUMBER);
 
-			result = tryPattern(BIN_NUMBER, TokenType.BIN_NUMBER);
-			if (result != null) return result;
+			numberEnd = scanPrefixedNumber(pos, 'b', BIN_DIGIT);
+			if (numberEnd != NO_MATCH) return prefixedToken(2, numberEnd, TokenType.BIN_NUMBER);
 
-			result = tryPattern(DEC_NUMBER, TokenType.DEC_NUMBER);
-			if (result != null) return result;
+			numberEnd = scanNumber(pos, DEC_DIGIT);
+			if (numberEnd != NO_MATCH) return rawToken(numberEnd - pos, TokenType.DEC_NUMBER);
 
-			throw new IllegalArgumentException("Unknown token type: '" + input + "'");
+			throw new IllegalArgumentException("Unknown token type: '" + remainingInput() + "'");
 
 		} catch (Exception e) {
-			throw new IllegalArgumentException("Failed to parse: '" + input + "'", e);
+			throw new IllegalArgumentException("Failed to parse: '" + remainingInput() + "'", e);
 		}
 	}
 
+	private String remainingInput() {
+		return input.subSequence(pos, end).toString();
+	}
+
 	private Token consumeStringLiteral() {
-		final Pair<String, Integer> result = StringEscaper.unescapeDelimitedString(input, 0);
-		discardInput(result.getRight());
+		final Pair<String, Integer> result = StringEscaper.unescapeDelimitedString(input, pos);
+		pos = result.getRight();
 		return new Token(TokenType.STRING, result.getLeft());
 	}
 
-	private void discardInput(int length) {
-		input = input.substring(length);
+	private Token rawToken(int charCount, TokenType type) {
+		final String value = input.subSequence(pos, pos + charCount).toString();
+		pos += charCount;
+		return new Token(type, value);
 	}
 
-	private Token rawToken(int charCount, TokenType type) {
-		final String value = input.substring(0, charCount);
-		discardInput(charCount);
+	private Token prefixedToken(int prefixLength, int tokenEnd, TokenType type) {
+		final String value = input.subSequence(pos + prefixLength, tokenEnd).toString();
+		pos = tokenEnd;
 		return new Token(type, value);
 	}
 
-	private String tryPattern(Pattern pattern) {
-		final Matcher matcher = pattern.matcher(input);
-		if (matcher.find()) {
-			final String matched = matcher.group(1);
-			discardInput(matcher.end());
-			return matched;
+	private boolean isAt(int index, char ch) {
+		return index < end && input.charAt(index) == ch;
+	}
+
+	private boolean isAt(int index, CharClass charClass) {
+		return index < end && charClass.matches(input.charAt(index));
+	}
+
+	private int skip(int index, CharClass charClass) {
+		while (isAt(index, charClass))
+			index++;
+		return index;
+	}
+
+	private int skipUnderscores(int index) {
+		while (isAt(index, '_'))
+			index++;
+		return index;
+	}
+
+	// [_A-Za-z][_0-9A-Za-z]*
+	private int scanSymbol(int start) {
+		if (start >= end) return NO_MATCH;
+		final char first = input.charAt(start);
+		if (!(first == '_' || (first >= 'A' && first <= 'Z') || (first >= 'a' && first <= 'z'))) return NO_MATCH;
+
+		int index = start + 1;
+		while (index < end) {
+			final char ch = input.charAt(index);
+			if (ch == '_' || (ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z')) index++;
+			else break;
 		}
 
-		return null;
+		return index;
 	}
 
-	private Token tryPattern(Pattern pattern, TokenType type) {
-		final String matched = tryPattern(pattern);
-		return matched != null? new Token(type, matched) : null;
+	// \$[0-9]*,?[0-9]*
+	private int scanSymbolArgs(int start) {
+		if (!isAt(start, '$')) return NO_MATCH;
+		int index = skip(start + 1, DEC_DIGIT);
+		if (isAt(index, ',')) index = skip(index + 1, DEC_DIGIT);
+		return index;
 	}
 
-	private String findPrefix(Multiset<String> prefixes) {
-		for (String operator : prefixes.elementSet())
-			if (input.startsWith(operator)) return operator;
+	// D(?:_*D+)*
+	private int scanDigitGroups(int start, CharClass digit) {
+		if (!isAt(start, digit)) return NO_MATCH;
+		int index = skip(start + 1, digit);
 
-		return null;
+		while (true) {
+			final int groupStart = skipUnderscores(index);
+			if (!isAt(groupStart, digit)) return index;
+			index = skip(groupStart + 1, digit);
+		}
 	}
 
-	private void skipWhitespace() {
-		int i = 0;
-		while (i < input.length() && Character.isWhitespace(input.charAt(i)))
-			i++;
+	// (?:\.D(?:_*D+)*)?
+	private int scanOptionalFraction(int start, CharClass digit) {
+		if (isAt(start, '.')) {
+			final int fractionEnd = scanDigitGroups(start + 1, digit);
+			if (fractionEnd != NO_MATCH) return fractionEnd;
+		}
 
-		if (i > 0) discardInput(i);
+		return start;
 	}
 
-	public void addModifier(String modifier) {
-		modifiers.add(modifier);
+	// D(?:_*D+)*(?:\.D(?:_*D+)*)?
+	private int scanNumber(int start, CharClass digit) {
+		final int integerEnd = scanDigitGroups(start, digit);
+		if (integerEnd == NO_MATCH) return NO_MATCH;
+		return scanOptionalFraction(integerEnd, digit);
 	}
 
-	public void removeModifier(String modifier) {
-		modifiers.add(modifier);
+	// 0<prefix><number>
+	private int scanPrefixedNumber(int start, char prefix, CharClass digit) {
+		if (!isAt(start, '0') || !isAt(start + 1, prefix)) return NO_MATCH;
+		return scanNumber(start + 2, digit);
 	}
 
-	public void addOperator(String operator) {
-		operators.add(operator);
+	// 0(?:_*[0-7]+)+(?:\.[0-7](?:_*[0-7]+)*)?
+	private int scanOctNumber(int start) {
+		if (!isAt(start, '0')) return NO_MATCH;
+
+		int index = start + 1;
+		boolean hasDigits = false;
+		while (true) {
+			final int groupStart = skipUnderscores(index);
+			if (!isAt(groupStart, OCT_DIGIT)) break;
+			index = skip(groupStart + 1, OCT_DIGIT);
+			hasDigits = true;
+		}
+
+		if (!hasDigits) return NO_MATCH;
+		return scanOptionalFraction(index, OCT_DIGIT);
 	}
 
-	public void removeOperator(String operator) {
-		operators.add(operator);
+	// [0-9]+#Q(?:_*Q+)*(?:\.Q(?:_*Q+)*)?
+	private int scanQuotedNumber(int start) {
+		if (!isAt(start, DEC_DIGIT)) return NO_MATCH;
+		final int baseEnd = skip(start + 1, DEC_DIGIT);
+		if (!isAt(baseEnd, '#')) return NO_MATCH;
+		return scanNumber(baseEnd + 1, QUOTED_DIGIT);
+	}
+
+	private String findPrefix(PrefixTrie prefixes) {
+		return prefixes.findLongestPrefix(input, pos);
+	}
+
+	private void skipWhitespace() {
+		while (pos < end && Character.isWhitespace(input.charAt(pos)))
+			pos++;
 	}
-}
\ No newline at end of file
+}
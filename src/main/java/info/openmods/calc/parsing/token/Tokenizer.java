@@ -9,15 +9,32 @@ public class Tokenizer {
 
 	final Set<String> modifiers = Sets.newHashSet();
 
+	// built on first use after modification, shared read-only by all iterators
+	private PrefixTrie operatorTrie;
+
+	private PrefixTrie modifierTrie;
+
 	public void addOperator(String operator) {
-		operators.add(operator);
+		if (operators.add(operator)) operatorTrie = null;
 	}
 
 	public void addModifier(String special) {
-		modifiers.add(special);
+		if (modifiers.add(special)) modifierTrie = null;
 	}
 
-	public TokenIterator tokenize(String input) {
-		return new TokenIterator(input, operators, modifiers);
+	public TokenIterator tokenize(CharSequence input) {
+		PrefixTrie operatorTrie = this.operatorTrie;
+		if (operatorTrie == null) {
+			operatorTrie = PrefixTrie.create(operators);
+			this.operatorTrie = operatorTrie;
+		}
+
+		PrefixTrie modifierTrie = this.modifierTrie;
+		if (modifierTrie == null) {
+			modifierTrie = PrefixTrie.create(modifiers);
+			this.modifierTrie = modifierTrie;
+		}
+
+		return new TokenIterator(input, operatorTrie, modifierTrie);
 	}
 }
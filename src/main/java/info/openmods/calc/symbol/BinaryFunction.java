@@ -25,6 +25,13 @@ public abstract class BinaryFunction<E> extends FixedCallable<E> {
 		}
 	}
 
+	public abstract static class Pure<E> extends Direct<E> {
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+	}
+
 	public abstract static class WithFrame<E> extends BinaryFunction<E> {
 
 		protected abstract E call(Frame<E> frame, E left, E right);
@@ -1,29 +1,40 @@
 package info.openmods.calc.symbol;
 
+import com.google.common.collect.Lists;
 import info.openmods.calc.Frame;
-import info.openmods.calc.FrameFactory;
 import info.openmods.calc.executable.IExecutable;
 import info.openmods.calc.utils.Stack;
+import java.util.List;
 
 public class CompiledFunction<E> extends FixedCallable<E> {
 
 	private final IExecutable<E> body;
 	private final Frame<E> scope;
+	private final SlotLayout argLayout;
 
 	public CompiledFunction(int argCount, int resultCount, IExecutable<E> body, Frame<E> scope) {
 		super(argCount, resultCount);
 		this.body = body;
 		this.scope = scope;
+		this.argLayout = createArgLayout(argCount);
+	}
+
+	private static SlotLayout createArgLayout(int argCount) {
+		final List<String> names = Lists.newArrayList();
+		for (int i = 0; i < argCount; i++)
+			names.add("_" + (i + 1));
+		return SlotLayout.create(names);
 	}
 
 	@Override
 	public void call(Frame<E> frame) {
-		final Frame<E> newFrame = FrameFactory.newLocalFrameWithSubstack(scope, argCount);
+		final SlotSymbolMap<E> argSymbols = new SlotSymbolMap<E>(scope.symbols(), argLayout);
+		final Frame<E> newFrame = new Frame<E>(argSymbols, frame.stack().substack(argCount), frame.listener());
 
 		final Stack<E> resultStack = newFrame.stack();
 		for (int i = 0; i < argCount; i++) {
 			E arg = resultStack.pop();
-			newFrame.symbols().put("_" + (i + 1), arg);
+			argSymbols.setSlotValue(i, arg);
 		}
 
 		body.execute(newFrame);
@@ -47,6 +47,17 @@ public class GenericFunctions {
 		protected abstract E accumulate(E result, E value);
 	}
 
+	public abstract static class PureAccumulatorFunction<E> extends DirectAccumulatorFunction<E> {
+		public PureAccumulatorFunction(E nullValue) {
+			super(nullValue);
+		}
+
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+	}
+
 	public abstract static class StackBasedAccumulatorFunction<E> implements ICallable<E> {
 		private final E nullValue;
 
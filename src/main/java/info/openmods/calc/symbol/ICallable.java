@@ -6,4 +6,9 @@ import info.openmods.calc.utils.OptionalInt;
 @FunctionalInterface
 public interface ICallable<E> {
 	public void call(Frame<E> frame, OptionalInt argumentsCount, OptionalInt returnsCount);
+
+	// calls of pure callables with constant args can be evaluated during compilation
+	public default boolean isPure() {
+		return false;
+	}
 }
\ No newline at end of file
@@ -5,7 +5,9 @@ import java.util.Map;
 
 public class LocalSymbolMap<E> extends NestedSymbolMap<E> {
 
-	private final Map<String, ISymbol<E>> locals = Maps.newHashMap();
+	private final Map<String, SymbolCell<E>> locals = Maps.newHashMap();
+
+	private int layoutVersion;
 
 	public LocalSymbolMap(SymbolMap<E> parent) {
 		super(parent);
@@ -13,13 +15,31 @@ public class LocalSymbolMap<E> extends NestedSymbolMap<E> {
 
 	@Override
 	public void put(String name, ISymbol<E> symbol) {
-		locals.put(name, symbol);
+		final SymbolCell<E> cell = locals.get(name);
+		if (cell != null) {
+			cell.set(symbol);
+		} else {
+			locals.put(name, new SymbolCell<E>(symbol));
+			layoutVersion++;
+		}
 	}
 
 	@Override
 	public ISymbol<E> get(String name) {
-		final ISymbol<E> symbol = locals.get(name);
-		return symbol != null? symbol : super.get(name);
+		final SymbolCell<E> cell = locals.get(name);
+		return cell != null? cell.get() : super.get(name);
+	}
+
+	@Override
+	public SymbolCell<E> getCell(String name) {
+		final SymbolCell<E> cell = locals.get(name);
+		return cell != null? cell : parent.getCell(name);
+	}
+
+	@Override
+	public int layoutVersion() {
+		// both parts only grow, so sum changes on every addition
+		return layoutVersion + parent.layoutVersion();
 	}
 
 }
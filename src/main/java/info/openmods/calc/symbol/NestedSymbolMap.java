@@ -23,6 +23,11 @@ public abstract class NestedSymbolMap<E> extends SymbolMap<E> {
 		return parent.createSymbol(value);
 	}
 
+	@Override
+	protected ISymbol<E> createConstant(E value) {
+		return parent.createConstant(value);
+	}
+
 	@Override
 	public ISymbol<E> get(String name) {
 		return parent.get(name);
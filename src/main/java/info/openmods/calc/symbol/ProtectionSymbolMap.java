@@ -11,4 +11,14 @@ public class ProtectionSymbolMap<E> extends NestedSymbolMap<E> {
 		throw new UnsupportedOperationException("Tried to set symbol " + name + " on read-only frame");
 	}
 
+	@Override
+	public SymbolCell<E> getCell(String name) {
+		return parent.getCell(name);
+	}
+
+	@Override
+	public int layoutVersion() {
+		return parent.layoutVersion();
+	}
+
 }
@@ -0,0 +1,75 @@
+package info.openmods.calc.symbol;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public class SlotLayout {
+
+	private static final int LINEAR_SEARCH_LIMIT = 8;
+
+	private final String[] names;
+
+	private final ImmutableMap<String, Integer> indices;
+
+	private SlotLayout(String[] names) {
+		this.names = names;
+
+		if (names.length > LINEAR_SEARCH_LIMIT) {
+			final ImmutableMap.Builder<String, Integer> indices = ImmutableMap.builder();
+			for (int i = 0; i < names.length; i++)
+				indices.put(names[i], i);
+			this.indices = indices.build();
+		} else {
+			this.indices = null;
+		}
+	}
+
+	public static SlotLayout create(Collection<String> names) {
+		final Set<String> uniqueNames = Sets.newLinkedHashSet(names);
+		return new SlotLayout(uniqueNames.toArray(new String[uniqueNames.size()]));
+	}
+
+	public static SlotLayout create(String... names) {
+		return create(ImmutableList.copyOf(names));
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public String name(int index) {
+		return names[index];
+	}
+
+	public List<String> names() {
+		return ImmutableList.copyOf(names);
+	}
+
+	public boolean hasNames(List<String> names) {
+		if (names.size() != this.names.length) return false;
+		for (int i = 0; i < this.names.length; i++)
+			if (!this.names[i].equals(names.get(i))) return false;
+		return true;
+	}
+
+	public int indexOf(String name) {
+		if (indices != null) {
+			final Integer index = indices.get(name);
+			return index != null? index : -1;
+		}
+
+		for (int i = 0; i < names.length; i++)
+			if (names[i].equals(name)) return i;
+
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return "SlotLayout" + names();
+	}
+}
@@ -0,0 +1,70 @@
+package info.openmods.calc.symbol;
+
+import com.google.common.collect.Maps;
+import java.util.Map;
+
+public class SlotSymbolMap<E> extends NestedSymbolMap<E> {
+
+	private final SlotLayout layout;
+
+	private final ISymbol<E>[] slots;
+
+	private Map<String, ISymbol<E>> overflow;
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public SlotSymbolMap(SymbolMap<E> parent, SlotLayout layout) {
+		super(parent);
+		this.layout = layout;
+		this.slots = new ISymbol[layout.size()];
+	}
+
+	public SlotLayout layout() {
+		return layout;
+	}
+
+	public SymbolMap<E> parent() {
+		return parent;
+	}
+
+	public boolean hasOverflow() {
+		return overflow != null;
+	}
+
+	public ISymbol<E> getSlot(int index) {
+		return slots[index];
+	}
+
+	public void setSlot(int index, ISymbol<E> symbol) {
+		slots[index] = symbol;
+	}
+
+	public void setSlotValue(int index, E value) {
+		slots[index] = createSymbol(value);
+	}
+
+	@Override
+	public void put(String name, ISymbol<E> symbol) {
+		final int index = layout.indexOf(name);
+		if (index >= 0) {
+			slots[index] = symbol;
+		} else {
+			if (overflow == null) overflow = Maps.newHashMap();
+			overflow.put(name, symbol);
+		}
+	}
+
+	@Override
+	public ISymbol<E> get(String name) {
+		final int index = layout.indexOf(name);
+		if (index >= 0) {
+			final ISymbol<E> symbol = slots[index];
+			if (symbol != null) return symbol;
+		} else if (overflow != null) {
+			final ISymbol<E> symbol = overflow.get(name);
+			if (symbol != null) return symbol;
+		}
+
+		return super.get(name);
+	}
+
+}
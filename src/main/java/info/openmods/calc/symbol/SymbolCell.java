@@ -0,0 +1,19 @@
+package info.openmods.calc.symbol;
+
+// redefinition updates cell in place, so references to it stay valid
+public class SymbolCell<E> {
+
+	private ISymbol<E> symbol;
+
+	public SymbolCell(ISymbol<E> symbol) {
+		this.symbol = symbol;
+	}
+
+	public ISymbol<E> get() {
+		return symbol;
+	}
+
+	public void set(ISymbol<E> symbol) {
+		this.symbol = symbol;
+	}
+}
@@ -8,6 +8,8 @@ public abstract class SymbolMap<E> {
 
 	protected abstract ISymbol<E> createSymbol(E value);
 
+	protected abstract ISymbol<E> createConstant(E value);
+
 	public abstract void put(String name, ISymbol<E> symbol);
 
 	public void put(String name, ICallable<E> callable) {
@@ -22,6 +24,20 @@ public abstract class SymbolMap<E> {
 		put(name, createSymbol(value));
 	}
 
+	public void putConstant(String name, E value) {
+		put(name, createConstant(value));
+	}
+
 	public abstract ISymbol<E> get(String name);
 
+	// returned cell stays valid as long as layoutVersion() doesn't change
+	public SymbolCell<E> getCell(String name) {
+		return null;
+	}
+
+	// redefinitions of existing names don't change version
+	public int layoutVersion() {
+		return 0;
+	}
+
 }
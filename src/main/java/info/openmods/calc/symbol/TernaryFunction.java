@@ -26,6 +26,13 @@ public abstract class TernaryFunction<E> extends FixedCallable<E> {
 		}
 	}
 
+	public abstract static class Pure<E> extends Direct<E> {
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+	}
+
 	public abstract static class WithFrame<E> extends TernaryFunction<E> {
 		protected abstract E call(Frame<E> frame, E first, E second, E third);
 
@@ -20,6 +20,11 @@ public class TopSymbolMap<E> extends SymbolMap<E> {
 			callable.call(frame, argumentsCount, returnsCount);
 		}
 
+		@Override
+		public boolean isPure() {
+			return callable.isPure();
+		}
+
 		@Override
 		public E get() {
 			throw new UnsupportedOperationException("Cannot use function as value");
@@ -52,17 +57,27 @@ public class TopSymbolMap<E> extends SymbolMap<E> {
 	private static class ConstantSymbol<E> extends ValueSymbol<E> {
 		private final E value;
 
-		public ConstantSymbol(E value) {
+		private final boolean isPure;
+
+		public ConstantSymbol(E value, boolean isPure) {
 			this.value = value;
+			this.isPure = isPure;
 		}
 
 		@Override
 		public E get() {
 			return value;
 		}
+
+		@Override
+		public boolean isPure() {
+			return isPure;
+		}
 	}
 
-	private final Map<String, ISymbol<E>> globals = Maps.newHashMap();
+	private final Map<String, SymbolCell<E>> globals = Maps.newHashMap();
+
+	private int layoutVersion;
 
 	@Override
 	protected ISymbol<E> createSymbol(ICallable<E> callable) {
@@ -76,17 +91,39 @@ public class TopSymbolMap<E> extends SymbolMap<E> {
 
 	@Override
 	protected ISymbol<E> createSymbol(E value) {
-		return new ConstantSymbol<E>(value);
+		return new ConstantSymbol<E>(value, false);
+	}
+
+	@Override
+	protected ISymbol<E> createConstant(E value) {
+		return new ConstantSymbol<E>(value, true);
 	}
 
 	@Override
 	public void put(String name, ISymbol<E> symbol) {
-		globals.put(name, symbol);
+		final SymbolCell<E> cell = globals.get(name);
+		if (cell != null) {
+			cell.set(symbol);
+		} else {
+			globals.put(name, new SymbolCell<E>(symbol));
+			layoutVersion++;
+		}
 	}
 
 	@Override
 	public ISymbol<E> get(String name) {
+		final SymbolCell<E> cell = globals.get(name);
+		return cell != null? cell.get() : null;
+	}
+
+	@Override
+	public SymbolCell<E> getCell(String name) {
 		return globals.get(name);
 	}
 
+	@Override
+	public int layoutVersion() {
+		return layoutVersion;
+	}
+
 }
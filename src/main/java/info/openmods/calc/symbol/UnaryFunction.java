@@ -23,6 +23,13 @@ public abstract class UnaryFunction<E> extends FixedCallable<E> {
 		}
 	}
 
+	public abstract static class Pure<E> extends Direct<E> {
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+	}
+
 	public abstract static class WithFrame<E> extends UnaryFunction<E> {
 		protected abstract E call(Frame<E> frame, E value);
 
@@ -13,7 +13,7 @@ import info.openmods.calc.parsing.BasicCompilerMapFactory;
 import info.openmods.calc.parsing.CommonSimpleSymbolFactory;
 import info.openmods.calc.parsing.IValueParser;
 import info.openmods.calc.symbol.BinaryFunction;
-import info.openmods.calc.symbol.GenericFunctions.DirectAccumulatorFunction;
+import info.openmods.calc.symbol.GenericFunctions.PureAccumulatorFunction;
 import info.openmods.calc.symbol.NullaryFunction;
 import info.openmods.calc.symbol.TernaryFunction;
 import info.openmods.calc.symbol.UnaryFunction;
@@ -41,42 +41,42 @@ public class BigIntCalculatorFactory<M> extends SimpleCalculatorFactory<BigInteg
 
 	@Override
 	protected void configureEnvironment(Environment<BigInteger> env) {
-		env.setGlobalSymbol("abs", new UnaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("abs", new UnaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger value) {
 				return value.abs();
 			}
 		});
 
-		env.setGlobalSymbol("sgn", new UnaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("sgn", new UnaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger value) {
 				return BigInteger.valueOf(value.signum());
 			}
 		});
 
-		env.setGlobalSymbol("min", new DirectAccumulatorFunction<BigInteger>(NULL_VALUE) {
+		env.setGlobalSymbol("min", new PureAccumulatorFunction<BigInteger>(NULL_VALUE) {
 			@Override
 			protected BigInteger accumulate(BigInteger result, BigInteger value) {
 				return result.min(value);
 			}
 		});
 
-		env.setGlobalSymbol("max", new DirectAccumulatorFunction<BigInteger>(NULL_VALUE) {
+		env.setGlobalSymbol("max", new PureAccumulatorFunction<BigInteger>(NULL_VALUE) {
 			@Override
 			protected BigInteger accumulate(BigInteger result, BigInteger value) {
 				return result.max(value);
 			}
 		});
 
-		env.setGlobalSymbol("sum", new DirectAccumulatorFunction<BigInteger>(NULL_VALUE) {
+		env.setGlobalSymbol("sum", new PureAccumulatorFunction<BigInteger>(NULL_VALUE) {
 			@Override
 			protected BigInteger accumulate(BigInteger result, BigInteger value) {
 				return result.add(value);
 			}
 		});
 
-		env.setGlobalSymbol("avg", new DirectAccumulatorFunction<BigInteger>(NULL_VALUE) {
+		env.setGlobalSymbol("avg", new PureAccumulatorFunction<BigInteger>(NULL_VALUE) {
 			@Override
 			protected BigInteger accumulate(BigInteger result, BigInteger value) {
 				return result.add(value);
@@ -89,49 +89,49 @@ public class BigIntCalculatorFactory<M> extends SimpleCalculatorFactory<BigInteg
 
 		});
 
-		env.setGlobalSymbol("gcd", new BinaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("gcd", new BinaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger left, BigInteger right) {
 				return left.gcd(right);
 			}
 		});
 
-		env.setGlobalSymbol("gcd", new BinaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("gcd", new BinaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger left, BigInteger right) {
 				return left.gcd(right);
 			}
 		});
 
-		env.setGlobalSymbol("modpow", new TernaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("modpow", new TernaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger first, BigInteger second, BigInteger third) {
 				return first.modPow(second, third);
 			}
 		});
 
-		env.setGlobalSymbol("get", new BinaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("get", new BinaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger first, BigInteger second) {
 				return first.testBit(second.intValue())? BigInteger.ONE : BigInteger.ZERO;
 			}
 		});
 
-		env.setGlobalSymbol("set", new BinaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("set", new BinaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger first, BigInteger second) {
 				return first.setBit(second.intValue());
 			}
 		});
 
-		env.setGlobalSymbol("clear", new BinaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("clear", new BinaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger first, BigInteger second) {
 				return first.clearBit(second.intValue());
 			}
 		});
 
-		env.setGlobalSymbol("flip", new BinaryFunction.Direct<BigInteger>() {
+		env.setGlobalSymbol("flip", new BinaryFunction.Pure<BigInteger>() {
 			@Override
 			protected BigInteger call(BigInteger first, BigInteger second) {
 				return first.flipBit(second.intValue());
@@ -157,105 +157,105 @@ public class BigIntCalculatorFactory<M> extends SimpleCalculatorFactory<BigInteg
 
 	@Override
 	protected void configureOperators(OperatorDictionary<Operator<BigInteger>> operators) {
-		operators.registerOperator(new UnaryOperator.Direct<BigInteger>("~") {
+		operators.registerOperator(new UnaryOperator.Pure<BigInteger>("~") {
 			@Override
 			public BigInteger execute(BigInteger value) {
 				return value.not();
 			}
 		});
 
-		operators.registerOperator(new UnaryOperator.Direct<BigInteger>("neg") {
+		operators.registerOperator(new UnaryOperator.Pure<BigInteger>("neg") {
 			@Override
 			public BigInteger execute(BigInteger value) {
 				return value.negate();
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("^", PRIORITY_BITWISE) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("^", PRIORITY_BITWISE) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.xor(right);
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("|", PRIORITY_BITWISE) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("|", PRIORITY_BITWISE) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.or(right);
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("&", PRIORITY_BITWISE) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("&", PRIORITY_BITWISE) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.and(right);
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("+", PRIORITY_ADD) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("+", PRIORITY_ADD) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.add(right);
 			}
 		});
 
-		operators.registerOperator(new UnaryOperator.Direct<BigInteger>("+") {
+		operators.registerOperator(new UnaryOperator.Pure<BigInteger>("+") {
 			@Override
 			public BigInteger execute(BigInteger value) {
 				return value;
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("-", PRIORITY_ADD) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("-", PRIORITY_ADD) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.subtract(right);
 			}
 		});
 
-		operators.registerOperator(new UnaryOperator.Direct<BigInteger>("-") {
+		operators.registerOperator(new UnaryOperator.Pure<BigInteger>("-") {
 			@Override
 			public BigInteger execute(BigInteger value) {
 				return value.negate();
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("*", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("*", PRIORITY_MULTIPLY) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.multiply(right);
 			}
 		}).setDefault();
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("/", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("/", PRIORITY_MULTIPLY) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.divide(right);
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("%", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("%", PRIORITY_MULTIPLY) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.mod(right);
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("**", PRIORITY_EXP) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("**", PRIORITY_EXP) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.pow(right.intValue());
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>("<<", PRIORITY_BITSHIFT) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>("<<", PRIORITY_BITSHIFT) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.shiftLeft(right.intValue());
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<BigInteger>(">>", PRIORITY_BITSHIFT) {
+		operators.registerOperator(new BinaryOperator.Pure<BigInteger>(">>", PRIORITY_BITSHIFT) {
 			@Override
 			public BigInteger execute(BigInteger left, BigInteger right) {
 				return left.shiftRight(right.intValue());
@@ -5,17 +5,12 @@ import info.openmods.calc.Environment;
 import info.openmods.calc.ExprType;
 import info.openmods.calc.IValuePrinter;
 import info.openmods.calc.SimpleCalculatorFactory;
-import info.openmods.calc.executable.BinaryOperator;
 import info.openmods.calc.executable.Operator;
 import info.openmods.calc.executable.OperatorDictionary;
-import info.openmods.calc.executable.UnaryOperator;
 import info.openmods.calc.parsing.BasicCompilerMapFactory;
 import info.openmods.calc.parsing.CommonSimpleSymbolFactory;
 import info.openmods.calc.parsing.IValueParser;
-import info.openmods.calc.symbol.BinaryFunction;
-import info.openmods.calc.symbol.GenericFunctions.DirectAccumulatorFunction;
 import info.openmods.calc.symbol.NullaryFunction;
-import info.openmods.calc.symbol.UnaryFunction;
 import java.util.Random;
 
 public class DoubleCalculatorFactory<M> extends SimpleCalculatorFactory<Double, M> {
@@ -38,209 +33,209 @@ public class DoubleCalculatorFactory<M> extends SimpleCalculatorFactory<Double,
 
 	@Override
 	protected void configureEnvironment(Environment<Double> env) {
-		env.setGlobalSymbol("PI", Math.PI);
-		env.setGlobalSymbol("E", Math.E);
-		env.setGlobalSymbol("INF", Double.POSITIVE_INFINITY);
-		env.setGlobalSymbol("MAX", Double.MIN_VALUE);
+		env.setGlobalConstant("PI", Math.PI);
+		env.setGlobalConstant("E", Math.E);
+		env.setGlobalConstant("INF", Double.POSITIVE_INFINITY);
+		env.setGlobalConstant("MAX", Double.MIN_VALUE);
 
-		env.setGlobalSymbol("abs", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("abs", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.abs(value);
 			}
 		});
 
-		env.setGlobalSymbol("sgn", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("sgn", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.signum(value);
 			}
 		});
 
-		env.setGlobalSymbol("sqrt", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("sqrt", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.sqrt(value);
 			}
 		});
 
-		env.setGlobalSymbol("ceil", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("ceil", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.ceil(value);
 			}
 		});
 
-		env.setGlobalSymbol("floor", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("floor", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.floor(value);
 			}
 		});
 
-		env.setGlobalSymbol("cos", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("cos", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.cos(value);
 			}
 		});
 
-		env.setGlobalSymbol("cosh", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("cosh", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.cosh(value);
 			}
 		});
 
-		env.setGlobalSymbol("sin", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("sin", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.sin(value);
 			}
 		});
 
-		env.setGlobalSymbol("sinh", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("sinh", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.sinh(value);
 			}
 		});
 
-		env.setGlobalSymbol("tan", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("tan", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.tan(value);
 			}
 		});
 
-		env.setGlobalSymbol("tanh", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("tanh", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.tanh(value);
 			}
 		});
 
-		env.setGlobalSymbol("acos", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("acos", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.acos(value);
 			}
 		});
 
-		env.setGlobalSymbol("acosh", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("acosh", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.log(value + Math.sqrt(value * value - 1));
 			}
 		});
 
-		env.setGlobalSymbol("asin", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("asin", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.asin(value);
 			}
 		});
 
-		env.setGlobalSymbol("asinh", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("asinh", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
-				return value.isInfinite()? value : Math.log(value + Math.sqrt(value * value + 1));
+			public double apply(double value) {
+				return Double.isInfinite(value)? value : Math.log(value + Math.sqrt(value * value + 1));
 			}
 		});
 
-		env.setGlobalSymbol("atan", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("atan", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.atan(value);
 			}
 		});
 
-		env.setGlobalSymbol("atanh", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("atanh", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.log((1 + value) / (1 - value)) / 2;
 			}
 		});
 
-		env.setGlobalSymbol("atan2", new BinaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("atan2", new DoublePrimitives.BinaryFunction() {
 			@Override
-			protected Double call(Double left, Double right) {
+			public double apply(double left, double right) {
 				return Math.atan2(left, right);
 			}
 
 		});
 
-		env.setGlobalSymbol("log10", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("log10", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.log10(value);
 			}
 		});
 
-		env.setGlobalSymbol("ln", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("ln", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.log(value);
 			}
 		});
 
-		env.setGlobalSymbol("log", new BinaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("log", new DoublePrimitives.BinaryFunction() {
 			@Override
-			protected Double call(Double left, Double right) {
+			public double apply(double left, double right) {
 				return Math.log(left) / Math.log(right);
 			}
 		});
 
-		env.setGlobalSymbol("exp", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("exp", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.exp(value);
 			}
 		});
 
-		env.setGlobalSymbol("min", new DirectAccumulatorFunction<Double>(NULL_VALUE) {
+		env.setGlobalSymbol("min", new DoublePrimitives.AccumulatorFunction(NULL_VALUE) {
 			@Override
-			protected Double accumulate(Double result, Double value) {
+			public double combine(double result, double value) {
 				return Math.min(result, value);
 			}
 		});
 
-		env.setGlobalSymbol("max", new DirectAccumulatorFunction<Double>(NULL_VALUE) {
+		env.setGlobalSymbol("max", new DoublePrimitives.AccumulatorFunction(NULL_VALUE) {
 			@Override
-			protected Double accumulate(Double result, Double value) {
+			public double combine(double result, double value) {
 				return Math.max(result, value);
 			}
 		});
 
-		env.setGlobalSymbol("sum", new DirectAccumulatorFunction<Double>(NULL_VALUE) {
+		env.setGlobalSymbol("sum", new DoublePrimitives.AccumulatorFunction(NULL_VALUE) {
 			@Override
-			protected Double accumulate(Double result, Double value) {
+			public double combine(double result, double value) {
 				return result + value;
 			}
 		});
 
-		env.setGlobalSymbol("avg", new DirectAccumulatorFunction<Double>(NULL_VALUE) {
+		env.setGlobalSymbol("avg", new DoublePrimitives.AccumulatorFunction(NULL_VALUE) {
 			@Override
-			protected Double accumulate(Double result, Double value) {
+			public double combine(double result, double value) {
 				return result + value;
 			}
 
 			@Override
-			protected Double process(Double result, int argCount) {
+			public double finish(double result, int argCount) {
 				return result / argCount;
 			}
 		});
 
-		env.setGlobalSymbol("rad", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("rad", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.toRadians(value);
 			}
 		});
 
-		env.setGlobalSymbol("deg", new UnaryFunction.Direct<Double>() {
+		env.setGlobalSymbol("deg", new DoublePrimitives.UnaryFunction() {
 			@Override
-			protected Double call(Double value) {
+			public double apply(double value) {
 				return Math.toDegrees(value);
 			}
 		});
@@ -269,72 +264,72 @@ public class DoubleCalculatorFactory<M> extends SimpleCalculatorFactory<Double,
 
 	@Override
 	protected void configureOperators(OperatorDictionary<Operator<Double>> operators) {
-		operators.registerOperator(new UnaryOperator.Direct<Double>("neg") {
+		operators.registerOperator(new DoublePrimitives.UnaryOperator("neg") {
 			@Override
-			public Double execute(Double value) {
+			public double apply(double value) {
 				return -value;
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Double>("+", PRIORITY_ADD) {
+		operators.registerOperator(new DoublePrimitives.BinaryOperator("+", PRIORITY_ADD) {
 			@Override
-			public Double execute(Double left, Double right) {
+			public double apply(double left, double right) {
 				return left + right;
 			}
 		});
 
-		operators.registerOperator(new UnaryOperator.Direct<Double>("+") {
+		operators.registerOperator(new DoublePrimitives.UnaryOperator("+") {
 			@Override
-			public Double execute(Double value) {
+			public double apply(double value) {
 				return +value;
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Double>("-", PRIORITY_ADD) {
+		operators.registerOperator(new DoublePrimitives.BinaryOperator("-", PRIORITY_ADD) {
 			@Override
-			public Double execute(Double left, Double right) {
+			public double apply(double left, double right) {
 				return left - right;
 			}
 		});
 
-		operators.registerOperator(new UnaryOperator.Direct<Double>("-") {
+		operators.registerOperator(new DoublePrimitives.UnaryOperator("-") {
 			@Override
-			public Double execute(Double value) {
+			public double apply(double value) {
 				return -value;
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Double>("*", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new DoublePrimitives.BinaryOperator("*", PRIORITY_MULTIPLY) {
 			@Override
-			public Double execute(Double left, Double right) {
+			public double apply(double left, double right) {
 				return left * right;
 			}
 		}).setDefault();
 
-		operators.registerOperator(new BinaryOperator.Direct<Double>("/", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new DoublePrimitives.BinaryOperator("/", PRIORITY_MULTIPLY) {
 			@Override
-			public Double execute(Double left, Double right) {
+			public double apply(double left, double right) {
 				return left / right;
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Double>("%", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new DoublePrimitives.BinaryOperator("%", PRIORITY_MULTIPLY) {
 			@Override
-			public Double execute(Double left, Double right) {
+			public double apply(double left, double right) {
 				return left % right;
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Double>("^", PRIORITY_POWER) {
+		operators.registerOperator(new DoublePrimitives.BinaryOperator("^", PRIORITY_POWER) {
 			@Override
-			public Double execute(Double left, Double right) {
+			public double apply(double left, double right) {
 				return Math.pow(left, right);
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Double>("**", PRIORITY_POWER) {
+		operators.registerOperator(new DoublePrimitives.BinaryOperator("**", PRIORITY_POWER) {
 			@Override
-			public Double execute(Double left, Double right) {
+			public double apply(double left, double right) {
 				return Math.pow(left, right);
 			}
 		});
@@ -0,0 +1,279 @@
+package info.openmods.calc.types.fp;
+
+import com.google.common.collect.Lists;
+import info.openmods.calc.Environment;
+import info.openmods.calc.executable.BytecodeProgram;
+import info.openmods.calc.executable.ExecutableList;
+import info.openmods.calc.executable.HotExecutable;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.executable.SymbolCall;
+import info.openmods.calc.executable.SymbolGet;
+import info.openmods.calc.executable.Value;
+import info.openmods.calc.symbol.ISymbol;
+import info.openmods.calc.symbol.SymbolCell;
+import info.openmods.calc.symbol.SymbolMap;
+import info.openmods.calc.utils.OptionalInt;
+import java.util.List;
+
+// instances keep preallocated stack, so they must not be evaluated concurrently
+public abstract class DoubleExpression {
+
+	public abstract double evaluate();
+
+	public abstract boolean isPrimitive();
+
+	private static class Boxed extends DoubleExpression {
+		private final Environment<Double> env;
+		private final IExecutable<Double> executable;
+
+		public Boxed(Environment<Double> env, IExecutable<Double> executable) {
+			this.env = env;
+			this.executable = executable;
+		}
+
+		@Override
+		public double evaluate() {
+			return env.executeIsolated(executable).stack().popAndExpectEmptyStack();
+		}
+
+		@Override
+		public boolean isPrimitive() {
+			return false;
+		}
+	}
+
+	private static final int OP_CONST = 0;
+	private static final int OP_GET = 1;
+	private static final int OP_UNARY = 2;
+	private static final int OP_BINARY = 3;
+	private static final int OP_ACCUMULATE = 4;
+
+	private static class Primitive extends DoubleExpression {
+		private final Boxed fallback;
+
+		private final int[] ops;
+		private final double[] constants;
+		private final SymbolCell<Double>[] cells;
+		private final DoublePrimitives.IUnary[] unaryOps;
+		private final DoublePrimitives.IBinary[] binaryOps;
+		private final DoublePrimitives.AccumulatorFunction[] accumulators;
+		private final int[] argCounts;
+
+		private final SymbolCell<Double>[] linkedCells;
+		private final ISymbol<Double>[] linkedSymbols;
+
+		private final double[] stack;
+
+		public Primitive(Boxed fallback, Compiler compiler) {
+			this.fallback = fallback;
+			this.ops = compiler.ops;
+			this.constants = compiler.constants;
+			this.cells = compiler.cells;
+			this.unaryOps = compiler.unaryOps;
+			this.binaryOps = compiler.binaryOps;
+			this.accumulators = compiler.accumulators;
+			this.argCounts = compiler.argCounts;
+			this.linkedCells = toCellArray(compiler.linkedCells);
+			this.linkedSymbols = toSymbolArray(compiler.linkedSymbols);
+			this.stack = new double[compiler.maxStackSize];
+		}
+
+		private boolean isLinkValid() {
+			for (int i = 0; i < linkedCells.length; i++)
+				if (linkedCells[i].get() != linkedSymbols[i]) return false;
+
+			return true;
+		}
+
+		@Override
+		public double evaluate() {
+			if (!isLinkValid()) return fallback.evaluate();
+
+			final double[] stack = this.stack;
+			int top = 0;
+
+			for (int pc = 0; pc < ops.length; pc++) {
+				switch (ops[pc]) {
+					case OP_CONST:
+						stack[top++] = constants[pc];
+						break;
+					case OP_GET:
+						stack[top++] = cells[pc].get().get();
+						break;
+					case OP_UNARY:
+						stack[top - 1] = unaryOps[pc].apply(stack[top - 1]);
+						break;
+					case OP_BINARY: {
+						final double right = stack[--top];
+						stack[top - 1] = binaryOps[pc].apply(stack[top - 1], right);
+						break;
+					}
+					case OP_ACCUMULATE: {
+						final DoublePrimitives.AccumulatorFunction accumulator = accumulators[pc];
+						final int args = argCounts[pc];
+						if (args == 0) {
+							stack[top++] = accumulator.nullValue;
+						} else {
+							double result = stack[--top];
+							for (int i = 1; i < args; i++)
+								result = accumulator.combine(stack[--top], result);
+							stack[top++] = accumulator.finish(result, args);
+						}
+						break;
+					}
+					default:
+						throw new IllegalStateException("Invalid opcode: " + ops[pc]);
+				}
+			}
+
+			return stack[0];
+		}
+
+		@Override
+		public boolean isPrimitive() {
+			return true;
+		}
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static SymbolCell<Double>[] toCellArray(List<SymbolCell<Double>> cells) {
+		return cells.toArray(new SymbolCell[cells.size()]);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static ISymbol<Double>[] toSymbolArray(List<ISymbol<Double>> symbols) {
+		return symbols.toArray(new ISymbol[symbols.size()]);
+	}
+
+	private static class UnsupportedExecutableException extends Exception {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static class Compiler {
+		private final SymbolMap<Double> symbols;
+
+		private final int[] ops;
+		private final double[] constants;
+		private final SymbolCell<Double>[] cells;
+		private final DoublePrimitives.IUnary[] unaryOps;
+		private final DoublePrimitives.IBinary[] binaryOps;
+		private final DoublePrimitives.AccumulatorFunction[] accumulators;
+		private final int[] argCounts;
+
+		private final List<SymbolCell<Double>> linkedCells = Lists.newArrayList();
+		private final List<ISymbol<Double>> linkedSymbols = Lists.newArrayList();
+
+		private int stackSize;
+		private int maxStackSize;
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		public Compiler(SymbolMap<Double> symbols, int size) {
+			this.symbols = symbols;
+			this.ops = new int[size];
+			this.constants = new double[size];
+			this.cells = new SymbolCell[size];
+			this.unaryOps = new DoublePrimitives.IUnary[size];
+			this.binaryOps = new DoublePrimitives.IBinary[size];
+			this.accumulators = new DoublePrimitives.AccumulatorFunction[size];
+			this.argCounts = new int[size];
+		}
+
+		private void updateStack(int consumed, int produced) throws UnsupportedExecutableException {
+			if (stackSize < consumed) throw new UnsupportedExecutableException();
+			stackSize = stackSize - consumed + produced;
+			maxStackSize = Math.max(maxStackSize, stackSize);
+		}
+
+		private SymbolCell<Double> findCell(String id) throws UnsupportedExecutableException {
+			final SymbolCell<Double> cell = symbols.getCell(id);
+			if (cell == null) throw new UnsupportedExecutableException();
+			return cell;
+		}
+
+		private static int getArgCount(SymbolCall<Double> call, int defaultArgCount) throws UnsupportedExecutableException {
+			final OptionalInt returnCount = call.returnCount();
+			if (!returnCount.compareIfPresent(1)) throw new UnsupportedExecutableException();
+			return call.argCount().or(defaultArgCount);
+		}
+
+		public void compile(int pc, IExecutable<Double> executable) throws UnsupportedExecutableException {
+			if (executable instanceof Value) {
+				ops[pc] = OP_CONST;
+				constants[pc] = ((Value<Double>)executable).value();
+				updateStack(0, 1);
+			} else if (executable instanceof DoublePrimitives.UnaryOperator) {
+				ops[pc] = OP_UNARY;
+				unaryOps[pc] = (DoublePrimitives.UnaryOperator)executable;
+				updateStack(1, 1);
+			} else if (executable instanceof DoublePrimitives.BinaryOperator) {
+				ops[pc] = OP_BINARY;
+				binaryOps[pc] = (DoublePrimitives.BinaryOperator)executable;
+				updateStack(2, 1);
+			} else if (executable instanceof SymbolGet) {
+				ops[pc] = OP_GET;
+				cells[pc] = findCell(((SymbolGet<Double>)executable).id());
+				updateStack(0, 1);
+			} else if (executable instanceof SymbolCall) {
+				compileCall(pc, (SymbolCall<Double>)executable);
+			} else {
+				throw new UnsupportedExecutableException();
+			}
+		}
+
+		private void compileCall(int pc, SymbolCall<Double> call) throws UnsupportedExecutableException {
+			final SymbolCell<Double> cell = findCell(call.id());
+			final ISymbol<Double> symbol = cell.get();
+
+			if (symbol instanceof DoublePrimitives.UnaryFunction) {
+				if (getArgCount(call, 1) != 1) throw new UnsupportedExecutableException();
+				ops[pc] = OP_UNARY;
+				unaryOps[pc] = (DoublePrimitives.UnaryFunction)symbol;
+				updateStack(1, 1);
+			} else if (symbol instanceof DoublePrimitives.BinaryFunction) {
+				if (getArgCount(call, 2) != 2) throw new UnsupportedExecutableException();
+				ops[pc] = OP_BINARY;
+				binaryOps[pc] = (DoublePrimitives.BinaryFunction)symbol;
+				updateStack(2, 1);
+			} else if (symbol instanceof DoublePrimitives.AccumulatorFunction) {
+				final int args = getArgCount(call, 2);
+				ops[pc] = OP_ACCUMULATE;
+				accumulators[pc] = (DoublePrimitives.AccumulatorFunction)symbol;
+				argCounts[pc] = args;
+				updateStack(args, 1);
+			} else {
+				throw new UnsupportedExecutableException();
+			}
+
+			linkedCells.add(cell);
+			linkedSymbols.add(symbol);
+		}
+	}
+
+	private static List<IExecutable<Double>> flatten(IExecutable<Double> executable) {
+		if (executable instanceof HotExecutable) return flatten(((HotExecutable<Double>)executable).original());
+
+		final List<IExecutable<Double>> result = Lists.newArrayList();
+		if (executable instanceof ExecutableList) ((ExecutableList<Double>)executable).deepFlatten(result);
+		else if (executable instanceof BytecodeProgram) result.addAll(((BytecodeProgram<Double>)executable).getCommands());
+		else result.add(executable);
+		return result;
+	}
+
+	public static DoubleExpression create(Environment<Double> env, IExecutable<Double> executable) {
+		final Boxed fallback = new Boxed(env, executable);
+
+		final List<IExecutable<Double>> commands = flatten(executable);
+		final Compiler compiler = new Compiler(env.topFrame().symbols(), commands.size());
+		try {
+			for (int i = 0; i < commands.size(); i++)
+				compiler.compile(i, commands.get(i));
+		} catch (UnsupportedExecutableException e) {
+			return fallback;
+		}
+
+		// let regular execution report errors
+		if (compiler.stackSize != 1) return fallback;
+
+		return new Primitive(fallback, compiler);
+	}
+}
@@ -0,0 +1,93 @@
+package info.openmods.calc.types.fp;
+
+import info.openmods.calc.symbol.GenericFunctions.PureAccumulatorFunction;
+import info.openmods.calc.symbol.ISymbol;
+
+// functions are symbols themselves, so compiled expressions can check if global binding still points to them
+public class DoublePrimitives {
+
+	public interface IUnary {
+		public double apply(double value);
+	}
+
+	public interface IBinary {
+		public double apply(double left, double right);
+	}
+
+	public abstract static class UnaryFunction extends info.openmods.calc.symbol.UnaryFunction.Pure<Double> implements IUnary, ISymbol<Double> {
+		@Override
+		protected final Double call(Double value) {
+			return apply(value);
+		}
+
+		@Override
+		public Double get() {
+			throw new UnsupportedOperationException("Cannot use function as value");
+		}
+	}
+
+	public abstract static class BinaryFunction extends info.openmods.calc.symbol.BinaryFunction.Pure<Double> implements IBinary, ISymbol<Double> {
+		@Override
+		protected final Double call(Double left, Double right) {
+			return apply(left, right);
+		}
+
+		@Override
+		public Double get() {
+			throw new UnsupportedOperationException("Cannot use function as value");
+		}
+	}
+
+	// WARNING: same as DirectAccumulatorFunction, this assumes 'combine' operation is associative!
+	public abstract static class AccumulatorFunction extends PureAccumulatorFunction<Double> implements ISymbol<Double> {
+		public final double nullValue;
+
+		public AccumulatorFunction(double nullValue) {
+			super(nullValue);
+			this.nullValue = nullValue;
+		}
+
+		@Override
+		protected final Double accumulate(Double result, Double value) {
+			return combine(result, value);
+		}
+
+		@Override
+		protected final Double process(Double result, int argCount) {
+			return finish(result, argCount);
+		}
+
+		public abstract double combine(double result, double value);
+
+		public double finish(double result, int argCount) {
+			return result;
+		}
+
+		@Override
+		public Double get() {
+			throw new UnsupportedOperationException("Cannot use function as value");
+		}
+	}
+
+	public abstract static class UnaryOperator extends info.openmods.calc.executable.UnaryOperator.Pure<Double> implements IUnary {
+		public UnaryOperator(String id) {
+			super(id);
+		}
+
+		@Override
+		public final Double execute(Double value) {
+			return apply(value);
+		}
+	}
+
+	public abstract static class BinaryOperator extends info.openmods.calc.executable.BinaryOperator.Pure<Double> implements IBinary {
+		public BinaryOperator(String id, int precendence) {
+			super(id, precendence);
+		}
+
+		@Override
+		public final Double execute(Double left, Double right) {
+			return apply(left, right);
+		}
+	}
+}
@@ -13,7 +13,7 @@ import info.openmods.calc.executable.UnaryOperator;
 import info.openmods.calc.parsing.BasicCompilerMapFactory;
 import info.openmods.calc.parsing.CommonSimpleSymbolFactory;
 import info.openmods.calc.parsing.IValueParser;
-import info.openmods.calc.symbol.GenericFunctions.DirectAccumulatorFunction;
+import info.openmods.calc.symbol.GenericFunctions.PureAccumulatorFunction;
 import info.openmods.calc.symbol.NullaryFunction;
 import info.openmods.calc.symbol.UnaryFunction;
 import java.util.Random;
@@ -43,84 +43,84 @@ public class FractionCalculatorFactory<M> extends SimpleCalculatorFactory<Fracti
 
 	@Override
 	protected void configureEnvironment(Environment<Fraction> env) {
-		env.setGlobalSymbol("abs", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("abs", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return value.abs();
 			}
 		});
 
-		env.setGlobalSymbol("sgn", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("sgn", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return int2frac(Integer.signum(value.getNumerator()));
 			}
 		});
 
-		env.setGlobalSymbol("numerator", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("numerator", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return int2frac(value.getNumerator());
 			}
 		});
 
-		env.setGlobalSymbol("denominator", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("denominator", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return int2frac(value.getDenominator());
 			}
 		});
 
-		env.setGlobalSymbol("frac", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("frac", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return Fraction.getFraction(value.getProperNumerator(), value.getDenominator());
 			}
 		});
 
-		env.setGlobalSymbol("int", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("int", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return int2frac(value.getProperWhole());
 			}
 		});
 
-		env.setGlobalSymbol("sqrt", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("sqrt", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return Fraction.getFraction(Math.sqrt(value.doubleValue()));
 			}
 		});
 
-		env.setGlobalSymbol("log", new UnaryFunction.Direct<Fraction>() {
+		env.setGlobalSymbol("log", new UnaryFunction.Pure<Fraction>() {
 			@Override
 			protected Fraction call(Fraction value) {
 				return Fraction.getFraction(Math.log(value.doubleValue()));
 			}
 		});
 
-		env.setGlobalSymbol("min", new DirectAccumulatorFunction<Fraction>(NULL_VALUE) {
+		env.setGlobalSymbol("min", new PureAccumulatorFunction<Fraction>(NULL_VALUE) {
 			@Override
 			protected Fraction accumulate(Fraction result, Fraction value) {
 				return Ordering.natural().min(result, value);
 			}
 		});
 
-		env.setGlobalSymbol("max", new DirectAccumulatorFunction<Fraction>(NULL_VALUE) {
+		env.setGlobalSymbol("max", new PureAccumulatorFunction<Fraction>(NULL_VALUE) {
 			@Override
 			protected Fraction accumulate(Fraction result, Fraction value) {
 				return Ordering.natural().max(result, value);
 			}
 		});
 
-		env.setGlobalSymbol("sum", new DirectAccumulatorFunction<Fraction>(NULL_VALUE) {
+		env.setGlobalSymbol("sum", new PureAccumulatorFunction<Fraction>(NULL_VALUE) {
 			@Override
 			protected Fraction accumulate(Fraction result, Fraction value) {
 				return result.add(value);
 			}
 		});
 
-		env.setGlobalSymbol("avg", new DirectAccumulatorFunction<Fraction>(NULL_VALUE) {
+		env.setGlobalSymbol("avg", new PureAccumulatorFunction<Fraction>(NULL_VALUE) {
 			@Override
 			protected Fraction accumulate(Fraction result, Fraction value) {
 				return result.add(value);
@@ -156,49 +156,49 @@ public class FractionCalculatorFactory<M> extends SimpleCalculatorFactory<Fracti
 
 	@Override
 	protected void configureOperators(OperatorDictionary<Operator<Fraction>> operators) {
-		operators.registerOperator(new UnaryOperator.Direct<Fraction>("neg") {
+		operators.registerOperator(new UnaryOperator.Pure<Fraction>("neg") {
 			@Override
 			public Fraction execute(Fraction value) {
 				return value.negate();
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Fraction>("+", PRIORITY_ADD) {
+		operators.registerOperator(new BinaryOperator.Pure<Fraction>("+", PRIORITY_ADD) {
 			@Override
 			public Fraction execute(Fraction left, Fraction right) {
 				return left.add(right);
 			}
 		});
 
-		operators.registerOperator(new UnaryOperator.Direct<Fraction>("+") {
+		operators.registerOperator(new UnaryOperator.Pure<Fraction>("+") {
 			@Override
 			public Fraction execute(Fraction value) {
 				return value;
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Fraction>("-", PRIORITY_ADD) {
+		operators.registerOperator(new BinaryOperator.Pure<Fraction>("-", PRIORITY_ADD) {
 			@Override
 			public Fraction execute(Fraction left, Fraction right) {
 				return left.subtract(right);
 			}
 		});
 
-		operators.registerOperator(new UnaryOperator.Direct<Fraction>("-") {
+		operators.registerOperator(new UnaryOperator.Pure<Fraction>("-") {
 			@Override
 			public Fraction execute(Fraction value) {
 				return value.negate();
 			}
 		});
 
-		operators.registerOperator(new BinaryOperator.Direct<Fraction>("*", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new BinaryOperator.Pure<Fraction>("*", PRIORITY_MULTIPLY) {
 			@Override
 			public Fraction execute(Fraction left, Fraction right) {
 				return left.multiplyBy(right);
 			}
 		}).setDefault();
 
-		operators.registerOperator(new BinaryOperator.Direct<Fraction>("/", PRIORITY_MULTIPLY) {
+		operators.registerOperator(new BinaryOperator.Pure<Fraction>("/", PRIORITY_MULTIPLY) {
 			@Override
 			public Fraction execute(Fraction left, Fraction right) {
 				return left.divideBy(right);
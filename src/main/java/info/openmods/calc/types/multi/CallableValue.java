@@ -32,6 +32,11 @@ public abstract class CallableValue {
 					public TypedValue get() {
 						return self;
 					}
+
+					@Override
+					public boolean isPure() {
+						return callable.isPure();
+					}
 				};
 			}
 		};
@@ -45,7 +50,7 @@ public abstract class CallableValue {
 	}
 
 	public ISymbol<TypedValue> toSymbol(TypedValue value) {
-		Preconditions.checkState(value.value == this);
+		Preconditions.checkState(value.value() == this);
 		return createSymbol(value);
 	}
 
@@ -0,0 +1,73 @@
+package info.openmods.calc.types.multi;
+
+import com.google.common.base.Preconditions;
+import java.math.BigInteger;
+
+public class CanonicalValues {
+
+	private static class Listed<T> implements ICanonicalValues<T> {
+		private final Object[] values;
+
+		private final TypedValue[] wrappedValues;
+
+		public Listed(TypedValue... wrappedValues) {
+			this.wrappedValues = wrappedValues.clone();
+			this.values = new Object[wrappedValues.length];
+			for (int i = 0; i < wrappedValues.length; i++)
+				this.values[i] = wrappedValues[i].value();
+		}
+
+		@Override
+		public TypedValue get(T value) {
+			// only few values, so linear scan is cheaper than hashing
+			final Object[] values = this.values;
+			for (int i = 0; i < values.length; i++)
+				if (values[i].equals(value)) return wrappedValues[i];
+			return null;
+		}
+	}
+
+	public static <T> ICanonicalValues<T> forValues(TypedValue... values) {
+		return new Listed<T>(values);
+	}
+
+	// also queried directly with long values by TypeDomain.createInt
+	static class IntegerRange implements ICanonicalValues<BigInteger> {
+		private final int min;
+
+		private final TypedValue[] wrappedValues;
+
+		public IntegerRange(TypeDomain domain, int min, int max) {
+			Preconditions.checkArgument(min <= max, "Invalid range: %s..%s", min, max);
+			this.min = min;
+			this.wrappedValues = new TypedValue[max - min + 1];
+			for (int i = 0; i < wrappedValues.length; i++)
+				wrappedValues[i] = domain.create(BigInteger.class, BigInteger.valueOf(min + i));
+		}
+
+		@Override
+		public TypedValue get(BigInteger value) {
+			if (value.bitLength() >= 32) return null;
+			return get(value.intValue());
+		}
+
+		public TypedValue get(long value) {
+			final long index = value - min;
+			return (index >= 0 && index < wrappedValues.length)? wrappedValues[(int)index] : null;
+		}
+	}
+
+	public static ICanonicalValues<BigInteger> forIntegers(TypeDomain domain, int min, int max) {
+		return new IntegerRange(domain, min, max);
+	}
+
+	// wrapper is stored in symbol, so it's only shared while symbol is interned
+	public static ICanonicalValues<Symbol> forSymbols(final TypeDomain domain) {
+		return new ICanonicalValues<Symbol>() {
+			@Override
+			public TypedValue get(Symbol value) {
+				return value.getWrapped(domain);
+			}
+		};
+	}
+}
@@ -1,9 +1,13 @@
 package info.openmods.calc.types.multi;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import info.openmods.calc.Frame;
-import info.openmods.calc.FrameFactory;
+import info.openmods.calc.IExecutionListener;
 import info.openmods.calc.symbol.ICallable;
+import info.openmods.calc.symbol.SlotLayout;
+import info.openmods.calc.symbol.SlotSymbolMap;
 import info.openmods.calc.symbol.SymbolMap;
 import info.openmods.calc.utils.OptionalInt;
 import info.openmods.calc.utils.Stack;
@@ -18,21 +22,53 @@ public class Closure implements ICallable<TypedValue> {
 
 	private final List<IBindPattern> args;
 
+	private final SlotLayout argLayout;
+
 	public Closure(SymbolMap<TypedValue> scopeSymbols, Code code, List<IBindPattern> args) {
+		this(scopeSymbols, code, args, SlotLayout.create(argNames(args)));
+	}
+
+	public Closure(SymbolMap<TypedValue> scopeSymbols, Code code, List<IBindPattern> args, SlotLayout argLayout) {
 		this.code = code;
 		this.scopeSymbols = scopeSymbols;
 		this.args = ImmutableList.copyOf(args);
+		this.argLayout = argLayout;
+	}
+
+	private String id() {
+		return "closure(" + Joiner.on(',').join(argLayout.names()) + ")";
+	}
+
+	static List<String> argNames(List<IBindPattern> args) {
+		final List<String> names = Lists.newArrayList();
+		for (IBindPattern arg : args)
+			arg.listBoundVars(names);
+		return names;
 	}
 
 	@Override
 	public void call(Frame<TypedValue> callsite, OptionalInt argumentsCount, OptionalInt returnsCount) {
+		final IExecutionListener listener = callsite.listener();
+		if (listener == null) {
+			callClosure(callsite, argumentsCount, returnsCount);
+		} else {
+			final String id = id();
+			listener.enter(IExecutionListener.Kind.CLOSURE_CALL, id, callsite);
+			try {
+				callClosure(callsite, argumentsCount, returnsCount);
+			} finally {
+				listener.exit(IExecutionListener.Kind.CLOSURE_CALL, id, callsite);
+			}
+		}
+	}
+
+	private void callClosure(Frame<TypedValue> callsite, OptionalInt argumentsCount, OptionalInt returnsCount) {
 		TypedCalcUtils.expectExactArgCount(argumentsCount, args.size());
 
-		final Frame<TypedValue> executionFrame = FrameFactory.newClosureFrame(scopeSymbols, callsite, args.size());
+		final SymbolMap<TypedValue> executionSymbols = new SlotSymbolMap<TypedValue>(scopeSymbols, argLayout);
+		final Frame<TypedValue> executionFrame = new Frame<TypedValue>(executionSymbols, callsite.stack().substack(args.size()), callsite.listener());
 		final Stack<TypedValue> executionStack = executionFrame.stack();
 
-		final SymbolMap<TypedValue> executionSymbols = executionFrame.symbols();
-
 		final Iterator<TypedValue> argValues = executionStack.iterator();
 		for (IBindPattern argPattern : args) {
 			final TypedValue argValue = argValues.next();
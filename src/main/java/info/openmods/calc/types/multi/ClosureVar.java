@@ -1,10 +1,13 @@
 package info.openmods.calc.types.multi;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import info.openmods.calc.Frame;
-import info.openmods.calc.FrameFactory;
+import info.openmods.calc.IExecutionListener;
 import info.openmods.calc.symbol.ICallable;
+import info.openmods.calc.symbol.SlotLayout;
+import info.openmods.calc.symbol.SlotSymbolMap;
 import info.openmods.calc.symbol.SymbolMap;
 import info.openmods.calc.utils.OptionalInt;
 import info.openmods.calc.utils.Stack;
@@ -21,18 +24,50 @@ public class ClosureVar implements ICallable<TypedValue> {
 
 	private final List<IBindPattern> args;
 
+	private final SlotLayout argLayout;
+
 	private final String varArgName;
 
 	public ClosureVar(TypedValue nullValue, SymbolMap<TypedValue> scopeSymbols, Code code, List<IBindPattern> args, String varArg) {
+		this(nullValue, scopeSymbols, code, args, varArg, SlotLayout.create(argNames(args, varArg)));
+	}
+
+	public ClosureVar(TypedValue nullValue, SymbolMap<TypedValue> scopeSymbols, Code code, List<IBindPattern> args, String varArg, SlotLayout argLayout) {
 		this.nullValue = nullValue;
 		this.code = code;
 		this.scopeSymbols = scopeSymbols;
 		this.args = ImmutableList.copyOf(args);
 		this.varArgName = varArg;
+		this.argLayout = argLayout;
+	}
+
+	private String id() {
+		return "closure(" + Joiner.on(',').join(argLayout.names()) + "...)";
+	}
+
+	static List<String> argNames(List<IBindPattern> args, String varArg) {
+		final List<String> names = Closure.argNames(args);
+		names.add(varArg);
+		return names;
 	}
 
 	@Override
 	public void call(Frame<TypedValue> callsite, OptionalInt argumentsCount, OptionalInt returnsCount) {
+		final IExecutionListener listener = callsite.listener();
+		if (listener == null) {
+			callClosure(callsite, argumentsCount, returnsCount);
+		} else {
+			final String id = id();
+			listener.enter(IExecutionListener.Kind.CLOSURE_CALL, id, callsite);
+			try {
+				callClosure(callsite, argumentsCount, returnsCount);
+			} finally {
+				listener.exit(IExecutionListener.Kind.CLOSURE_CALL, id, callsite);
+			}
+		}
+	}
+
+	private void callClosure(Frame<TypedValue> callsite, OptionalInt argumentsCount, OptionalInt returnsCount) {
 		final int allArgs;
 		final int mandatoryArgs = args.size();
 
@@ -45,11 +80,10 @@ public class ClosureVar implements ICallable<TypedValue> {
 
 		final int extraArgs = allArgs - mandatoryArgs;
 
-		final Frame<TypedValue> executionFrame = FrameFactory.newClosureFrame(scopeSymbols, callsite, allArgs);
+		final SymbolMap<TypedValue> executionSymbols = new SlotSymbolMap<TypedValue>(scopeSymbols, argLayout);
+		final Frame<TypedValue> executionFrame = new Frame<TypedValue>(executionSymbols, callsite.stack().substack(allArgs), callsite.listener());
 		final Stack<TypedValue> executionStack = executionFrame.stack();
 
-		final SymbolMap<TypedValue> executionSymbols = executionFrame.symbols();
-
 		final TypeDomain domain = nullValue.domain;
 		TypedValue varArgValue = nullValue;
 
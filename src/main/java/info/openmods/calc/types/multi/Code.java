@@ -6,11 +6,15 @@ import info.openmods.calc.executable.ExecutableList;
 import info.openmods.calc.executable.IExecutable;
 import info.openmods.calc.parsing.node.ExprUtils;
 import info.openmods.calc.parsing.node.IExprNode;
+import info.openmods.calc.symbol.SlotLayout;
 import java.util.List;
 
 public class Code {
 	private final IExecutable<TypedValue> code;
 
+	// lambda code is compiled once per definition, so closures created from it can share arg layout (and cached symbol bindings)
+	private volatile SlotLayout closureArgLayout;
+
 	public Code(IExecutable<TypedValue> code) {
 		Preconditions.checkNotNull(code);
 		this.code = code;
@@ -20,6 +24,15 @@ public class Code {
 		this.code.execute(frame);
 	}
 
+	public SlotLayout getClosureArgLayout(List<String> argNames) {
+		SlotLayout layout = closureArgLayout;
+		if (layout == null || !layout.hasNames(argNames)) {
+			layout = SlotLayout.create(argNames);
+			closureArgLayout = layout;
+		}
+		return layout;
+	}
+
 	@Override
 	public int hashCode() {
 		return code.hashCode();
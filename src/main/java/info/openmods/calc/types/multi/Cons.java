@@ -2,6 +2,7 @@ package info.openmods.calc.types.multi;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.AbstractIterator;
+import info.openmods.calc.ExecutionBudget;
 import java.util.Iterator;
 import java.util.List;
 
@@ -20,6 +21,7 @@ public class Cons {
 	}
 
 	public static TypedValue create(TypeDomain domain, TypedValue car, TypedValue cdr) {
+		ExecutionBudget.allocate(1);
 		return domain.create(Cons.class, new Cons(car, cdr));
 	}
 
@@ -57,6 +59,7 @@ public class Cons {
 	}
 
 	public static TypedValue createList(List<TypedValue> elements, TypedValue terminatorValue) {
+		ExecutionBudget.allocate(elements.size());
 		final int lastElement = elements.size() - 1;
 		final TypeDomain domain = terminatorValue.domain;
 
@@ -0,0 +1,6 @@
+package info.openmods.calc.types.multi;
+
+public interface ICanonicalValues<T> {
+	// null if value has no canonical instance
+	public TypedValue get(T value);
+}
@@ -12,6 +12,7 @@ import info.openmods.calc.parsing.node.BracketContainerNode;
 import info.openmods.calc.parsing.node.IExprNode;
 import info.openmods.calc.parsing.node.MappedExprNodeFactory.IBinaryExprNodeFactory;
 import info.openmods.calc.symbol.FixedCallable;
+import info.openmods.calc.symbol.SlotLayout;
 import info.openmods.calc.utils.Stack;
 import java.util.List;
 
@@ -56,7 +57,8 @@ public class LambdaExpressionFactory {
 			final TypedValue argValues = stack.pop();
 			final List<IBindPattern> args = extractPatternFromValues(argValues);
 
-			frame.stack().push(CallableValue.wrap(domain, new Closure(frame.symbols(), code, args)));
+			final SlotLayout argLayout = code.getClosureArgLayout(Closure.argNames(args));
+			frame.stack().push(CallableValue.wrap(domain, new Closure(frame.symbols(), code, args, argLayout)));
 		}
 	}
 
@@ -74,7 +76,8 @@ public class LambdaExpressionFactory {
 			final TypedValue argValues = stack.pop();
 
 			final List<IBindPattern> args = extractPatternFromValues(argValues);
-			stack.push(CallableValue.wrap(domain, new ClosureVar(nullValue, frame.symbols(), code, args, varArgName)));
+			final SlotLayout argLayout = code.getClosureArgLayout(ClosureVar.argNames(args, varArgName));
+			stack.push(CallableValue.wrap(domain, new ClosureVar(nullValue, frame.symbols(), code, args, varArgName, argLayout)));
 		}
 	}
 
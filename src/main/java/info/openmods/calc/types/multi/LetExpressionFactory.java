@@ -8,6 +8,7 @@ import info.openmods.calc.Environment;
 import info.openmods.calc.ExecutionErrorException;
 import info.openmods.calc.Frame;
 import info.openmods.calc.FrameFactory;
+import info.openmods.calc.IExecutionListener;
 import info.openmods.calc.executable.BinaryOperator;
 import info.openmods.calc.executable.IExecutable;
 import info.openmods.calc.executable.SymbolCall;
@@ -160,7 +161,7 @@ public class LetExpressionFactory {
 			final Cons vars = letStack.pop().as(Cons.class, "first (var list) 'let'  parameter");
 
 			try {
-				prepareFrame(letFrame.symbols(), currentFrame.symbols(), vars);
+				prepareFrame(letFrame.symbols(), currentFrame.symbols(), currentFrame.listener(), vars);
 			} catch (InvalidArgsException e) {
 				throw new IllegalArgumentException("Expected list of name:value pairs on second 'let' parameter, got " + vars, e);
 			}
@@ -170,7 +171,7 @@ public class LetExpressionFactory {
 			TypedCalcUtils.expectExactReturnCount(returnsCount, letStack.size());
 		}
 
-		protected abstract void prepareFrame(SymbolMap<TypedValue> outputFrame, SymbolMap<TypedValue> callSymbols, Cons vars);
+		protected abstract void prepareFrame(SymbolMap<TypedValue> outputFrame, SymbolMap<TypedValue> callSymbols, IExecutionListener listener, Cons vars);
 	}
 
 	private abstract class ArgPairVisitor extends Cons.ListVisitor {
@@ -234,11 +235,11 @@ public class LetExpressionFactory {
 
 	private class LetSymbol extends LetSymbolBase {
 		@Override
-		protected void prepareFrame(final SymbolMap<TypedValue> outputSymbols, final SymbolMap<TypedValue> callSymbols, Cons vars) {
+		protected void prepareFrame(final SymbolMap<TypedValue> outputSymbols, final SymbolMap<TypedValue> callSymbols, final IExecutionListener listener, Cons vars) {
 			vars.visit(new ArgPairVisitor() {
 				@Override
 				protected void acceptVar(IBindPattern pattern, Code expr) {
-					final Frame<TypedValue> executionFrame = FrameFactory.newLocalFrame(callSymbols);
+					final Frame<TypedValue> executionFrame = FrameFactory.newLocalFrame(callSymbols, listener);
 					final SymbolMap<TypedValue> executionSymbols = executionFrame.symbols();
 
 					final Set<String> bindNames = extractBindNames(pattern);
@@ -257,14 +258,14 @@ public class LetExpressionFactory {
 
 	private class LetSeqSymbol extends LetSymbolBase {
 		@Override
-		protected void prepareFrame(final SymbolMap<TypedValue> outputSymbols, SymbolMap<TypedValue> callSymbols, Cons vars) {
+		protected void prepareFrame(final SymbolMap<TypedValue> outputSymbols, SymbolMap<TypedValue> callSymbols, final IExecutionListener listener, Cons vars) {
 			vars.visit(new ArgPairVisitor() {
 				@Override
 				protected void acceptVar(IBindPattern pattern, Code expr) {
 					final Set<String> bindNames = extractBindNames(pattern);
 					fillPlaceholders(bindNames, outputSymbols);
 
-					final Frame<TypedValue> executionFrame = FrameFactory.symbolsToFrame(outputSymbols);
+					final Frame<TypedValue> executionFrame = FrameFactory.symbolsToFrame(outputSymbols, listener);
 
 					final TypedValue result = executeForSingleResult(executionFrame, expr);
 
@@ -289,7 +290,7 @@ public class LetExpressionFactory {
 
 	private class LetRecSymbol extends LetSymbolBase {
 		@Override
-		protected void prepareFrame(final SymbolMap<TypedValue> outputSymbols, SymbolMap<TypedValue> callSymbols, Cons vars) {
+		protected void prepareFrame(final SymbolMap<TypedValue> outputSymbols, SymbolMap<TypedValue> callSymbols, final IExecutionListener listener, Cons vars) {
 			// collect data, including var names
 			final Set<String> bindNames = Sets.newHashSet();
 			final List<PatternInitializerCodePair> varsToExecute = Lists.newArrayList();
@@ -306,7 +307,7 @@ public class LetExpressionFactory {
 
 			// evaluate and unpack expressions
 			for (PatternInitializerCodePair e : varsToExecute) {
-				final Frame<TypedValue> executionFrame = FrameFactory.newLocalFrame(placeholderSymbols);
+				final Frame<TypedValue> executionFrame = FrameFactory.newLocalFrame(placeholderSymbols, listener);
 				final TypedValue result = executeForSingleResult(executionFrame, e.code);
 				TypedCalcUtils.matchPattern(e.pattern, executionFrame, outputSymbols, result);
 			}
@@ -93,8 +93,8 @@ public class LibFunctional {
 				argsStack.clear();
 
 				final TypedValue target = stack.pop();
-				if (target.value instanceof PartialCallable) {
-					return ((PartialCallable)target.value).expand(args).selfValue(typeDomain);
+				if (target.value() instanceof PartialCallable) {
+					return ((PartialCallable)target.value()).expand(args).selfValue(typeDomain);
 				} else {
 					Preconditions.checkState(MetaObjectUtils.isCallable(target), "Value %s is not callable", target);
 					return new PartialCallable(target, args).selfValue(typeDomain);
@@ -108,8 +108,8 @@ public class LibFunctional {
 			protected TypedValue call(TypedValue left, TypedValue right) {
 				Preconditions.checkState(MetaObjectUtils.isCallable(right), "Value %s is not callable", right);
 
-				if (left.value instanceof ChainedCallable) {
-					return ((ChainedCallable)left.value).expand(right).selfValue(typeDomain);
+				if (left.value() instanceof ChainedCallable) {
+					return ((ChainedCallable)left.value()).expand(right).selfValue(typeDomain);
 				} else {
 					Preconditions.checkState(MetaObjectUtils.isCallable(left), "Value %s is not callable", left);
 					return new ChainedCallable(ImmutableList.of(left, right)).selfValue(typeDomain);
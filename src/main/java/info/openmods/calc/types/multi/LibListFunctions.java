@@ -5,12 +5,15 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import info.openmods.calc.Environment;
+import info.openmods.calc.ExecutionBudget;
 import info.openmods.calc.Frame;
 import info.openmods.calc.symbol.BinaryFunction;
 import info.openmods.calc.symbol.SingleReturnCallable;
 import info.openmods.calc.symbol.TernaryFunction;
 import info.openmods.calc.symbol.UnaryFunction;
 import info.openmods.calc.types.multi.TypedFunction.DispatchArg;
+import info.openmods.calc.types.multi.TypedFunction.RawArg;
+import info.openmods.calc.types.multi.TypedFunction.RawDispatchArg;
 import info.openmods.calc.types.multi.TypedFunction.RawReturn;
 import info.openmods.calc.types.multi.TypedFunction.Variant;
 import info.openmods.calc.utils.OptionalInt;
@@ -37,6 +40,15 @@ public class LibListFunctions {
 		return stack.pop();
 	}
 
+	private static boolean isVector(TypedValue value) {
+		return value.is(PersistentVector.class);
+	}
+
+	// vectors or lists
+	private static Iterable<TypedValue> elements(TypedValue value, TypedValue nullValue) {
+		return isVector(value)? value.as(PersistentVector.class) : Cons.toIterable(value, nullValue);
+	}
+
 	private interface KeyFunction {
 		public TypedValue apply(TypedValue value);
 	}
@@ -78,6 +90,15 @@ public class LibListFunctions {
 				final MetaObject.SlotCall slotCall = getCallableSlot(functor);
 
 				final Stack<TypedValue> stack = frame.stack();
+				if (isVector(list)) {
+					final PersistentVector.Builder result = PersistentVector.builder();
+					for (TypedValue e : list.as(PersistentVector.class)) {
+						result.add(executeUnaryCallable(frame, functor, slotCall, e));
+						stack.checkIsEmpty();
+					}
+					return domain.create(PersistentVector.class, result.build());
+				}
+
 				return new Cons.RecursiveVisitor(nullValue) {
 					@Override
 					protected TypedValue processValue(TypedValue head, TypedValue tail) {
@@ -95,6 +116,16 @@ public class LibListFunctions {
 				final MetaObject.SlotCall slotCall = getCallableSlot(predicate);
 
 				final Stack<TypedValue> stack = frame.stack();
+				if (isVector(list)) {
+					final PersistentVector.Builder result = PersistentVector.builder();
+					for (TypedValue e : list.as(PersistentVector.class)) {
+						final TypedValue shouldKeep = executeUnaryCallable(frame, predicate, slotCall, e);
+						if (MetaObjectUtils.boolValue(frame, shouldKeep)) result.add(e);
+						stack.checkIsEmpty();
+					}
+					return domain.create(PersistentVector.class, result.build());
+				}
+
 				return new Cons.RecursiveVisitor(nullValue) {
 					@Override
 					protected TypedValue processValue(TypedValue head, TypedValue tail) {
@@ -113,6 +144,17 @@ public class LibListFunctions {
 				final MetaObject.SlotCall slotCall = functor.getMetaObject().slotCall;
 				final Stack<TypedValue> stack = frame.stack();
 
+				if (isVector(list)) {
+					TypedValue result = initialValue;
+					for (TypedValue e : list.as(PersistentVector.class)) {
+						stack.push(result);
+						stack.push(e);
+						slotCall.call(functor, OptionalInt.TWO, OptionalInt.ONE, frame);
+						result = stack.pop();
+					}
+					return result;
+				}
+
 				return new Cons.RecursiveVisitor(nullValue) {
 					private TypedValue result = initialValue;
 
@@ -265,7 +307,10 @@ public class LibListFunctions {
 			}
 		});
 
-		env.setGlobalSymbol("range", new SimpleTypedFunction(domain) {
+		abstract class RangeFunction extends SimpleTypedFunction {
+			public RangeFunction() {
+				super(domain);
+			}
 
 			@Variant
 			@RawReturn
@@ -287,35 +332,55 @@ public class LibListFunctions {
 
 			private TypedValue range(int start, int stop, int step) {
 				Preconditions.checkState(step != 0, "Step cannot be 0");
+				// fail before building temporary list
+				ExecutionBudget.checkAllocation(Math.max(0, ((long)stop - start + step + (step > 0? -1 : 1)) / step));
 				final List<TypedValue> result = Lists.newArrayList();
 
 				if (stop >= start) {
-					if (step < 0) return nullValue;
-
-					for (int i = start; i < stop; i += step)
-						result.add(domain.create(BigInteger.class, BigInteger.valueOf(i)));
+					if (step > 0) {
+						for (int i = start; i < stop; i += step)
+							result.add(domain.create(BigInteger.class, BigInteger.valueOf(i)));
+					}
 				} else {
-					if (step > 0) return nullValue;
-
-					for (int i = start; i > stop; i += step)
-						result.add(domain.create(BigInteger.class, BigInteger.valueOf(i)));
+					if (step < 0) {
+						for (int i = start; i > stop; i += step)
+							result.add(domain.create(BigInteger.class, BigInteger.valueOf(i)));
+					}
 				}
 
-				return Cons.createList(result, nullValue);
+				return createResult(result);
+			}
+
+			protected abstract TypedValue createResult(List<TypedValue> values);
+		}
+
+		env.setGlobalSymbol("range", new RangeFunction() {
+			@Override
+			protected TypedValue createResult(List<TypedValue> values) {
+				return Cons.createList(values, nullValue);
+			}
+		});
+
+		env.setGlobalSymbol("vrange", new RangeFunction() {
+			@Override
+			protected TypedValue createResult(List<TypedValue> values) {
+				return domain.create(PersistentVector.class, PersistentVector.create(values));
 			}
 		});
 
 		env.setGlobalSymbol("zip", new BinaryFunction.Direct<TypedValue>() {
 			@Override
 			protected TypedValue call(TypedValue left, TypedValue right) {
-				final Iterator<TypedValue> leftIt = Cons.toIterable(left, nullValue).iterator();
-				final Iterator<TypedValue> rightIt = Cons.toIterable(right, nullValue).iterator();
+				final Iterator<TypedValue> leftIt = elements(left, nullValue).iterator();
+				final Iterator<TypedValue> rightIt = elements(right, nullValue).iterator();
 
 				final List<TypedValue> result = Lists.newArrayList();
 				while (leftIt.hasNext() && rightIt.hasNext()) {
 					result.add(Cons.create(domain, leftIt.next(), rightIt.next()));
 				}
 
+				// vector if any of args is vector
+				if (isVector(left) || isVector(right)) return domain.create(PersistentVector.class, PersistentVector.create(result));
 				return Cons.createList(result, nullValue);
 			}
 		});
@@ -354,7 +419,7 @@ public class LibListFunctions {
 
 				final TypedValue list = stack.pop();
 
-				List<TypedValue> elements = Lists.newArrayList(Cons.toIterable(list, nullValue));
+				List<TypedValue> elements = Lists.newArrayList(elements(list, nullValue));
 
 				final TypedValue keyFunctionArg = kwdArgs.get("key");
 				final KeyFunction keyFunction = extractKeyFunction(frame, stack, keyFunctionArg);
@@ -368,6 +433,7 @@ public class LibListFunctions {
 				if (reverse != null && MetaObjectUtils.boolValue(frame, reverse))
 					elements = Lists.reverse(elements);
 
+				if (isVector(list)) return domain.create(PersistentVector.class, PersistentVector.create(elements));
 				return Cons.createList(elements, nullValue);
 			}
 
@@ -419,6 +485,43 @@ public class LibListFunctions {
 				return result;
 			}
 		});
+
+		env.setGlobalSymbol("tovector", new SimpleTypedFunction(domain) {
+			@Variant
+			@RawReturn
+			public TypedValue convert(@DispatchArg PersistentVector vector) {
+				return domain.create(PersistentVector.class, vector);
+			}
+
+			@Variant
+			public PersistentVector convert(@RawDispatchArg({ Cons.class, UnitType.class }) TypedValue list) {
+				return PersistentVector.fromCons(list, nullValue);
+			}
+		});
+
+		env.setGlobalSymbol("tolist", new SimpleTypedFunction(domain) {
+			@Variant
+			@RawReturn
+			public TypedValue convert(@DispatchArg PersistentVector vector) {
+				return vector.toCons(nullValue);
+			}
+
+			@Variant
+			@RawReturn
+			public TypedValue convert(@RawDispatchArg({ Cons.class, UnitType.class }) TypedValue list) {
+				return list;
+			}
+		});
+
+		env.setGlobalSymbol("append", new SimpleTypedFunction(domain) {
+			@Variant
+			public PersistentVector append(PersistentVector vector, @RawArg TypedValue... values) {
+				PersistentVector result = vector;
+				for (TypedValue value : values)
+					result = result.append(value);
+				return result;
+			}
+		});
 	}
 
 }
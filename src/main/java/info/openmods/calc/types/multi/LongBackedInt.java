@@ -0,0 +1,53 @@
+package info.openmods.calc.types.multi;
+
+import java.math.BigInteger;
+
+// int value that fits in long, BigInteger is only created when someone asks for it
+final class LongBackedInt extends TypedValue {
+
+	final long longValue;
+
+	// benign race: BigInteger is immutable, so worst case is few extra allocations
+	private BigInteger bigValue;
+
+	LongBackedInt(TypeDomain domain, int typeId, long longValue) {
+		super(domain, BigInteger.class, typeId);
+		this.longValue = longValue;
+	}
+
+	LongBackedInt(TypeDomain domain, int typeId, BigInteger value) {
+		super(domain, BigInteger.class, typeId);
+		this.longValue = value.longValueExact();
+		this.bigValue = value;
+	}
+
+	@Override
+	public Object value() {
+		BigInteger result = bigValue;
+		if (result == null) {
+			result = BigInteger.valueOf(longValue);
+			bigValue = result;
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof LongBackedInt) {
+			final LongBackedInt other = (LongBackedInt)obj;
+			return this.domain == other.domain && this.longValue == other.longValue;
+		}
+
+		return super.equals(obj);
+	}
+
+	// must match values created with plain BigInteger (like ones with custom metaobject)
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
+	static boolean fits(BigInteger value) {
+		return value.bitLength() < Long.SIZE;
+	}
+}
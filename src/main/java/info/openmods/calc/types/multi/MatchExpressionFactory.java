@@ -114,7 +114,7 @@ public class MatchExpressionFactory {
 
 		@Override
 		protected Optional<Code> matchGuard(Frame<TypedValue> env, SymbolMap<TypedValue> output) {
-			final Frame<TypedValue> clauseEnv = FrameFactory.createProtectionFrame(output);
+			final Frame<TypedValue> clauseEnv = FrameFactory.createProtectionFrame(output, env.listener());
 			final Stack<TypedValue> clauseEnvStack = clauseEnv.stack();
 
 			for (GuardedAction clause : guardedActions) {
@@ -424,7 +424,7 @@ public class MatchExpressionFactory {
 		public void call(Frame<TypedValue> frame, OptionalInt argumentsCount, OptionalInt returnsCount) {
 			final Stack<TypedValue> stack = frame.stack();
 
-			final Frame<TypedValue> env = FrameFactory.createProtectionFrame(defineScope);
+			final Frame<TypedValue> env = FrameFactory.createProtectionFrame(defineScope, frame.listener());
 			for (PatternMatcher matchCase : cases) {
 				final int args = matchCase.requiredArgs();
 				if (argumentsCount.isPresent()) {
@@ -7,6 +7,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.ObjectArrays;
 import info.openmods.calc.Frame;
 import info.openmods.calc.FrameFactory;
 import info.openmods.calc.utils.MiscUtils;
@@ -55,6 +56,10 @@ public class MetaObject {
 		this.slotDir = builder.slotDir;
 		this.slotsBinaryOps = ImmutableMap.copyOf(builder.slotsBinaryOps);
 		this.slotsUnaryOps = ImmutableMap.copyOf(builder.slotsUnaryOps);
+		final Map<String, Integer> operatorIndices = operatorSlotIndices;
+		this.indexedOperatorCount = operatorIndices.size();
+		this.binaryOpSlots = createIndexedSlots(this.slotsBinaryOps, operatorIndices, SlotBinaryOp.class);
+		this.unaryOpSlots = createIndexedSlots(this.slotsUnaryOps, operatorIndices, SlotUnaryOp.class);
 	}
 
 	private static <T extends Slot> T update(T update, T original) {
@@ -81,6 +86,66 @@ public class MetaObject {
 		this.slotDir = update(builder.slotDir, prev.slotDir);
 		this.slotsBinaryOps = update(builder.slotsBinaryOps, prev.slotsBinaryOps);
 		this.slotsUnaryOps = update(builder.slotsUnaryOps, prev.slotsUnaryOps);
+		final Map<String, Integer> operatorIndices = operatorSlotIndices;
+		this.indexedOperatorCount = operatorIndices.size();
+		this.binaryOpSlots = createIndexedSlots(this.slotsBinaryOps, operatorIndices, SlotBinaryOp.class);
+		this.unaryOpSlots = createIndexedSlots(this.slotsUnaryOps, operatorIndices, SlotUnaryOp.class);
+	}
+
+	// only ids of constructed operators - other keys (like ones set from scripts) stay only in slot maps
+	private static volatile ImmutableMap<String, Integer> operatorSlotIndices = ImmutableMap.of();
+
+	// index of operator in arrays used by getBinaryOpSlot and getUnaryOpSlot, should be called once, when operator is created
+	public static synchronized int registerOperatorSlot(String op) {
+		final Integer index = operatorSlotIndices.get(op);
+		if (index != null) return index;
+
+		final int newIndex = operatorSlotIndices.size();
+		operatorSlotIndices = ImmutableMap.<String, Integer> builder().putAll(operatorSlotIndices).put(op, newIndex).build();
+		return newIndex;
+	}
+
+	private static <T extends Slot> T[] createIndexedSlots(Map<String, T> slots, Map<String, Integer> operatorIndices, Class<T> slotCls) {
+		int size = 0;
+		for (String op : slots.keySet()) {
+			final Integer index = operatorIndices.get(op);
+			if (index != null) size = Math.max(size, index + 1);
+		}
+
+		final T[] result = ObjectArrays.newArray(slotCls, size);
+		for (Map.Entry<String, T> e : slots.entrySet()) {
+			final Integer index = operatorIndices.get(e.getKey());
+			if (index != null) result[index] = e.getValue();
+		}
+
+		return result;
+	}
+
+	// operators registered after this object was built are not in arrays
+	private final int indexedOperatorCount;
+
+	// same content as slotsBinaryOps and slotsUnaryOps, but indexed with registerOperatorSlot
+	private final SlotBinaryOp[] binaryOpSlots;
+
+	private final SlotUnaryOp[] unaryOpSlots;
+
+	// cheap check for most common case, when there are no operator overrides at all
+	public boolean hasBinaryOpSlots() {
+		return !slotsBinaryOps.isEmpty();
+	}
+
+	public boolean hasUnaryOpSlots() {
+		return !slotsUnaryOps.isEmpty();
+	}
+
+	public SlotBinaryOp getBinaryOpSlot(int operatorSlotIndex, String op) {
+		if (operatorSlotIndex >= indexedOperatorCount) return slotsBinaryOps.get(op);
+		return operatorSlotIndex < binaryOpSlots.length? binaryOpSlots[operatorSlotIndex] : null;
+	}
+
+	public SlotUnaryOp getUnaryOpSlot(int operatorSlotIndex, String op) {
+		if (operatorSlotIndex >= indexedOperatorCount) return slotsUnaryOps.get(op);
+		return operatorSlotIndex < unaryOpSlots.length? unaryOpSlots[operatorSlotIndex] : null;
 	}
 
 	public interface SlotBool extends Slot {
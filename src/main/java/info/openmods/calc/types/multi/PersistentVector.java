@@ -0,0 +1,282 @@
+package info.openmods.calc.types.multi;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import info.openmods.calc.ExecutionBudget;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class PersistentVector implements Iterable<TypedValue> {
+
+	private static final int BITS = 5;
+
+	private static final int WIDTH = 1 << BITS;
+
+	private static final int MASK = WIDTH - 1;
+
+	private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+	private static final Object[] EMPTY_TAIL = new Object[0];
+
+	public static final PersistentVector EMPTY = new PersistentVector(0, BITS, EMPTY_NODE, EMPTY_TAIL, 0, 0);
+
+	// number of elements in storage (may be more than visible in this vector, if it's slice)
+	private final int storageSize;
+
+	private final int shift;
+
+	private final Object[] root;
+
+	private final Object[] tail;
+
+	private final int offset;
+
+	private final int size;
+
+	private PersistentVector(int storageSize, int shift, Object[] root, Object[] tail, int offset, int size) {
+		this.storageSize = storageSize;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	private static int tailOffset(int storageSize) {
+		return storageSize == 0? 0 : ((storageSize - 1) >>> BITS) << BITS;
+	}
+
+	public static PersistentVector create(List<TypedValue> elements) {
+		final Builder builder = new Builder();
+		for (TypedValue e : elements)
+			builder.add(e);
+		return builder.build();
+	}
+
+	public static PersistentVector create(TypedValue... elements) {
+		return create(Arrays.asList(elements));
+	}
+
+	public static class Builder {
+		private final List<Object[]> leaves = Lists.newArrayList();
+
+		private Object[] currentLeaf = new Object[WIDTH];
+
+		private int currentLeafSize;
+
+		private TypeDomain domain;
+
+		public Builder add(TypedValue value) {
+			Preconditions.checkNotNull(value);
+			if (domain == null) domain = value.domain;
+			else Preconditions.checkArgument(domain == value.domain, "Mixed domain on %s", value);
+
+			if (currentLeafSize == WIDTH) {
+				leaves.add(currentLeaf);
+				currentLeaf = new Object[WIDTH];
+				currentLeafSize = 0;
+			}
+
+			currentLeaf[currentLeafSize++] = value;
+			return this;
+		}
+
+		public Builder addAll(Iterable<TypedValue> values) {
+			for (TypedValue value : values)
+				add(value);
+			return this;
+		}
+
+		public PersistentVector build() {
+			final int size = leaves.size() * WIDTH + currentLeafSize;
+			if (size == 0) return EMPTY;
+
+			ExecutionBudget.allocate(size);
+
+			// last (possibly full) chunk always goes to tail
+			final Object[] tail = Arrays.copyOf(currentLeaf, currentLeafSize);
+
+			List<Object[]> level = leaves;
+			int shift = BITS;
+			while (level.size() > WIDTH) {
+				final List<Object[]> parents = Lists.newArrayList();
+				for (int i = 0; i < level.size(); i += WIDTH) {
+					final Object[] parent = new Object[WIDTH];
+					final int count = Math.min(WIDTH, level.size() - i);
+					for (int j = 0; j < count; j++)
+						parent[j] = level.get(i + j);
+					parents.add(parent);
+				}
+				level = parents;
+				shift += BITS;
+			}
+
+			final Object[] root = new Object[WIDTH];
+			for (int i = 0; i < level.size(); i++)
+				root[i] = level.get(i);
+
+			return new PersistentVector(size, shift, root, tail, 0, size);
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private Object[] leafFor(int storageIndex) {
+		if (storageIndex >= tailOffset(storageSize)) return tail;
+
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS)
+			node = (Object[])node[(storageIndex >>> level) & MASK];
+
+		return node;
+	}
+
+	public TypedValue get(int index) {
+		Preconditions.checkElementIndex(index, size);
+		final int storageIndex = offset + index;
+		return (TypedValue)leafFor(storageIndex)[storageIndex & MASK];
+	}
+
+	// shares storage with this vector, bounds work like in List.subList
+	public PersistentVector slice(int from, int to) {
+		Preconditions.checkPositionIndexes(from, to, size);
+		if (from == 0 && to == size) return this;
+		if (from == to) return EMPTY;
+		return new PersistentVector(storageSize, shift, root, tail, offset + from, to - from);
+	}
+
+	public PersistentVector append(TypedValue value) {
+		Preconditions.checkNotNull(value);
+		if (size > 0) Preconditions.checkArgument(value.domain == get(0).domain, "Mixed domain on %s", value);
+
+		// slice that ends before end of storage - can't reuse it, since other vectors may use rest of storage
+		if (offset + size != storageSize) return builder().addAll(this).add(value).build();
+
+		ExecutionBudget.allocate(1);
+
+		if (storageSize - tailOffset(storageSize) < WIDTH) {
+			final Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+			newTail[tail.length] = value;
+			return new PersistentVector(storageSize + 1, shift, root, newTail, offset, size + 1);
+		}
+
+		final Object[] newRoot;
+		int newShift = shift;
+		if ((storageSize >>> BITS) > (1 << shift)) {
+			// root is full, add new level
+			newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			newRoot[1] = newPath(shift, tail);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root, tail);
+		}
+
+		return new PersistentVector(storageSize + 1, newShift, newRoot, new Object[] { value }, offset, size + 1);
+	}
+
+	private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+		final int subIndex = ((storageSize - 1) >>> level) & MASK;
+		final Object[] result = parent.clone();
+
+		final Object[] nodeToInsert;
+		if (level == BITS) {
+			nodeToInsert = tailNode;
+		} else {
+			final Object[] child = (Object[])parent[subIndex];
+			nodeToInsert = child != null? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+		}
+
+		result[subIndex] = nodeToInsert;
+		return result;
+	}
+
+	private static Object[] newPath(int level, Object[] node) {
+		if (level == 0) return node;
+		final Object[] result = new Object[WIDTH];
+		result[0] = newPath(level - BITS, node);
+		return result;
+	}
+
+	@Override
+	public Iterator<TypedValue> iterator() {
+		return new Iterator<TypedValue>() {
+			private int index = offset;
+
+			private final int end = offset + size;
+
+			private Object[] leaf = size > 0? leafFor(offset) : null;
+
+			@Override
+			public boolean hasNext() {
+				return index < end;
+			}
+
+			@Override
+			public TypedValue next() {
+				if (index >= end) throw new NoSuchElementException();
+				if ((index & MASK) == 0 && index != offset) leaf = leafFor(index);
+				return (TypedValue)leaf[index++ & MASK];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public List<TypedValue> toList() {
+		return Lists.newArrayList(this);
+	}
+
+	public TypedValue toCons(TypedValue nullValue) {
+		return Cons.createList(toList(), nullValue);
+	}
+
+	public static PersistentVector fromCons(TypedValue list, TypedValue nullValue) {
+		return builder().addAll(Cons.toIterable(list, nullValue)).build();
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (TypedValue e : this)
+			result = 31 * result + e.hashCode();
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj instanceof PersistentVector) {
+			final PersistentVector other = (PersistentVector)obj;
+			if (this.size != other.size) return false;
+
+			final Iterator<TypedValue> thisIt = this.iterator();
+			final Iterator<TypedValue> otherIt = other.iterator();
+			while (thisIt.hasNext())
+				if (!thisIt.next().equals(otherIt.next())) return false;
+
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return toList().toString();
+	}
+}
@@ -77,7 +77,7 @@ public class PromiseExpressionFactory {
 		@Override
 		public void call(Frame<TypedValue> frame) {
 			if (!value.isPresent()) {
-				final Frame<TypedValue> executionFrame = FrameFactory.newLocalFrame(scope);
+				final Frame<TypedValue> executionFrame = FrameFactory.newLocalFrame(scope, frame.listener());
 
 				code.execute(executionFrame);
 
@@ -17,4 +17,15 @@ public abstract class SimpleTypedFunction implements ICallable<TypedValue> {
 		handler.call(frame, argumentsCount, returnsCount);
 	}
 
+	public abstract static class Pure extends SimpleTypedFunction {
+		public Pure(TypeDomain domain) {
+			super(domain);
+		}
+
+		@Override
+		public boolean isPure() {
+			return true;
+		}
+	}
+
 }
@@ -1,32 +1,44 @@
 package info.openmods.calc.types.multi;
 
-import com.google.common.collect.Maps;
-import java.util.Map;
+import com.google.common.collect.MapMaker;
+import java.util.concurrent.ConcurrentMap;
 
 public class Symbol {
 	public final String value;
 
+	// canonical wrapper, see CanonicalValues.forSymbols. Racy, but all instances are equivalent
+	private TypedValue wrapped;
+
 	private Symbol(String value) {
 		this.value = value;
 	}
 
-	private static Map<String, Symbol> pool = Maps.newIdentityHashMap();
+	// weak values: symbol is removed from pool once nothing else references it, and new instance will be created on next request
+	// while symbol is reachable, it's the only instance for given value, so identity comparisons stay valid
+	private static final ConcurrentMap<String, Symbol> pool = new MapMaker().weakValues().makeMap();
 
 	public static Symbol get(String value) {
-		value = value.intern();
-		Symbol result = pool.get(value);
-		if (result == null) {
-			result = new Symbol(value);
-			pool.put(value, result);
-		}
+		final Symbol existing = pool.get(value);
+		if (existing != null) return existing;
 
-		return result;
+		final Symbol newSymbol = new Symbol(value);
+		final Symbol racedSymbol = pool.putIfAbsent(value, newSymbol);
+		return racedSymbol != null? racedSymbol : newSymbol;
 	}
 
 	public static TypedValue get(TypeDomain domain, String value) {
 		return domain.create(Symbol.class, get(value));
 	}
 
+	TypedValue getWrapped(TypeDomain domain) {
+		TypedValue result = wrapped;
+		if (result == null || result.domain != domain) {
+			result = new TypedValue(domain, Symbol.class, domain.getTypeId(Symbol.class), this);
+			wrapped = result;
+		}
+		return result;
+	}
+
 	@Override
 	public String toString() {
 		return "#" + value;
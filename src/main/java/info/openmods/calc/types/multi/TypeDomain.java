@@ -4,17 +4,20 @@ import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Table;
 import com.google.common.reflect.TypeToken;
 import info.openmods.calc.utils.reflection.TypeVariableHolder;
 import info.openmods.calc.utils.reflection.TypeVariableHolderFiller;
 import java.lang.reflect.TypeVariable;
+import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
 
 public class TypeDomain {
 
-	private interface RawConverter {
+	interface RawConverter {
 		public Object convert(Object value);
 	}
 
@@ -73,11 +76,14 @@ public class TypeDomain {
 	}
 
 	private static class TypeInfo {
+		public final int id;
 		public final String name;
 		public final MetaObject defaultMetaObject;
 		public final TypedValue defaultValue;
+		public ICanonicalValues<?> canonicalValues;
 
-		public TypeInfo(String name, MetaObject defaultMetaObject, TypedValue defaultValue) {
+		public TypeInfo(int id, String name, MetaObject defaultMetaObject, TypedValue defaultValue) {
+			this.id = id;
 			this.name = name;
 			this.defaultMetaObject = defaultMetaObject;
 			this.defaultValue = defaultValue;
@@ -87,6 +93,12 @@ public class TypeDomain {
 
 	private final Map<Class<?>, TypeInfo> allowedTypes = Maps.newIdentityHashMap();
 
+	// index is type id, used by dense dispatch tables
+	private final List<Class<?>> typesById = Lists.newArrayList();
+
+	// incremented on every change that may invalidate dispatch tables (types, conversions and coercion rules)
+	private int version;
+
 	private final Table<Class<?>, Class<?>, RawConverter> converters = HashBasedTable.create();
 
 	public TypeDomain registerType(Class<?> type) {
@@ -102,15 +114,47 @@ public class TypeDomain {
 	}
 
 	public <T> TypeDomain registerType(Class<T> type, String shortName, MetaObject defaultMetaObject, T defaultValue) {
+		final TypeInfo prevInfo = allowedTypes.get(type);
+		final int id;
+		if (prevInfo != null) {
+			id = prevInfo.id;
+		} else {
+			id = typesById.size();
+			typesById.add(type);
+		}
+
 		if (defaultValue == null) {
-			allowedTypes.put(type, new TypeInfo(shortName, defaultMetaObject, null));
+			allowedTypes.put(type, new TypeInfo(id, shortName, defaultMetaObject, null));
 		} else {
-			final TypedValue defaultWrappedValue = new TypedValue(this, type, defaultValue);
-			allowedTypes.put(type, new TypeInfo(shortName, defaultMetaObject, defaultWrappedValue));
+			final TypedValue defaultWrappedValue = new TypedValue(this, type, id, defaultValue);
+			allowedTypes.put(type, new TypeInfo(id, shortName, defaultMetaObject, defaultWrappedValue));
 		}
+		version++;
 		return this;
 	}
 
+	private TypeInfo getTypeInfo(Class<?> type) {
+		final TypeInfo typeInfo = allowedTypes.get(type);
+		Preconditions.checkState(typeInfo != null, "Type '%s' is not allowed in domain", type);
+		return typeInfo;
+	}
+
+	int version() {
+		return version;
+	}
+
+	int typeCount() {
+		return typesById.size();
+	}
+
+	Class<?> getTypeForId(int id) {
+		return typesById.get(id);
+	}
+
+	int getTypeId(Class<?> type) {
+		return getTypeInfo(type).id;
+	}
+
 	public boolean isKnownType(Class<?> type) {
 		return allowedTypes.containsKey(type);
 	}
@@ -142,6 +186,7 @@ public class TypeDomain {
 		checkIsKnownType(target);
 		final RawConverter prev = converters.put(source, target, new CastConverter<T>(target));
 		Preconditions.checkState(prev == null, "Duplicate registration for types (%s,%s)", source, target);
+		version++;
 		return this;
 	}
 
@@ -150,6 +195,7 @@ public class TypeDomain {
 		checkIsKnownType(target);
 		final RawConverter prev = converters.put(source, target, new WrappedConverter<S, T>(source, converter));
 		Preconditions.checkState(prev == null, "Duplicate registration for types (%s,%s)", source, target);
+		version++;
 		return this;
 	}
 
@@ -167,6 +213,10 @@ public class TypeDomain {
 		return converter;
 	}
 
+	RawConverter findConverter(Class<?> from, Class<?> to) {
+		return converters.get(from, to);
+	}
+
 	public boolean hasConversion(Class<?> from, Class<?> to) {
 		return converters.contains(from, to);
 	}
@@ -179,15 +229,15 @@ public class TypeDomain {
 		Preconditions.checkArgument(value.domain == this, "Mixed domain");
 		if (value.type == type) return value;
 		final RawConverter converter = getConverter(value, type);
-		final Object convertedValue = converter.convert(value.value);
-		return new TypedValue(this, type, convertedValue);
+		final Object convertedValue = converter.convert(value.value());
+		return wrap(type, convertedValue);
 	}
 
 	public <T> T unwrap(TypedValue value, Class<T> type) {
 		Preconditions.checkArgument(value.domain == this, "Mixed domain");
 		if (value.type == type) return value.as(type);
 		final RawConverter converter = getConverter(value, type);
-		final Object convertedValue = converter.convert(value.value);
+		final Object convertedValue = converter.convert(value.value());
 		return type.cast(convertedValue);
 	}
 
@@ -217,6 +267,7 @@ public class TypeDomain {
 
 		final Coercion prev = coercionRules.put(left, right, rule);
 		Preconditions.checkState(prev == null || prev == rule, "Duplicate coercion rule for (%s,%s): %s -> %s", left, right, rule);
+		version++;
 		return this;
 	}
 
@@ -239,14 +290,44 @@ public class TypeDomain {
 		return typeInfo.defaultValue;
 	}
 
+	public <T> TypeDomain registerCanonicalValues(Class<T> type, ICanonicalValues<T> values) {
+		getTypeInfo(type).canonicalValues = values;
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	private TypedValue wrap(Class<?> type, Object value) {
+		final TypeInfo typeInfo = getTypeInfo(type);
+		final ICanonicalValues<Object> canonicalValues = (ICanonicalValues<Object>)typeInfo.canonicalValues;
+		if (canonicalValues != null && type.isInstance(value)) {
+			final TypedValue canonicalValue = canonicalValues.get(value);
+			if (canonicalValue != null) return canonicalValue;
+		}
+
+		if (value instanceof BigInteger && LongBackedInt.fits((BigInteger)value)) return new LongBackedInt(this, typeInfo.id, (BigInteger)value);
+		return new TypedValue(this, type, typeInfo.id, value);
+	}
+
+	// same result as create(BigInteger.class, BigInteger.valueOf(value)), minus BigInteger allocation
+	TypedValue createInt(long value) {
+		final TypeInfo typeInfo = getTypeInfo(BigInteger.class);
+		final ICanonicalValues<?> canonicalValues = typeInfo.canonicalValues;
+		if (canonicalValues instanceof CanonicalValues.IntegerRange) {
+			final TypedValue canonicalValue = ((CanonicalValues.IntegerRange)canonicalValues).get(value);
+			if (canonicalValue != null) return canonicalValue;
+		} else if (canonicalValues != null) {
+			return wrap(BigInteger.class, BigInteger.valueOf(value));
+		}
+
+		return new LongBackedInt(this, typeInfo.id, value);
+	}
+
 	public <T> TypedValue create(Class<T> type, T value) {
-		checkIsKnownType(type);
-		return new TypedValue(this, type, value);
+		return wrap(type, value);
 	}
 
 	public <T> TypedValue create(Class<T> type, T value, MetaObject metaObject) {
-		checkIsKnownType(type);
-		return new TypedValue(this, type, value, metaObject);
+		return new TypedValue(this, type, getTypeId(type), value, metaObject);
 	}
 
 	public <T> TypedValue castAndCreate(Class<T> type, Object value) {
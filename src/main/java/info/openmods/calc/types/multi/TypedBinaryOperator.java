@@ -13,6 +13,7 @@ import info.openmods.calc.executable.BinaryOperator;
 import info.openmods.calc.parsing.ast.OperatorAssociativity;
 import info.openmods.calc.types.multi.MetaObject.SlotBinaryOp;
 import info.openmods.calc.types.multi.TypeDomain.Coercion;
+import info.openmods.calc.types.multi.TypeDomain.RawConverter;
 import info.openmods.calc.utils.Stack;
 import info.openmods.calc.utils.reflection.TypeVariableHolder;
 import info.openmods.calc.utils.reflection.TypeVariableHolderFiller;
@@ -37,6 +38,11 @@ public class TypedBinaryOperator {
 		public O apply(L left, R right);
 	}
 
+	// like ICoercedOperation, but arguments are not unwrapped, so operation can use internal representation of value
+	public interface IRawCoercedOperation {
+		public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right);
+	}
+
 	public interface IDefaultOperation {
 		public Optional<TypedValue> apply(TypeDomain domain, TypedValue left, TypedValue right);
 	}
@@ -47,6 +53,18 @@ public class TypedBinaryOperator {
 		public void validate(TypeDomain domain);
 	}
 
+	// operates on raw values already converted to common type
+	private interface ICoercedGenericOperation {
+		public TypedValue apply(TypeDomain domain, Object left, Object right);
+
+		// used when both arguments already have common type
+		public default TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
+			return apply(domain, left.value(), right.value());
+		}
+
+		public void validate(TypeDomain domain);
+	}
+
 	public static class Builder {
 
 		private static class TypeVariableHolders {
@@ -85,7 +103,7 @@ public class TypedBinaryOperator {
 
 		private final OperatorAssociativity associativity;
 
-		private final Map<Class<?>, IGenericOperation> coercedOperations = Maps.newHashMap();
+		private final Map<Class<?>, ICoercedGenericOperation> coercedOperations = Maps.newHashMap();
 
 		private final Table<Class<?>, Class<?>, IGenericOperation> variantOperations = HashBasedTable.create();
 
@@ -93,6 +111,8 @@ public class TypedBinaryOperator {
 
 		private boolean addMetaObjectOverride = true;
 
+		private boolean isPure;
+
 		public Builder(String id, int precedence, OperatorAssociativity associativity) {
 			this.id = id;
 			this.precedence = precedence;
@@ -108,8 +128,8 @@ public class TypedBinaryOperator {
 			return (Class<T>)token.resolveType(var).getRawType();
 		}
 
-		private Builder registerCoercedOperation(Class<?> type, IGenericOperation op) {
-			final IGenericOperation prev = coercedOperations.put(type, op);
+		private Builder registerCoercedOperation(Class<?> type, ICoercedGenericOperation op) {
+			final ICoercedGenericOperation prev = coercedOperations.put(type, op);
 			Preconditions.checkState(prev == null, "Duplicate operation registration on operator '%s', type: %s", id, type);
 			return this;
 		}
@@ -118,12 +138,12 @@ public class TypedBinaryOperator {
 			return registerCoercedOperation(type, createOperationWrapper(type, op));
 		}
 
-		private static <T> IGenericOperation createOperationWrapper(final Class<T> type, final ICoercedOperation<? super T> op) {
-			return new IGenericOperation() {
+		private static <T> ICoercedGenericOperation createOperationWrapper(final Class<T> type, final ICoercedOperation<? super T> op) {
+			return new ICoercedGenericOperation() {
 				@Override
-				public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
-					final T leftValue = left.unwrap(type);
-					final T rightValue = right.unwrap(type);
+				public TypedValue apply(TypeDomain domain, Object left, Object right) {
+					final T leftValue = type.cast(left);
+					final T rightValue = type.cast(right);
 					return op.apply(domain, leftValue, rightValue);
 				}
 
@@ -134,16 +154,40 @@ public class TypedBinaryOperator {
 			};
 		}
 
+		public Builder registerRawOperation(Class<?> type, IRawCoercedOperation op) {
+			return registerCoercedOperation(type, createOperationWrapper(type, op));
+		}
+
+		private static ICoercedGenericOperation createOperationWrapper(final Class<?> type, final IRawCoercedOperation op) {
+			return new ICoercedGenericOperation() {
+				@Override
+				public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
+					return op.apply(domain, left, right);
+				}
+
+				@Override
+				public TypedValue apply(TypeDomain domain, Object left, Object right) {
+					// at least one argument was converted, so it has to be wrapped again
+					return op.apply(domain, domain.castAndCreate(type, left), domain.castAndCreate(type, right));
+				}
+
+				@Override
+				public void validate(TypeDomain domain) {
+					Preconditions.checkState(domain.isKnownType(type), "Type %s not in domain", type);
+				}
+			};
+		}
+
 		public <T, O> Builder registerOperation(Class<T> type, Class<O> output, ISimpleCoercedOperation<? super T, ? extends O> op) {
 			return registerCoercedOperation(type, createOperationWrapper(type, output, op));
 		}
 
-		private static <T, O> IGenericOperation createOperationWrapper(final Class<T> type, final Class<O> output, final ISimpleCoercedOperation<? super T, ? extends O> op) {
-			return new IGenericOperation() {
+		private static <T, O> ICoercedGenericOperation createOperationWrapper(final Class<T> type, final Class<O> output, final ISimpleCoercedOperation<? super T, ? extends O> op) {
+			return new ICoercedGenericOperation() {
 				@Override
-				public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
-					final T leftValue = left.unwrap(type);
-					final T rightValue = right.unwrap(type);
+				public TypedValue apply(TypeDomain domain, Object left, Object right) {
+					final T leftValue = type.cast(left);
+					final T rightValue = type.cast(right);
 					final O result = op.apply(leftValue, rightValue);
 					return domain.create(output, result);
 				}
@@ -240,28 +284,77 @@ public class TypedBinaryOperator {
 			return this;
 		}
 
+		public Builder setPure() {
+			this.isPure = true;
+			return this;
+		}
+
 		public Builder setNoMetaObjectOverride() {
 			this.addMetaObjectOverride = false;
 			return this;
 		}
 
 		public BinaryOperator<TypedValue> build(TypeDomain domain) {
-			for (IGenericOperation op : coercedOperations.values())
+			for (ICoercedGenericOperation op : coercedOperations.values())
 				op.validate(domain);
 
 			for (IGenericOperation op : variantOperations.values())
 				op.validate(domain);
 
-			final Logic logic = new Logic(id, domain, coercedOperations, variantOperations, defaultOperation);
+			final Logic logic = new Logic(id, domain, coercedOperations, variantOperations, defaultOperation, isPure);
 
 			return addMetaObjectOverride? new Meta(id, precedence, associativity, logic) : new NonMeta(id, precedence, associativity, logic);
 		}
 	}
 
+	// coerced operation with conversions resolved for single pair of types
+	private static class ResolvedCoercedOperation implements IGenericOperation {
+		private final ICoercedGenericOperation op;
+
+		// null if no conversion is needed
+		private final RawConverter leftConverter;
+
+		private final RawConverter rightConverter;
+
+		public ResolvedCoercedOperation(ICoercedGenericOperation op, RawConverter leftConverter, RawConverter rightConverter) {
+			this.op = op;
+			this.leftConverter = leftConverter;
+			this.rightConverter = rightConverter;
+		}
+
+		@Override
+		public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
+			if (leftConverter == null && rightConverter == null) return op.apply(domain, left, right);
+			final Object leftValue = leftConverter != null? leftConverter.convert(left.value()) : left.value();
+			final Object rightValue = rightConverter != null? rightConverter.convert(right.value()) : right.value();
+			return op.apply(domain, leftValue, rightValue);
+		}
+
+		@Override
+		public void validate(TypeDomain domain) {
+			op.validate(domain);
+		}
+	}
+
+	private static class DispatchTable {
+		public final int domainVersion;
+
+		public final int typeCount;
+
+		// indexed by (left type id * type count + right type id), null when no operation matches
+		public final IGenericOperation[] operations;
+
+		public DispatchTable(int domainVersion, int typeCount, IGenericOperation[] operations) {
+			this.domainVersion = domainVersion;
+			this.typeCount = typeCount;
+			this.operations = operations;
+		}
+	}
+
 	private static class Logic {
 		private final String id;
 
-		private final Map<Class<?>, IGenericOperation> coercedOperations;
+		private final Map<Class<?>, ICoercedGenericOperation> coercedOperations;
 
 		private final Table<Class<?>, Class<?>, IGenericOperation> variantOperations;
 
@@ -269,32 +362,64 @@ public class TypedBinaryOperator {
 
 		private final TypeDomain domain;
 
+		private final boolean isPure;
+
+		// rebuilt when types or coercion rules are registered after operator is created
+		private volatile DispatchTable dispatchTable;
+
 		private Logic(String id,
 				TypeDomain domain,
-				Map<Class<?>, IGenericOperation> coercedOperations,
+				Map<Class<?>, ICoercedGenericOperation> coercedOperations,
 				Table<Class<?>, Class<?>, IGenericOperation> variantOperations,
-				IDefaultOperation defaultOperation) {
+				IDefaultOperation defaultOperation,
+				boolean isPure) {
 			this.id = id;
+			this.isPure = isPure;
 			this.coercedOperations = ImmutableMap.copyOf(coercedOperations);
 			this.variantOperations = ImmutableTable.copyOf(variantOperations);
 			this.defaultOperation = defaultOperation;
 			this.domain = domain;
+			this.dispatchTable = createDispatchTable();
+		}
+
+		private IGenericOperation resolveOperation(Class<?> left, Class<?> right) {
+			final Coercion coercionRule = domain.getCoercionRule(left, right);
+			if (coercionRule == Coercion.TO_LEFT) {
+				final ICoercedGenericOperation op = coercedOperations.get(left);
+				if (op != null) return new ResolvedCoercedOperation(op, null, left != right? domain.findConverter(right, left) : null);
+			} else if (coercionRule == Coercion.TO_RIGHT) {
+				final ICoercedGenericOperation op = coercedOperations.get(right);
+				if (op != null) return new ResolvedCoercedOperation(op, domain.findConverter(left, right), null);
+			}
+
+			return variantOperations.get(left, right);
+		}
+
+		private DispatchTable createDispatchTable() {
+			final int domainVersion = domain.version();
+			final int typeCount = domain.typeCount();
+			final IGenericOperation[] operations = new IGenericOperation[typeCount * typeCount];
+
+			for (int left = 0; left < typeCount; left++) {
+				final Class<?> leftType = domain.getTypeForId(left);
+				for (int right = 0; right < typeCount; right++)
+					operations[left * typeCount + right] = resolveOperation(leftType, domain.getTypeForId(right));
+			}
+
+			return new DispatchTable(domainVersion, typeCount, operations);
 		}
 
 		private TypedValue execute(TypedValue left, TypedValue right) {
 			Preconditions.checkArgument(left.domain == this.domain, "Left argument belongs to different domain: %s", left);
 			Preconditions.checkArgument(right.domain == this.domain, "Right argument belongs different domain: %s", right);
 
-			final Coercion coercionRule = domain.getCoercionRule(left.type, right.type);
-			if (coercionRule == Coercion.TO_LEFT) {
-				final IGenericOperation op = coercedOperations.get(left.type);
-				if (op != null) return op.apply(domain, left, right);
-			} else if (coercionRule == Coercion.TO_RIGHT) {
-				final IGenericOperation op = coercedOperations.get(right.type);
-				if (op != null) return op.apply(domain, left, right);
+			DispatchTable dispatchTable = this.dispatchTable;
+			if (dispatchTable.domainVersion != domain.version()) {
+				dispatchTable = createDispatchTable();
+				this.dispatchTable = dispatchTable;
 			}
 
-			final IGenericOperation op = variantOperations.get(left.type, right.type);
+			final IGenericOperation op = dispatchTable.operations[left.typeId * dispatchTable.typeCount + right.typeId];
 			if (op != null) return op.apply(domain, left, right);
 
 			if (defaultOperation != null) {
@@ -309,9 +434,17 @@ public class TypedBinaryOperator {
 	private static class Meta extends BinaryOperator.StackBased<TypedValue> {
 		private final Logic logic;
 
+		private final int slotIndex;
+
 		public Meta(String id, int precedence, OperatorAssociativity associativity, Logic logic) {
 			super(id, precedence, associativity);
 			this.logic = logic;
+			this.slotIndex = MetaObject.registerOperatorSlot(id);
+		}
+
+		@Override
+		public boolean isPure() {
+			return logic.isPure;
 		}
 
 		@Override
@@ -320,7 +453,8 @@ public class TypedBinaryOperator {
 			final TypedValue right = stack.pop();
 			final TypedValue left = stack.pop();
 
-			final SlotBinaryOp slotBinaryOp = left.getMetaObject().slotsBinaryOps.get(id);
+			final MetaObject metaObject = left.getMetaObject();
+			final SlotBinaryOp slotBinaryOp = metaObject.hasBinaryOpSlots()? metaObject.getBinaryOpSlot(slotIndex, id) : null;
 			final TypedValue result;
 			if (slotBinaryOp != null) {
 				result = slotBinaryOp.op(left, right, frame);
@@ -340,6 +474,11 @@ public class TypedBinaryOperator {
 			this.logic = logic;
 		}
 
+		@Override
+		public boolean isPure() {
+			return logic.isPure;
+		}
+
 		@Override
 		public TypedValue execute(TypedValue left, TypedValue right) {
 			return logic.execute(left, right);
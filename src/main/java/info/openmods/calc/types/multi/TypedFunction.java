@@ -2,12 +2,14 @@ package info.openmods.calc.types.multi;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import com.google.common.reflect.TypeToken;
 import info.openmods.calc.Frame;
 import info.openmods.calc.symbol.ICallable;
@@ -22,6 +24,9 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -30,10 +35,10 @@ import java.lang.reflect.TypeVariable;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 public class TypedFunction {
 
@@ -221,15 +226,7 @@ public class TypedFunction {
 		}
 
 		private static TypedFunctionBody createMultiFunction(final List<TypeVariant> variants, final OptionalInt mandatoryArgNum) {
-			return new TypedFunctionBody(mandatoryArgNum) {
-				@Override
-				protected List<TypedValue> execute(TypeDomain domain, Object target, List<TypedValue> args) {
-					for (TypeVariant v : variants)
-						if (v.matchDispatchArgs(args)) return v.execute(domain, target, args);
-
-					throw new DispatchException(args);
-				}
-			};
+			return new OverloadedFunctionBody(variants, mandatoryArgNum);
 		}
 
 		private static void verifyVariants(final List<TypeVariant> variants) {
@@ -314,7 +311,8 @@ public class TypedFunction {
 	}
 
 	private interface ArgConverter {
-		public Object convert(Iterator<TypedValue> value);
+		// optional and variadic args are always last, so n-th converter always starts at n-th arg
+		public Object convert(List<TypedValue> args, int index);
 	}
 
 	private static class MandatoryArgConverter implements ArgConverter {
@@ -326,18 +324,18 @@ public class TypedFunction {
 		}
 
 		@Override
-		public Object convert(Iterator<TypedValue> value) {
-			Preconditions.checkArgument(value.hasNext(), "Missing mandatory argument");
-			final TypedValue result = value.next();
+		public Object convert(List<TypedValue> args, int index) {
+			Preconditions.checkArgument(index < args.size(), "Missing mandatory argument");
+			final TypedValue result = args.get(index);
 			return result.unwrap(cls);
 		}
 	}
 
 	private static class MandatoryRawArgConverter implements ArgConverter {
 		@Override
-		public Object convert(Iterator<TypedValue> value) {
-			Preconditions.checkArgument(value.hasNext(), "Missing mandatory argument");
-			return value.next();
+		public Object convert(List<TypedValue> args, int index) {
+			Preconditions.checkArgument(index < args.size(), "Missing mandatory argument");
+			return args.get(index);
 		}
 	}
 
@@ -350,9 +348,9 @@ public class TypedFunction {
 		}
 
 		@Override
-		public Object convert(Iterator<TypedValue> value) {
-			if (value.hasNext()) {
-				final TypedValue result = value.next();
+		public Object convert(List<TypedValue> args, int index) {
+			if (index < args.size()) {
+				final TypedValue result = args.get(index);
 				return Optional.of(result.unwrap(cls));
 			} else {
 				return Optional.absent();
@@ -362,9 +360,9 @@ public class TypedFunction {
 
 	private static class OptionalRawArgConverter implements ArgConverter {
 		@Override
-		public Object convert(Iterator<TypedValue> value) {
-			if (value.hasNext()) {
-				final TypedValue result = value.next();
+		public Object convert(List<TypedValue> args, int index) {
+			if (index < args.size()) {
+				final TypedValue result = args.get(index);
 				return Optional.of(result);
 			} else {
 				return Optional.absent();
@@ -381,12 +379,12 @@ public class TypedFunction {
 		}
 
 		@Override
-		public Object convert(Iterator<TypedValue> value) {
-			final List<TypedValue> values = Lists.newArrayList(value);
+		public Object convert(List<TypedValue> args, int index) {
+			final int count = Math.max(args.size() - index, 0);
 
-			final Object result = Array.newInstance(cls, values.size());
-			for (int i = 0; i < values.size(); i++) {
-				final TypedValue v = values.get(i);
+			final Object result = Array.newInstance(cls, count);
+			for (int i = 0; i < count; i++) {
+				final TypedValue v = args.get(index + i);
 				final Object c = v.unwrap(cls);
 				Array.set(result, i, c);
 			}
@@ -397,25 +395,103 @@ public class TypedFunction {
 
 	private static class VariadicRawArgConverter implements ArgConverter {
 		@Override
-		public Object convert(Iterator<TypedValue> value) {
-			final List<TypedValue> values = Lists.newArrayList(value);
+		public Object convert(List<TypedValue> args, int index) {
+			final int count = Math.max(args.size() - index, 0);
 
-			final Object result = Array.newInstance(TypedValue.class, values.size());
-			for (int i = 0; i < values.size(); i++) {
-				final TypedValue v = values.get(i);
-				Array.set(result, i, v);
-			}
+			final TypedValue[] result = new TypedValue[count];
+			for (int i = 0; i < count; i++)
+				result[i] = args.get(index + i);
 
 			return result;
 		}
 	}
 
+	private abstract static class Invoker {
+		public abstract Object invoke(Object target, List<TypedValue> args) throws Throwable;
+	}
+
+	private static Invoker createInvoker(Method method, List<ArgConverter> argConverters) {
+		MethodHandle handle;
+		try {
+			handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Method " + method + " is not accessible", e);
+		}
+
+		// always (target, args...), so bound and static methods can share invokers
+		if (Modifier.isStatic(method.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+
+		final int arity = argConverters.size();
+		final MethodHandle h = handle.asType(MethodType.genericMethodType(arity + 1));
+
+		switch (arity) {
+			case 0:
+				return new Invoker() {
+					@Override
+					public Object invoke(Object target, List<TypedValue> args) throws Throwable {
+						return h.invokeExact(target);
+					}
+				};
+			case 1: {
+				final ArgConverter c0 = argConverters.get(0);
+				return new Invoker() {
+					@Override
+					public Object invoke(Object target, List<TypedValue> args) throws Throwable {
+						return h.invokeExact(target, c0.convert(args, 0));
+					}
+				};
+			}
+			case 2: {
+				final ArgConverter c0 = argConverters.get(0);
+				final ArgConverter c1 = argConverters.get(1);
+				return new Invoker() {
+					@Override
+					public Object invoke(Object target, List<TypedValue> args) throws Throwable {
+						return h.invokeExact(target, c0.convert(args, 0), c1.convert(args, 1));
+					}
+				};
+			}
+			case 3: {
+				final ArgConverter c0 = argConverters.get(0);
+				final ArgConverter c1 = argConverters.get(1);
+				final ArgConverter c2 = argConverters.get(2);
+				return new Invoker() {
+					@Override
+					public Object invoke(Object target, List<TypedValue> args) throws Throwable {
+						return h.invokeExact(target, c0.convert(args, 0), c1.convert(args, 1), c2.convert(args, 2));
+					}
+				};
+			}
+			default: {
+				final ArgConverter[] converters = argConverters.toArray(new ArgConverter[arity]);
+				final MethodHandle spreader = handle.asSpreader(Object[].class, arity).asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+				return new Invoker() {
+					@Override
+					public Object invoke(Object target, List<TypedValue> args) throws Throwable {
+						final Object[] convertedArgs = new Object[converters.length];
+						for (int i = 0; i < converters.length; i++)
+							convertedArgs[i] = converters[i].convert(args, i);
+						return spreader.invokeExact(target, convertedArgs);
+					}
+				};
+			}
+		}
+	}
+
 	private abstract static class TypeVariant {
 		private final Method method;
 
 		private final Map<Integer, DispatchArgMatcher> dispatchArgMatchers;
 
-		private final List<ArgConverter> argConverters;
+		// same as dispatchArgMatchers, but cheaper to iterate
+		private final int[] matchedArgIndices;
+
+		private final DispatchArgMatcher[] matchers;
+
+		private final Invoker invoker;
+
+		// max number of args that can be converted (for non-variadic methods)
+		private final int maxArgNum;
 
 		private final int mandatoryArgNum;
 
@@ -424,7 +500,16 @@ public class TypedFunction {
 		public TypeVariant(Method method, Map<Integer, DispatchArgMatcher> dispatchArgMatchers, List<ArgConverter> argConverters, int mandatoryArgNum) {
 			this.method = method;
 			this.dispatchArgMatchers = ImmutableMap.copyOf(dispatchArgMatchers);
-			this.argConverters = argConverters;
+			this.matchedArgIndices = new int[dispatchArgMatchers.size()];
+			this.matchers = new DispatchArgMatcher[dispatchArgMatchers.size()];
+			int i = 0;
+			for (Map.Entry<Integer, DispatchArgMatcher> e : this.dispatchArgMatchers.entrySet()) {
+				matchedArgIndices[i] = e.getKey();
+				matchers[i] = e.getValue();
+				i++;
+			}
+			this.invoker = createInvoker(method, argConverters);
+			this.maxArgNum = method.isVarArgs()? Integer.MAX_VALUE : argConverters.size();
 			this.mandatoryArgNum = mandatoryArgNum;
 			this.lastDispatchArg = dispatchArgMatchers.isEmpty()? -1 : Ordering.natural().max(dispatchArgMatchers.keySet());
 		}
@@ -443,36 +528,31 @@ public class TypedFunction {
 
 		private boolean matchDispatchArgs(List<TypedValue> args) {
 			final int argCount = args.size();
-			for (Map.Entry<Integer, DispatchArgMatcher> m : dispatchArgMatchers.entrySet()) {
-				final int matchedArgIndex = m.getKey();
+			for (int i = 0; i < matchers.length; i++) {
+				final int matchedArgIndex = matchedArgIndices[i];
 				final Class<?> matchedArgType = matchedArgIndex < argCount? args.get(matchedArgIndex).type : MissingType.class;
-				if (!m.getValue().match(matchedArgType)) return false;
+				if (!matchers[i].match(matchedArgType)) return false;
 			}
 
 			return true;
 		}
 
-		private List<Object> convertArgs(TypeDomain domain, List<TypedValue> args) {
-			final List<Object> results = Lists.newArrayList();
-
-			for (TypedValue v : args)
-				Preconditions.checkArgument(v.domain == domain, "Mixed domain on arg %s", v);
-
-			final Iterator<TypedValue> argsIterator = args.iterator();
-			for (ArgConverter converter : argConverters)
-				results.add(converter.convert(argsIterator));
+		protected abstract List<TypedValue> convertResult(TypeDomain domain, Object result);
 
-			Preconditions.checkState(!argsIterator.hasNext(), "Unconverted args!");
+		public List<TypedValue> execute(TypeDomain domain, Object target, List<TypedValue> args) {
+			final Object result;
+			try {
+				for (int i = 0; i < args.size(); i++)
+					Preconditions.checkArgument(args.get(i).domain == domain, "Mixed domain on arg %s", args.get(i));
 
-			return results;
-		}
+				Preconditions.checkState(args.size() <= maxArgNum, "Unconverted args!");
 
-		protected abstract List<TypedValue> convertResult(TypeDomain domain, Object result);
+				result = invoker.invoke(target, args);
+			} catch (Throwable t) {
+				throw new MethodInvokeException(method, t);
+			}
 
-		public List<TypedValue> execute(TypeDomain domain, Object target, List<TypedValue> args) {
 			try {
-				final List<Object> unwrappedArgs = convertArgs(domain, args);
-				Object result = method.invoke(target, unwrappedArgs.toArray());
 				return convertResult(domain, result);
 			} catch (Exception e) {
 				throw new MethodInvokeException(method, e);
@@ -691,11 +771,11 @@ public class TypedFunction {
 				argCount = mandatoryArgNum.get();
 			}
 
-			final List<TypedValue> reversedArgs = Lists.newArrayList();
+			final TypedValue[] argsArray = new TypedValue[argCount];
 			final Stack<TypedValue> stack = frame.stack();
-			for (int i = 0; i < argCount; i++)
-				reversedArgs.add(stack.pop());
-			final List<TypedValue> args = Lists.reverse(reversedArgs);
+			for (int i = argCount - 1; i >= 0; i--)
+				argsArray[i] = stack.pop();
+			final List<TypedValue> args = Arrays.asList(argsArray);
 
 			final List<TypedValue> returns = execute(domain, target, args);
 
@@ -711,6 +791,108 @@ public class TypedFunction {
 		protected abstract List<TypedValue> execute(TypeDomain domain, Object target, List<TypedValue> args);
 	}
 
+	private static class ResolvedVariant {
+		private final Class<?>[] signature;
+
+		private final TypeVariant variant;
+
+		public ResolvedVariant(Class<?>[] signature, TypeVariant variant) {
+			this.signature = signature;
+			this.variant = variant;
+		}
+	}
+
+	// matching depends only on types of dispatch args, so results are cached per type signature
+	private static class OverloadedFunctionBody extends TypedFunctionBody {
+		private static final int MAX_INLINE_SIGNATURES = 4;
+
+		// more than enough for any sane function, only protects against unbounded growth with many dispatch args
+		private static final int MAX_CACHED_SIGNATURES = 256;
+
+		private static final ResolvedVariant[] NO_RESOLVED_VARIANTS = new ResolvedVariant[0];
+
+		private final List<TypeVariant> variants;
+
+		private final int[] dispatchArgIndices;
+
+		// only grows, replaced on every update, so readers always see consistent array
+		private volatile ResolvedVariant[] inlineCache = NO_RESOLVED_VARIANTS;
+
+		private final ConcurrentMap<List<Class<?>>, TypeVariant> resolvedVariants = Maps.newConcurrentMap();
+
+		public OverloadedFunctionBody(List<TypeVariant> variants, OptionalInt mandatoryArgNum) {
+			super(mandatoryArgNum);
+			this.variants = ImmutableList.copyOf(variants);
+
+			final Set<Integer> dispatchArgs = Sets.newTreeSet();
+			for (TypeVariant v : variants)
+				dispatchArgs.addAll(v.dispatchArgMatchers.keySet());
+			this.dispatchArgIndices = Ints.toArray(dispatchArgs);
+		}
+
+		private Class<?> getDispatchArgType(List<TypedValue> args, int i) {
+			final int index = dispatchArgIndices[i];
+			return index < args.size()? args.get(index).type : MissingType.class;
+		}
+
+		private boolean matchesSignature(ResolvedVariant resolved, List<TypedValue> args) {
+			final Class<?>[] signature = resolved.signature;
+			for (int i = 0; i < signature.length; i++)
+				if (signature[i] != getDispatchArgType(args, i)) return false;
+
+			return true;
+		}
+
+		private TypeVariant resolve(List<TypedValue> args) {
+			final ResolvedVariant[] inlineCache = this.inlineCache;
+			for (ResolvedVariant resolved : inlineCache)
+				if (matchesSignature(resolved, args)) return resolved.variant;
+
+			final Class<?>[] signature = new Class<?>[dispatchArgIndices.length];
+			for (int i = 0; i < signature.length; i++)
+				signature[i] = getDispatchArgType(args, i);
+
+			if (inlineCache.length < MAX_INLINE_SIGNATURES) {
+				final TypeVariant variant = findVariant(args);
+				addToInlineCache(new ResolvedVariant(signature, variant));
+				return variant;
+			}
+
+			final List<Class<?>> signatureKey = Arrays.asList(signature);
+			TypeVariant variant = resolvedVariants.get(signatureKey);
+			if (variant == null) {
+				variant = findVariant(args);
+				if (resolvedVariants.size() < MAX_CACHED_SIGNATURES) resolvedVariants.putIfAbsent(signatureKey, variant);
+			}
+
+			return variant;
+		}
+
+		private synchronized void addToInlineCache(ResolvedVariant resolved) {
+			final ResolvedVariant[] current = this.inlineCache;
+			if (current.length >= MAX_INLINE_SIGNATURES) return;
+
+			for (ResolvedVariant e : current)
+				if (Arrays.equals(e.signature, resolved.signature)) return;
+
+			final ResolvedVariant[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = resolved;
+			this.inlineCache = updated;
+		}
+
+		private TypeVariant findVariant(List<TypedValue> args) {
+			for (TypeVariant v : variants)
+				if (v.matchDispatchArgs(args)) return v;
+
+			throw new DispatchException(args);
+		}
+
+		@Override
+		protected List<TypedValue> execute(TypeDomain domain, Object target, List<TypedValue> args) {
+			return resolve(args).execute(domain, target, args);
+		}
+	}
+
 	protected final TypedFunctionBody body;
 
 	private TypedFunction(TypedFunctionBody body) {
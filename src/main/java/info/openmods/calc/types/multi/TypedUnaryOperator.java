@@ -24,6 +24,11 @@ public class TypedUnaryOperator {
 		public R apply(A value);
 	}
 
+	// like IOperation, but argument is not unwrapped, so operation can use internal representation of value
+	public interface IRawOperation {
+		public TypedValue apply(TypeDomain domain, TypedValue value);
+	}
+
 	private interface IGenericOperation {
 		public TypedValue apply(TypeDomain domain, TypedValue left);
 
@@ -62,6 +67,8 @@ public class TypedUnaryOperator {
 
 		private boolean addMetaObjectOverride = true;
 
+		private boolean isPure;
+
 		public Builder(String id, int precedence) {
 			this.id = id;
 			this.precendence = precedence;
@@ -97,6 +104,24 @@ public class TypedUnaryOperator {
 			};
 		}
 
+		public Builder registerRawOperation(Class<?> argCls, IRawOperation op) {
+			return registerOperation(argCls, createOperationWrapper(argCls, op));
+		}
+
+		private static IGenericOperation createOperationWrapper(final Class<?> argCls, final IRawOperation op) {
+			return new IGenericOperation() {
+				@Override
+				public TypedValue apply(TypeDomain domain, TypedValue argValue) {
+					return op.apply(domain, argValue);
+				}
+
+				@Override
+				public void validate(TypeDomain domain) {
+					Preconditions.checkState(domain.isKnownType(argCls), "Parameter type %s not in domain", argCls);
+				}
+			};
+		}
+
 		public <A, R> Builder registerOperation(Class<? extends A> argCls, Class<? super R> resultCls, ISimpleOperation<? super A, ? extends R> op) {
 			return registerOperation(argCls, createOperationWrapper(argCls, resultCls, op));
 		}
@@ -136,6 +161,11 @@ public class TypedUnaryOperator {
 			return this;
 		}
 
+		public Builder setPure() {
+			this.isPure = true;
+			return this;
+		}
+
 		public Builder setNoMetaObjectOverride() {
 			this.addMetaObjectOverride = false;
 			return this;
@@ -145,12 +175,24 @@ public class TypedUnaryOperator {
 			for (IGenericOperation op : operations.values())
 				op.validate(domain);
 
-			final Logic logic = new Logic(id, operations, defaultOperation, domain);
+			final Logic logic = new Logic(id, operations, defaultOperation, domain, isPure);
 
 			return addMetaObjectOverride? new Meta(id, precendence, logic) : new NonMeta(id, precendence, logic);
 		}
 	}
 
+	private static class DispatchTable {
+		public final int domainVersion;
+
+		// indexed by type id, null when no operation matches
+		public final IGenericOperation[] operations;
+
+		public DispatchTable(int domainVersion, IGenericOperation[] operations) {
+			this.domainVersion = domainVersion;
+			this.operations = operations;
+		}
+	}
+
 	private static class Logic {
 
 		private final String id;
@@ -161,16 +203,39 @@ public class TypedUnaryOperator {
 
 		private final TypeDomain domain;
 
-		public Logic(String id, Map<Class<?>, IGenericOperation> operations, IDefaultOperation defaultOperation, TypeDomain domain) {
+		private final boolean isPure;
+
+		// rebuilt when types are registered after operator is created
+		private volatile DispatchTable dispatchTable;
+
+		public Logic(String id, Map<Class<?>, IGenericOperation> operations, IDefaultOperation defaultOperation, TypeDomain domain, boolean isPure) {
 			this.id = id;
+			this.isPure = isPure;
 			this.operations = ImmutableMap.copyOf(operations);
 			this.defaultOperation = defaultOperation;
 			this.domain = domain;
+			this.dispatchTable = createDispatchTable();
+		}
+
+		private DispatchTable createDispatchTable() {
+			final int domainVersion = domain.version();
+			final int typeCount = domain.typeCount();
+			final IGenericOperation[] operations = new IGenericOperation[typeCount];
+			for (int i = 0; i < typeCount; i++)
+				operations[i] = this.operations.get(domain.getTypeForId(i));
+			return new DispatchTable(domainVersion, operations);
 		}
 
 		public TypedValue execute(TypedValue value) {
 			Preconditions.checkState(value.domain == this.domain, "Value belongs to different domain: %s", value);
-			final IGenericOperation op = operations.get(value.type);
+
+			DispatchTable dispatchTable = this.dispatchTable;
+			if (dispatchTable.domainVersion != domain.version()) {
+				dispatchTable = createDispatchTable();
+				this.dispatchTable = dispatchTable;
+			}
+
+			final IGenericOperation op = dispatchTable.operations[value.typeId];
 			if (op != null) return op.apply(value.domain, value);
 
 			if (defaultOperation != null) {
@@ -185,9 +250,17 @@ public class TypedUnaryOperator {
 	private static class Meta extends UnaryOperator.StackBased<TypedValue> {
 		private final Logic logic;
 
+		private final int slotIndex;
+
 		public Meta(String id, int precedence, Logic logic) {
 			super(id, precedence);
 			this.logic = logic;
+			this.slotIndex = MetaObject.registerOperatorSlot(id);
+		}
+
+		@Override
+		public boolean isPure() {
+			return logic.isPure;
 		}
 
 		@Override
@@ -195,7 +268,8 @@ public class TypedUnaryOperator {
 			final Stack<TypedValue> stack = frame.stack();
 			final TypedValue value = stack.pop();
 
-			final SlotUnaryOp slotUnaryOp = value.getMetaObject().slotsUnaryOps.get(id);
+			final MetaObject metaObject = value.getMetaObject();
+			final SlotUnaryOp slotUnaryOp = metaObject.hasUnaryOpSlots()? metaObject.getUnaryOpSlot(slotIndex, id) : null;
 			final TypedValue result;
 			if (slotUnaryOp != null) {
 				result = slotUnaryOp.op(value, frame);
@@ -215,6 +289,11 @@ public class TypedUnaryOperator {
 			this.logic = logic;
 		}
 
+		@Override
+		public boolean isPure() {
+			return logic.isPure;
+		}
+
 		@Override
 		public TypedValue execute(TypedValue value) {
 			return logic.execute(value);
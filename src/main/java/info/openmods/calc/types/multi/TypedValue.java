@@ -10,32 +10,51 @@ public class TypedValue {
 
 	public final Class<?> type;
 
-	public final Object value;
+	private final Object value;
+
+	// index of type in domain, used for table based dispatch
+	final int typeId;
 
 	private Optional<MetaObject> metaObject;
 
-	TypedValue(TypeDomain domain, Class<?> type, Object value) {
+	TypedValue(TypeDomain domain, Class<?> type, int typeId, Object value) {
 		Preconditions.checkArgument(type.isInstance(value), "Value '%s' is not instance of '%s'", value, type);
 		this.domain = domain;
 		this.type = type;
+		this.typeId = typeId;
 		this.value = value;
 		this.metaObject = Optional.absent();
 	}
 
-	TypedValue(TypeDomain domain, Class<?> type, Object value, MetaObject metaObject) {
+	// for subclasses that keep value in different form, see value()
+	TypedValue(TypeDomain domain, Class<?> type, int typeId) {
+		this.domain = domain;
+		this.type = type;
+		this.typeId = typeId;
+		this.value = null;
+		this.metaObject = Optional.absent();
+	}
+
+	TypedValue(TypeDomain domain, Class<?> type, int typeId, Object value, MetaObject metaObject) {
 		Preconditions.checkArgument(type.isInstance(value), "Value '%s' is not instance of '%s'", value, type);
 		this.domain = domain;
 		this.type = type;
+		this.typeId = typeId;
 		this.value = value;
 		this.metaObject = Optional.of(metaObject);
 	}
 
+	public Object value() {
+		return value;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((domain == null)? 0 : domain.hashCode());
 		result = prime * result + ((type == null)? 0 : type.hashCode());
+		final Object value = value();
 		result = prime * result + ((value == null)? 0 : value.hashCode());
 		return result;
 	}
@@ -47,7 +66,7 @@ public class TypedValue {
 			final TypedValue other = (TypedValue)obj;
 			return this.domain == other.domain &&
 					this.type == other.type &&
-					Objects.equal(this.value, other.value);
+					Objects.equal(this.value(), other.value());
 		}
 
 		return false;
@@ -59,7 +78,7 @@ public class TypedValue {
 
 	@Override
 	public String toString() {
-		return "[" + typeStr() + ":" + value + "]";
+		return "[" + typeStr() + ":" + value() + "]";
 	}
 
 	public TypedValue cast(Class<?> type) {
@@ -85,7 +104,7 @@ public class TypedValue {
 
 	public <T> T as(Class<T> expectedType) {
 		try {
-			return expectedType.cast(value);
+			return expectedType.cast(value());
 		} catch (ClassCastException e) {
 			throw castException(expectedType);
 		}
@@ -93,18 +112,18 @@ public class TypedValue {
 
 	public <T> T as(Class<T> expectedType, String location) {
 		try {
-			return expectedType.cast(value);
+			return expectedType.cast(value());
 		} catch (ClassCastException e) {
 			throw castException(expectedType, location);
 		}
 	}
 
 	public void checkType(Class<?> expectedType) {
-		if (!expectedType.isInstance(value)) throw castException(expectedType);
+		if (!expectedType.isInstance(value())) throw castException(expectedType);
 	}
 
 	public void checkType(Class<?> expectedType, String location) {
-		if (!expectedType.isInstance(value)) throw castException(expectedType, location);
+		if (!expectedType.isInstance(value())) throw castException(expectedType, location);
 	}
 
 	public boolean is(Class<?> type) {
@@ -121,6 +140,6 @@ public class TypedValue {
 	}
 
 	public TypedValue updateMetaObject(MetaObject newMetaObject) {
-		return new TypedValue(domain, type, value, newMetaObject);
+		return new TypedValue(domain, type, typeId, value(), newMetaObject);
 	}
 }
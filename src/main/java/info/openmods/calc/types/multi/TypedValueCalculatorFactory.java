@@ -33,6 +33,7 @@ import info.openmods.calc.parsing.ast.IOperatorDictionary;
 import info.openmods.calc.parsing.ast.MappedParserState;
 import info.openmods.calc.parsing.ast.OperatorAssociativity;
 import info.openmods.calc.parsing.node.BinaryOpNode;
+import info.openmods.calc.parsing.node.ConstantFolder;
 import info.openmods.calc.parsing.node.DefaultExprNodeFactory;
 import info.openmods.calc.parsing.node.IExprNode;
 import info.openmods.calc.parsing.node.MappedExprNodeFactory;
@@ -67,6 +68,7 @@ import info.openmods.calc.types.multi.MetaObject.SlotBinaryOp;
 import info.openmods.calc.types.multi.TypeDomain.Coercion;
 import info.openmods.calc.types.multi.TypedFunction.DispatchArg;
 import info.openmods.calc.types.multi.TypedFunction.OptionalArgs;
+import info.openmods.calc.types.multi.TypedFunction.RawArg;
 import info.openmods.calc.types.multi.TypedFunction.RawDispatchArg;
 import info.openmods.calc.types.multi.TypedFunction.RawReturn;
 import info.openmods.calc.types.multi.TypedFunction.Variant;
@@ -83,6 +85,9 @@ import org.apache.commons.lang3.tuple.Pair;
 public class TypedValueCalculatorFactory {
 	private static final Function<BigInteger, Integer> INT_UNWRAP = BigInteger::intValue;
 
+	public static final int CANONICAL_INT_MIN = -128;
+	public static final int CANONICAL_INT_MAX = 1024;
+
 	private static final int PRIORITY_MAX = 185; // basically magic, i.e. .
 	private static final int PRIORITY_UNARY = 180; // unary
 	private static final int PRIORITY_NULL_AWARE = 175; // ??
@@ -192,10 +197,14 @@ public class TypedValueCalculatorFactory {
 
 	private static UnaryOperator<TypedValue> createUnaryNegation(String id, TypeDomain domain) {
 		return new TypedUnaryOperator.Builder(id, PRIORITY_UNARY)
-				.registerOperation(new TypedUnaryOperator.ISimpleOperation<BigInteger, BigInteger>() {
+				.registerRawOperation(BigInteger.class, new TypedUnaryOperator.IRawOperation() {
 					@Override
-					public BigInteger apply(BigInteger value) {
-						return value.negate();
+					public TypedValue apply(TypeDomain domain, TypedValue value) {
+						if (value instanceof LongBackedInt) {
+							final long arg = ((LongBackedInt)value).longValue;
+							if (arg != Long.MIN_VALUE) return domain.createInt(-arg);
+						}
+						return domain.create(BigInteger.class, value.as(BigInteger.class).negate());
 					}
 				})
 				.registerOperation(new TypedUnaryOperator.ISimpleOperation<Boolean, BigInteger>() {
@@ -218,6 +227,7 @@ public class TypedValueCalculatorFactory {
 					}
 
 				})
+				.setPure()
 				.build(domain);
 	}
 
@@ -238,7 +248,7 @@ public class TypedValueCalculatorFactory {
 
 			@Override
 			public void value(TypedValue value, boolean isLast) {
-				result.add(value.value);
+				result.add(value.value());
 			}
 
 			@Override
@@ -604,6 +614,85 @@ public class TypedValueCalculatorFactory {
 							.build());
 		}
 
+		{
+			final MetaObject vectorTypeMetaObject = TypeUserdata.defaultMetaObject(domain)
+					.set(MetaObjectUtils.callableAdapter(new SimpleTypedFunction(domain) {
+						@Variant
+						public PersistentVector create(@RawArg TypedValue... values) {
+							return PersistentVector.create(values);
+						}
+					}))
+					.build();
+
+			// decomposes into elements, instead of matching on type, like other types do
+			final TypedValue vectorType = domain.create(TypeUserdata.class, new TypeUserdata("vector", PersistentVector.class),
+					MetaObject.builder()
+							.set(new MetaObject.SlotDecompose() {
+								@Override
+								public Optional<List<TypedValue>> tryDecompose(TypedValue self, TypedValue input, int variableCount, Frame<TypedValue> frame) {
+									if (input.is(PersistentVector.class)) {
+										final PersistentVector vector = input.as(PersistentVector.class);
+										if (vector.size() == variableCount) return Optional.of(vector.toList());
+									}
+
+									return Optional.absent();
+								}
+							})
+							.update(vectorTypeMetaObject));
+
+			basicTypes.put("vector", vectorType);
+
+			domain.registerType(PersistentVector.class, "vector",
+					MetaObject.builder()
+							.set(new MetaObject.SlotLength() {
+								@Override
+								public int length(TypedValue self, Frame<TypedValue> frame) {
+									return self.as(PersistentVector.class).size();
+								}
+							})
+							.set(new MetaObject.SlotSlice() {
+								@Override
+								public TypedValue slice(TypedValue self, TypedValue range, Frame<TypedValue> frame) {
+									final PersistentVector target = self.as(PersistentVector.class);
+
+									if (range.is(Cons.class)) {
+										final Cons boundaries = range.as(Cons.class);
+										final int left = calculateBoundary(boundaries.car, target.size());
+										final int right = calculateBoundary(boundaries.cdr, target.size());
+										return domain.create(PersistentVector.class, target.slice(left, right));
+									} else {
+										return target.get(calculateBoundary(range, target.size()));
+									}
+								}
+
+								private int calculateBoundary(TypedValue v, int length) {
+									final int i = v.unwrap(BigInteger.class).intValue();
+									return i >= 0? i : (length + i);
+								}
+							})
+							.set(new MetaObject.SlotBool() {
+								@Override
+								public boolean bool(TypedValue value, Frame<TypedValue> frame) {
+									return !value.as(PersistentVector.class).isEmpty();
+								}
+							})
+							.set(MetaObjectUtils.typeConst(vectorType))
+							.set(new MetaObject.SlotStr() {
+								@Override
+								public String str(TypedValue self, Frame<TypedValue> frame) {
+									return valuePrinter.str(self.as(PersistentVector.class));
+								}
+							})
+							.set(new MetaObject.SlotRepr() {
+								@Override
+								public String repr(TypedValue self, Frame<TypedValue> frame) {
+									return valuePrinter.repr(self.as(PersistentVector.class));
+								}
+							})
+							.set(MetaObjectUtils.USE_VALUE_EQUALS)
+							.build());
+		}
+
 		{
 			final TypedValue symbolType = domain.create(TypeUserdata.class, new TypeUserdata("symbol", Symbol.class),
 					TypeUserdata.defaultMetaObject(domain)
@@ -691,6 +780,13 @@ public class TypedValueCalculatorFactory {
 							.build());
 		}
 
+		// shared instances for most common results, to avoid allocation in comparisons and simple arithmetic
+		domain.registerCanonicalValues(UnitType.class, CanonicalValues.<UnitType> forValues(nullValue));
+		domain.registerCanonicalValues(Boolean.class, CanonicalValues.<Boolean> forValues(domain.create(Boolean.class, Boolean.TRUE), domain.create(Boolean.class, Boolean.FALSE)));
+		domain.registerCanonicalValues(BigInteger.class, CanonicalValues.forIntegers(domain, CANONICAL_INT_MIN, CANONICAL_INT_MAX));
+		domain.registerCanonicalValues(Double.class, CanonicalValues.<Double> forValues(domain.create(Double.class, 0.0), domain.create(Double.class, 1.0)));
+		domain.registerCanonicalValues(Symbol.class, CanonicalValues.forSymbols(domain));
+
 		domain.registerConverter(new IConverter<Boolean, BigInteger>() {
 			@Override
 			public BigInteger convert(Boolean value) {
@@ -743,10 +839,17 @@ public class TypedValueCalculatorFactory {
 
 		// arithmetic
 		final BinaryOperator<TypedValue> addOperator = operators.registerOperator(new TypedBinaryOperator.Builder("+", PRIORITY_ADD)
-				.registerOperation(new TypedBinaryOperator.ISimpleCoercedOperation<BigInteger, BigInteger>() {
+				.registerRawOperation(BigInteger.class, new TypedBinaryOperator.IRawCoercedOperation() {
 					@Override
-					public BigInteger apply(BigInteger left, BigInteger right) {
-						return left.add(right);
+					public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
+						if (left instanceof LongBackedInt && right instanceof LongBackedInt) {
+							final long l = ((LongBackedInt)left).longValue;
+							final long r = ((LongBackedInt)right).longValue;
+							final long result = l + r;
+							// overflow only if result has different sign than both arguments
+							if (((l ^ result) & (r ^ result)) >= 0) return domain.createInt(result);
+						}
+						return domain.create(BigInteger.class, left.as(BigInteger.class).add(right.as(BigInteger.class)));
 					}
 				})
 				.registerOperation(new TypedBinaryOperator.ISimpleCoercedOperation<Complex, Complex>() {
@@ -774,6 +877,7 @@ public class TypedValueCalculatorFactory {
 						return BigInteger.valueOf((left? 1 : 0) + (right? 1 : 0));
 					}
 				})
+				.setPure()
 				.build(domain)).unwrap();
 
 		operators.registerOperator(new UnaryOperator.Direct<TypedValue>("+") {
@@ -787,10 +891,17 @@ public class TypedValueCalculatorFactory {
 		final UnaryOperator<TypedValue> varArgMarker = operators.registerOperator(new MarkerUnaryOperator("*")).unwrap();
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("-", PRIORITY_ADD)
-				.registerOperation(new TypedBinaryOperator.ISimpleCoercedOperation<BigInteger, BigInteger>() {
+				.registerRawOperation(BigInteger.class, new TypedBinaryOperator.IRawCoercedOperation() {
 					@Override
-					public BigInteger apply(BigInteger left, BigInteger right) {
-						return left.subtract(right);
+					public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
+						if (left instanceof LongBackedInt && right instanceof LongBackedInt) {
+							final long l = ((LongBackedInt)left).longValue;
+							final long r = ((LongBackedInt)right).longValue;
+							final long result = l - r;
+							// overflow only if arguments have different signs and result sign differs from left
+							if (((l ^ r) & (l ^ result)) >= 0) return domain.createInt(result);
+						}
+						return domain.create(BigInteger.class, left.as(BigInteger.class).subtract(right.as(BigInteger.class)));
 					}
 				})
 				.registerOperation(new TypedBinaryOperator.ISimpleCoercedOperation<Double, Double>() {
@@ -811,6 +922,7 @@ public class TypedValueCalculatorFactory {
 						return BigInteger.valueOf((left? 1 : 0) - (right? 1 : 0));
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(createUnaryNegation("-", domain));
@@ -818,10 +930,18 @@ public class TypedValueCalculatorFactory {
 		operators.registerOperator(createUnaryNegation("neg", domain));
 
 		final BinaryOperator<TypedValue> multiplyOperator = operators.registerOperator(new TypedBinaryOperator.Builder("*", PRIORITY_MULTIPLY)
-				.registerOperation(new TypedBinaryOperator.ISimpleCoercedOperation<BigInteger, BigInteger>() {
+				.registerRawOperation(BigInteger.class, new TypedBinaryOperator.IRawCoercedOperation() {
 					@Override
-					public BigInteger apply(BigInteger left, BigInteger right) {
-						return left.multiply(right);
+					public TypedValue apply(TypeDomain domain, TypedValue left, TypedValue right) {
+						if (left instanceof LongBackedInt && right instanceof LongBackedInt) {
+							final long l = ((LongBackedInt)left).longValue;
+							final long r = ((LongBackedInt)right).longValue;
+							final long result = l * r;
+							// same check as Math.multiplyExact, but without exception on slow path
+							final boolean small = ((Math.abs(l) | Math.abs(r)) >>> 31) == 0;
+							if (small || ((r == 0 || result / r == l) && !(l == Long.MIN_VALUE && r == -1))) return domain.createInt(result);
+						}
+						return domain.create(BigInteger.class, left.as(BigInteger.class).multiply(right.as(BigInteger.class)));
 					}
 				})
 				.registerOperation(new TypedBinaryOperator.ISimpleCoercedOperation<Double, Double>() {
@@ -849,6 +969,7 @@ public class TypedValueCalculatorFactory {
 						return StringUtils.repeat(left, right.intValue());
 					}
 				})
+				.setPure()
 				.build(domain)).unwrap();
 
 		final BinaryOperator<TypedValue> divideOperator = operators.registerOperator(new TypedBinaryOperator.Builder("/", PRIORITY_MULTIPLY)
@@ -876,6 +997,7 @@ public class TypedValueCalculatorFactory {
 						return (left? 1.0 : 0.0) / (right? 1.0 : 0.0);
 					}
 				})
+				.setPure()
 				.build(domain)).unwrap();
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("%", PRIORITY_MULTIPLY)
@@ -904,11 +1026,12 @@ public class TypedValueCalculatorFactory {
 						final String template = left.as(String.class);
 						final Object[] args = right.is(Cons.class)
 								? consToUnwrappedList(right.as(Cons.class), nullValue).toArray()
-								: new Object[] { right.value };
+								: new Object[] { right.value() };
 						final String result = String.format(template, args);
 						return Optional.of(domain.create(String.class, result));
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("//", PRIORITY_MULTIPLY)
@@ -930,6 +1053,7 @@ public class TypedValueCalculatorFactory {
 						return Math.floor(left / right);
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("**", PRIORITY_EXP)
@@ -952,6 +1076,7 @@ public class TypedValueCalculatorFactory {
 						return Math.pow(left, right);
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		// logic
@@ -1038,6 +1163,7 @@ public class TypedValueCalculatorFactory {
 						return value.not();
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("&", PRIORITY_BITWISE_AND)
@@ -1053,6 +1179,7 @@ public class TypedValueCalculatorFactory {
 						return left.and(right);
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("|", PRIORITY_BITWISE_OR)
@@ -1068,6 +1195,7 @@ public class TypedValueCalculatorFactory {
 						return left.or(right);
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("^", PRIORITY_BITWISE_XOR)
@@ -1083,6 +1211,7 @@ public class TypedValueCalculatorFactory {
 						return left.xor(right);
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(new TypedBinaryOperator.Builder("<<", PRIORITY_BITSHIFT)
@@ -1098,6 +1227,7 @@ public class TypedValueCalculatorFactory {
 						return left.shiftLeft(right.intValue());
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		operators.registerOperator(new TypedBinaryOperator.Builder(">>", PRIORITY_BITSHIFT)
@@ -1113,6 +1243,7 @@ public class TypedValueCalculatorFactory {
 						return left.shiftRight(right.intValue());
 					}
 				})
+				.setPure()
 				.build(domain));
 
 		// comparison
@@ -1121,8 +1252,16 @@ public class TypedValueCalculatorFactory {
 
 		abstract class BooleanComparatorOperator extends BinaryOperator.StackBased<TypedValue> {
 
+			private final int slotIndex;
+
 			public BooleanComparatorOperator(String id, int precendence) {
 				super(id, precendence);
+				this.slotIndex = MetaObject.registerOperatorSlot(id);
+			}
+
+			@Override
+			public boolean isPure() {
+				return true;
 			}
 
 			@Override
@@ -1132,7 +1271,8 @@ public class TypedValueCalculatorFactory {
 				final TypedValue right = stack.pop();
 				final TypedValue left = stack.pop();
 
-				final SlotBinaryOp slot = left.getMetaObject().slotsBinaryOps.get(id());
+				final MetaObject metaObject = left.getMetaObject();
+				final SlotBinaryOp slot = metaObject.hasBinaryOpSlots()? metaObject.getBinaryOpSlot(slotIndex, id) : null;
 				final TypedValue result;
 				if (slot != null) {
 					result = slot.op(left, right, frame);
@@ -1168,6 +1308,11 @@ public class TypedValueCalculatorFactory {
 				super(id, precendence);
 			}
 
+			@Override
+			public boolean isPure() {
+				return true;
+			}
+
 			@Override
 			public void executeOnStack(Frame<TypedValue> frame) {
 				final Stack<TypedValue> stack = frame.stack();
@@ -1286,9 +1431,9 @@ public class TypedValueCalculatorFactory {
 		coreMap.put(TypedCalcConstants.SYMBOL_NULL, nullValue);
 		coreMap.put(TypedCalcConstants.SYMBOL_FALSE, domain.create(Boolean.class, Boolean.TRUE));
 		coreMap.put(TypedCalcConstants.SYMBOL_TRUE, domain.create(Boolean.class, Boolean.FALSE));
-		coreMap.put("NAN", domain.create(Double.class, Double.NaN));
-		coreMap.put("INF", domain.create(Double.class, Double.POSITIVE_INFINITY));
-		coreMap.put("I", domain.create(Complex.class, Complex.I));
+		coreMap.putConstant("NAN", domain.create(Double.class, Double.NaN));
+		coreMap.putConstant("INF", domain.create(Double.class, Double.POSITIVE_INFINITY));
+		coreMap.putConstant("I", domain.create(Complex.class, Complex.I));
 
 		final Environment<TypedValue> env = new Environment<TypedValue>(nullValue) {
 			@Override
@@ -1305,8 +1450,8 @@ public class TypedValueCalculatorFactory {
 
 		GenericFunctions.createStackManipulationFunctions(env);
 
-		env.setGlobalSymbol("E", domain.create(Double.class, Math.E));
-		env.setGlobalSymbol("PI", domain.create(Double.class, Math.PI));
+		env.setGlobalConstant("E", domain.create(Double.class, Math.E));
+		env.setGlobalConstant("PI", domain.create(Double.class, Math.PI));
 
 		env.setGlobalSymbol("iscallable", new UnaryFunction.Direct<TypedValue>() {
 			@Override
@@ -1425,21 +1570,21 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("isnan", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("isnan", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Boolean isNan(Double v) {
 				return v.isNaN();
 			}
 		});
 
-		env.setGlobalSymbol("isinf", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("isinf", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Boolean isInf(Double v) {
 				return v.isInfinite();
 			}
 		});
 
-		env.setGlobalSymbol("abs", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("abs", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Boolean abs(@DispatchArg Boolean v) {
 				return v;
@@ -1461,14 +1606,14 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("sqrt", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("sqrt", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double sqrt(Double v) {
 				return Math.sqrt(v);
 			}
 		});
 
-		env.setGlobalSymbol("floor", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("floor", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			@RawReturn
 			public TypedValue floor(@RawDispatchArg({ BigInteger.class, Boolean.class }) TypedValue v) {
@@ -1481,7 +1626,7 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("ceil", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("ceil", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			@RawReturn
 			public TypedValue ceil(@RawDispatchArg({ BigInteger.class, Boolean.class }) TypedValue v) {
@@ -1494,98 +1639,98 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("cos", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("cos", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double cos(Double v) {
 				return Math.cos(v);
 			}
 		});
 
-		env.setGlobalSymbol("cosh", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("cosh", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double cosh(Double v) {
 				return Math.cosh(v);
 			}
 		});
 
-		env.setGlobalSymbol("acos", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("acos", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double acos(Double v) {
 				return Math.acos(v);
 			}
 		});
 
-		env.setGlobalSymbol("acosh", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("acosh", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double acosh(Double v) {
 				return Math.log(v + Math.sqrt(v * v - 1));
 			}
 		});
 
-		env.setGlobalSymbol("sin", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("sin", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double sin(Double v) {
 				return Math.sin(v);
 			}
 		});
 
-		env.setGlobalSymbol("sinh", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("sinh", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double sinh(Double v) {
 				return Math.sinh(v);
 			}
 		});
 
-		env.setGlobalSymbol("asin", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("asin", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double asin(Double v) {
 				return Math.asin(v);
 			}
 		});
 
-		env.setGlobalSymbol("asinh", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("asinh", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double asinh(Double v) {
 				return v.isInfinite()? v : Math.log(v + Math.sqrt(v * v + 1));
 			}
 		});
 
-		env.setGlobalSymbol("tan", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("tan", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double tan(Double v) {
 				return Math.tan(v);
 			}
 		});
 
-		env.setGlobalSymbol("atan", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("atan", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double atan(Double v) {
 				return Math.atan(v);
 			}
 		});
 
-		env.setGlobalSymbol("atan2", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("atan2", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double atan2(Double x, Double y) {
 				return Math.atan2(x, y);
 			}
 		});
 
-		env.setGlobalSymbol("tanh", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("tanh", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double tanh(Double v) {
 				return Math.tanh(v);
 			}
 		});
 
-		env.setGlobalSymbol("atanh", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("atanh", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double atanh(Double v) {
 				return Math.log((1 + v) / (1 - v)) / 2;
 			}
 		});
 
-		env.setGlobalSymbol("exp", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("exp", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double exp(@DispatchArg(extra = { Boolean.class, BigInteger.class }) Double v) {
 				return Math.exp(v);
@@ -1597,7 +1742,7 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("ln", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("ln", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double ln(@DispatchArg(extra = { Boolean.class, BigInteger.class }) Double v) {
 				return Math.log(v);
@@ -1609,7 +1754,7 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("log", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("log", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double log(Double v, @OptionalArgs Optional<Double> base) {
 				if (base.isPresent()) {
@@ -1620,7 +1765,7 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("sgn", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("sgn", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public BigInteger sgn(@DispatchArg(extra = { Boolean.class }) BigInteger v) {
 				return BigInteger.valueOf(v.signum());
@@ -1632,35 +1777,35 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("rad", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("rad", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double rad(Double v) {
 				return Math.toRadians(v);
 			}
 		});
 
-		env.setGlobalSymbol("deg", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("deg", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double deg(Double v) {
 				return Math.toDegrees(v);
 			}
 		});
 
-		env.setGlobalSymbol("modpow", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("modpow", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public BigInteger modpow(BigInteger v, BigInteger exp, BigInteger mod) {
 				return v.modPow(exp, mod);
 			}
 		});
 
-		env.setGlobalSymbol("gcd", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("gcd", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public BigInteger gcd(BigInteger v1, BigInteger v2) {
 				return v1.gcd(v2);
 			}
 		});
 
-		env.setGlobalSymbol("re", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("re", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double re(@DispatchArg(extra = { Boolean.class, BigInteger.class }) Double v) {
 				return v;
@@ -1672,7 +1817,7 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("im", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("im", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double im(@DispatchArg(extra = { Boolean.class, BigInteger.class }) Double v) {
 				return 0.0;
@@ -1684,7 +1829,7 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("phase", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("phase", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Double phase(@DispatchArg(extra = { Boolean.class, BigInteger.class }) Double v) {
 				return 0.0;
@@ -1696,7 +1841,7 @@ public class TypedValueCalculatorFactory {
 			}
 		});
 
-		env.setGlobalSymbol("conj", new SimpleTypedFunction(domain) {
+		env.setGlobalSymbol("conj", new SimpleTypedFunction.Pure(domain) {
 			@Variant
 			public Complex conj(@DispatchArg(extra = { Boolean.class, BigInteger.class }) Double v) {
 				return Complex.real(v);
@@ -2067,6 +2212,21 @@ public class TypedValueCalculatorFactory {
 				compilerState.addStateTransition(TypedCalcConstants.MODIFIER_INTERPOLATE, new StringInterpolate.StringInterpolateModifier(domain, valuePrinter));
 			}
 
+			@Override
+			protected ConstantFolder<TypedValue> createConstantFolder(Environment<TypedValue> environment) {
+				return new ConstantFolder<TypedValue>(environment) {
+					@Override
+					protected IExprNode<TypedValue> foldCustomNode(IExprNode<TypedValue> node) {
+						if (node.getClass() != VarArgSymbolCallNode.class) return node;
+						// args with unpack marker are never constant, so folded calls never need var-arg handling
+						final VarArgSymbolCallNode callNode = (VarArgSymbolCallNode)node;
+						final List<IExprNode<TypedValue>> args = foldAll(callNode.getChildren());
+						final VarArgSymbolCallNode result = new VarArgSymbolCallNode(varArgMarker, callNode.symbol(), args);
+						return canFoldCall(callNode.symbol(), args)? evaluate(result) : result;
+					}
+				};
+			}
+
 			@Override
 			protected DefaultExprNodeFactory<TypedValue> createExprNodeFactory(IValueParser<TypedValue> valueParser) {
 				return new MappedExprNodeFactory<TypedValue>(valueParser)
@@ -2150,7 +2310,7 @@ public class TypedValueCalculatorFactory {
 						new MappedPostfixParser<IExecutable<TypedValue>>() {
 							@Override
 							protected IExecutableListBuilder<IExecutable<TypedValue>> createListBuilder() {
-								return new DefaultExecutableListBuilder<TypedValue>(valueParser, operators);
+								return new DefaultExecutableListBuilder<TypedValue>(valueParser, operators, getExecutionBackend());
 							}
 
 						})
@@ -2163,7 +2323,7 @@ public class TypedValueCalculatorFactory {
 								.addBracketStateProvider(TypedCalcConstants.BRACKET_CODE, new IStateProvider<IExecutable<TypedValue>>() {
 									@Override
 									public IPostfixParserState<IExecutable<TypedValue>> createState() {
-										final IExecutableListBuilder<IExecutable<TypedValue>> listBuilder = new DefaultExecutableListBuilder<TypedValue>(valueParser, operators);
+										final IExecutableListBuilder<IExecutable<TypedValue>> listBuilder = new DefaultExecutableListBuilder<TypedValue>(valueParser, operators, getExecutionBackend());
 										return new CodePostfixCompilerState(domain, listBuilder, TypedCalcConstants.BRACKET_CODE);
 									}
 								})
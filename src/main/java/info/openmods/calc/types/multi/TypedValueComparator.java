@@ -11,6 +11,9 @@ public class TypedValueComparator implements Comparator<TypedValue> {
 		final TypeDomain domain = left.domain;
 		Preconditions.checkArgument(domain == right.domain, "Incompatible domains for values: %s and %s", left, right);
 
+		if (left instanceof LongBackedInt && right instanceof LongBackedInt)
+			return Long.compare(((LongBackedInt)left).longValue, ((LongBackedInt)right).longValue);
+
 		final Class<?> type;
 		final Coercion coercionRule = domain.getCoercionRule(left.type, right.type);
 		if (coercionRule == Coercion.TO_LEFT) {
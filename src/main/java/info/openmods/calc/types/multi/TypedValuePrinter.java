@@ -12,6 +12,7 @@ import info.openmods.calc.types.bigint.BigIntPrinter;
 import info.openmods.calc.types.fp.DoublePrinter;
 import info.openmods.calc.utils.config.ConfigProperty;
 import java.math.BigInteger;
+import java.util.Iterator;
 import java.util.Set;
 
 public class TypedValuePrinter implements IValuePrinter<TypedValue> {
@@ -60,7 +61,7 @@ public class TypedValuePrinter implements IValuePrinter<TypedValue> {
 			final Frame<TypedValue> frame = FrameFactory.createTopFrame(); // TODO: is this safe? Probably yes
 			contents = slotStr.str(value, frame);
 		} else {
-			contents = value.value.toString();
+			contents = value.value().toString();
 		}
 
 		return printTypes? "(" + value.type + ")" + contents : contents;
@@ -72,7 +73,7 @@ public class TypedValuePrinter implements IValuePrinter<TypedValue> {
 		if (slotRepr != null) {
 			final Frame<TypedValue> frame = FrameFactory.createTopFrame(); // TODO: is this safe? Probably yes
 			return slotRepr.repr(value, frame);
-		} else return value.value.toString();
+		} else return value.value().toString();
 	}
 
 	public String str(boolean value) {
@@ -146,7 +147,7 @@ public class TypedValuePrinter implements IValuePrinter<TypedValue> {
 
 				@Override
 				public void end(TypedValue terminator) {
-					if (terminator.value != nullValue || printNilInLists) {
+					if (terminator.value() != nullValue || printNilInLists) {
 						result.append(" . ");
 						result.append(TypedValuePrinter.this.str(terminator));
 					}
@@ -165,6 +166,26 @@ public class TypedValuePrinter implements IValuePrinter<TypedValue> {
 		return repr(cons.car) + " : " + repr(cons.cdr);
 	}
 
+	public String str(PersistentVector vector) {
+		final StringBuilder result = new StringBuilder("vector(");
+		final Iterator<TypedValue> it = vector.iterator();
+		while (it.hasNext()) {
+			result.append(str(it.next()));
+			if (it.hasNext()) result.append(", ");
+		}
+		return result.append(")").toString();
+	}
+
+	public String repr(PersistentVector vector) {
+		final StringBuilder result = new StringBuilder("vector(");
+		final Iterator<TypedValue> it = vector.iterator();
+		while (it.hasNext()) {
+			result.append(repr(it.next()));
+			if (it.hasNext()) result.append(", ");
+		}
+		return result.append(")").toString();
+	}
+
 	public String str(Symbol s) {
 		return s.value;
 	}
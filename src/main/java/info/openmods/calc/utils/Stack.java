@@ -1,37 +1,65 @@
 package info.openmods.calc.utils;
 
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
+import com.google.common.collect.UnmodifiableIterator;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 
 public class Stack<E> implements Iterable<E> {
 
-	private final List<E> data;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// shared between stack and all its substacks
+	private static class Storage {
+		private Object[] elements;
+		private int top;
+
+		public Storage(int initialCapacity) {
+			this.elements = new Object[Math.max(initialCapacity, 1)];
+		}
+
+		public void ensureCapacity(int capacity) {
+			if (capacity > elements.length) {
+				final int newCapacity = Math.max(capacity, elements.length + (elements.length >> 1));
+				elements = Arrays.copyOf(elements, newCapacity);
+			}
+		}
+	}
+
+	private final Storage data;
 	private final int bottomElement;
 
+	// substacks are simple views, so last one can be reused if requested again with same bottom
+	private Stack<E> lastSubstack;
+
 	public Stack() {
-		this.data = Lists.newArrayList();
-		this.bottomElement = 0;
+		this(DEFAULT_CAPACITY);
 	}
 
 	public Stack(int initialCapacity) {
-		this.data = Lists.newArrayListWithCapacity(initialCapacity);
+		this.data = new Storage(initialCapacity);
 		this.bottomElement = 0;
 	}
 
-	private Stack(List<E> data, int bottomElement) {
+	private Stack(Storage data, int bottomElement) {
 		this.data = data;
 		this.bottomElement = bottomElement;
 	}
 
 	public void push(E value) {
-		data.add(value);
+		final Storage data = this.data;
+		final int top = data.top;
+		if (top == data.elements.length) data.ensureCapacity(top + 1);
+		data.elements[top] = value;
+		data.top = top + 1;
 	}
 
 	public void pushAll(Collection<E> values) {
-		data.addAll(values);
+		data.ensureCapacity(data.top + values.size());
+		for (E value : values)
+			push(value);
 	}
 
 	public void checkIsNonEmpty() {
@@ -42,13 +70,19 @@ public class Stack<E> implements Iterable<E> {
 		if (index < bottomElement) throw new StackUnderflowException();
 	}
 
+	@SuppressWarnings("unchecked")
+	private E element(int index) {
+		return (E)data.elements[index];
+	}
+
 	public E pop() {
-		checkIsNonEmpty();
-		try {
-			return data.remove(data.size() - 1);
-		} catch (IndexOutOfBoundsException e) {
-			throw new StackUnderflowException();
-		}
+		final Storage data = this.data;
+		final int newTop = data.top - 1;
+		if (newTop < bottomElement) throw new StackUnderflowException();
+		final E result = element(newTop);
+		data.elements[newTop] = null;
+		data.top = newTop;
+		return result;
 	}
 
 	public E popAndExpectEmptyStack() {
@@ -57,33 +91,44 @@ public class Stack<E> implements Iterable<E> {
 	}
 
 	private int indexFromTop(int index) {
-		return data.size() - 1 - index;
+		return data.top - 1 - index;
 	}
 
 	public E peek(int index) {
 		final int peekIndex = indexFromTop(index);
 		checkIndex(peekIndex);
-		return data.get(peekIndex);
+		return element(peekIndex);
 	}
 
 	public void dup() {
 		checkIsNonEmpty();
-		E last = data.get(data.size() - 1);
-		data.add(last);
+		push(element(data.top - 1));
 	}
 
 	public E drop(int index) {
 		final int dropIndex = indexFromTop(index);
 		checkIndex(dropIndex);
-		return data.remove(dropIndex);
+		final E result = element(dropIndex);
+
+		final Storage data = this.data;
+		final int newTop = data.top - 1;
+		System.arraycopy(data.elements, dropIndex + 1, data.elements, dropIndex, newTop - dropIndex);
+		data.elements[newTop] = null;
+		data.top = newTop;
+		return result;
 	}
 
 	public int size() {
-		return data.size() - bottomElement;
+		return data.top - bottomElement;
 	}
 
 	public boolean isEmpty() {
-		return size() == 0;
+		return data.top == bottomElement;
+	}
+
+	// includes elements of all stacks sharing storage with this one
+	public int totalSize() {
+		return data.top;
 	}
 
 	public static <T> Stack<T> create() {
@@ -92,19 +137,43 @@ public class Stack<E> implements Iterable<E> {
 
 	@Override
 	public Iterator<E> iterator() {
-		return data.listIterator(bottomElement);
+		final int end = data.top;
+		return new UnmodifiableIterator<E>() {
+			private int index = bottomElement;
+
+			@Override
+			public boolean hasNext() {
+				return index < end;
+			}
+
+			@Override
+			public E next() {
+				if (index >= end) throw new NoSuchElementException();
+				return element(index++);
+			}
+		};
 	}
 
 	public void clear() {
-		if (bottomElement == 0) data.clear();
-		final int size = data.size();
-		if (size - bottomElement > 0) data.subList(bottomElement, size).clear();
+		final Storage data = this.data;
+		final int top = data.top;
+		if (top > bottomElement) {
+			Arrays.fill(data.elements, bottomElement, top, null);
+			data.top = bottomElement;
+		}
 	}
 
 	public Stack<E> substack(int depth) {
-		final int newBottom = data.size() - depth;
+		final int newBottom = data.top - depth;
 		if (newBottom < bottomElement) throw new StackUnderflowException(String.format("Not enough elements to create substack: required %s, size %d", depth, size()));
-		return newBottom == 0? this : new Stack<E>(data, newBottom);
+		if (newBottom == 0) return this;
+
+		final Stack<E> lastSubstack = this.lastSubstack;
+		if (lastSubstack != null && lastSubstack.bottomElement == newBottom) return lastSubstack;
+
+		final Stack<E> result = new Stack<E>(data, newBottom);
+		this.lastSubstack = result;
+		return result;
 	}
 
 	public Stack<E> checkIsEmpty() {
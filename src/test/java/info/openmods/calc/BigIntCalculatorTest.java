@@ -286,4 +286,21 @@ public class BigIntCalculatorTest {
 		infix("fail('welp')").expectThrow(ExecutionErrorException.class, "welp");
 		infix("fail()").expectThrow(ExecutionErrorException.class, null);
 	}
+
+	@Test
+	public void testLongOverflowPromotion() {
+		final BigInteger longMax = v(Long.MAX_VALUE);
+		final BigInteger longMin = v(Long.MIN_VALUE);
+		sut.environment.setGlobalSymbol("max", longMax);
+		sut.environment.setGlobalSymbol("min", longMin);
+		sut.environment.setGlobalSymbol("big", v(1L << 40));
+
+		infix("max + 1").expectResult(longMax.add(BigInteger.ONE));
+		infix("min - 1").expectResult(longMin.subtract(BigInteger.ONE));
+		infix("-min").expectResult(longMin.negate());
+		infix("big * big").expectResult(v(1L << 40).pow(2));
+		infix("max * 2 - max").expectResult(longMax);
+		infix("(max + 1) - 1").expectResult(longMax);
+		infix("3 * -4 + 2").expectResult(v(-10));
+	}
 }
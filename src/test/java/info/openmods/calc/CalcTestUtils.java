@@ -12,9 +12,12 @@ import info.openmods.calc.symbol.ISymbol;
 import info.openmods.calc.types.multi.TypedCalcConstants;
 import info.openmods.calc.utils.OptionalInt;
 import info.openmods.calc.utils.Stack;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.Assert;
+import org.junit.Assume;
 
 public class CalcTestUtils {
 
@@ -143,6 +146,40 @@ public class CalcTestUtils {
 
 	public static final Token OP_DOT = op(".");
 
+	// average bytes allocated by single run, measured after warm-up (skips test if JVM can't count allocations)
+	public static long allocatedBytesPerRun(Runnable action, int runs) {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean)bean;
+		Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported() && allocationCounter.isThreadAllocatedMemoryEnabled());
+
+		for (int i = 0; i < runs; i++)
+			action.run();
+
+		final long threadId = Thread.currentThread().getId();
+		final long start = allocationCounter.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < runs; i++)
+			action.run();
+		return (allocationCounter.getThreadAllocatedBytes(threadId) - start) / runs;
+	}
+
+	public static <E> long allocatedBytesPerRun(final Environment<E> env, final IExecutable<E> expr, int runs) {
+		return allocatedBytesPerRun(new Runnable() {
+			@Override
+			public void run() {
+				env.executeAndPop(expr);
+			}
+		}, runs);
+	}
+
+	// expressions are measured in alternating rounds, so both see similar JIT state
+	public static <E> long extraAllocatedBytesPerRun(Environment<E> env, IExecutable<E> expr, IExecutable<E> baseline, int runs) {
+		long result = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++)
+			result = Math.min(result, allocatedBytesPerRun(env, expr, runs) - allocatedBytesPerRun(env, baseline, runs));
+		return result;
+	}
+
 	public static class StackCheck<E> {
 		private final Calculator<E, ExprType> sut;
 
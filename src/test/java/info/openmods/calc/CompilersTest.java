@@ -0,0 +1,194 @@
+package info.openmods.calc;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import info.openmods.calc.Compilers.ICompiler;
+import info.openmods.calc.executable.BytecodeProgram;
+import info.openmods.calc.executable.ExecutableClassGenerator;
+import info.openmods.calc.executable.ExecutableList;
+import info.openmods.calc.executable.ExecutionBackend;
+import info.openmods.calc.executable.HotExecutable;
+import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.executable.Value;
+import info.openmods.calc.parsing.BasicCompilerMapFactory;
+import info.openmods.calc.types.fp.DoubleCalculatorFactory;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompilersTest {
+
+	private static class CountingCompiler implements ICompiler<Double> {
+		private int count;
+
+		@Override
+		public IExecutable<Double> compile(String input) {
+			count++;
+			return Value.create(Double.valueOf(input));
+		}
+	}
+
+	private final CountingCompiler compiler = new CountingCompiler();
+
+	private final Compilers<Double, ExprType> sut = new Compilers<Double, ExprType>(ImmutableMap.<ExprType, ICompiler<Double>> of(ExprType.INFIX, compiler, ExprType.POSTFIX, compiler));
+
+	@Test
+	public void testNoCacheByDefault() {
+		Assert.assertFalse(sut.isCacheEnabled());
+		final IExecutable<Double> first = sut.compile(ExprType.INFIX, "1");
+		final IExecutable<Double> second = sut.compile(ExprType.INFIX, "1");
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(2, compiler.count);
+	}
+
+	@Test
+	public void testCacheHit() {
+		sut.setCacheCapacity(10);
+		final IExecutable<Double> first = sut.compile(ExprType.INFIX, "1");
+		final IExecutable<Double> second = sut.compile(ExprType.INFIX, "1");
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, compiler.count);
+
+		final CacheStats stats = sut.getCacheStats();
+		Assert.assertEquals(1, stats.hitCount());
+		Assert.assertEquals(1, stats.missCount());
+	}
+
+	@Test
+	public void testCacheKeyIncludesType() {
+		sut.setCacheCapacity(10);
+		final IExecutable<Double> infix = sut.compile(ExprType.INFIX, "1");
+		final IExecutable<Double> postfix = sut.compile(ExprType.POSTFIX, "1");
+		Assert.assertNotSame(infix, postfix);
+		Assert.assertEquals(2, compiler.count);
+	}
+
+	@Test
+	public void testCacheEviction() {
+		sut.setCacheCapacity(2);
+		sut.compile(ExprType.INFIX, "1");
+		sut.compile(ExprType.INFIX, "2");
+		sut.compile(ExprType.INFIX, "3");
+		Assert.assertEquals(1, sut.getCacheStats().evictionCount());
+
+		sut.compile(ExprType.INFIX, "1");
+		Assert.assertEquals(4, compiler.count);
+	}
+
+	@Test
+	public void testInvalidate() {
+		sut.setCacheCapacity(10);
+		sut.compile(ExprType.INFIX, "1");
+		sut.invalidateCache();
+		sut.compile(ExprType.INFIX, "1");
+		Assert.assertEquals(2, compiler.count);
+	}
+
+	@Test
+	public void testCalculatorUsesCache() {
+		final Calculator<Double, ExprType> calc = DoubleCalculatorFactory.createDefault();
+		calc.compilers.setCacheCapacity(10);
+		Assert.assertEquals(3.0, calc.compileExecuteAndPop(ExprType.INFIX, "1 + 2"), 0.0);
+		Assert.assertEquals(3.0, calc.compileExecuteAndPop(ExprType.INFIX, "1 + 2"), 0.0);
+		Assert.assertEquals(1, calc.compilers.getCacheStats().hitCount());
+	}
+
+	@Test
+	public void testHotTierCompilation() {
+		final Calculator<Double, ExprType> calc = DoubleCalculatorFactory.createDefault();
+		calc.compilers.setHotTierThreshold(2);
+		calc.environment.setGlobalSymbol("a", 1.0);
+
+		final IExecutable<Double> expr = calc.compilers.compile(ExprType.INFIX, "max(a, 2) * a + -a");
+		Assert.assertTrue(expr instanceof HotExecutable);
+		final HotExecutable<Double> hotExpr = (HotExecutable<Double>)expr;
+
+		for (int i = 0; i < 3; i++) {
+			Assert.assertFalse(hotExpr.isCompiled());
+			Assert.assertEquals(1.0, calc.environment.executeAndPop(expr), 0);
+		}
+
+		Assert.assertTrue(hotExpr.isCompiled());
+		Assert.assertEquals(1.0, calc.environment.executeAndPop(expr), 0);
+
+		calc.environment.setGlobalSymbol("a", 3.0);
+		Assert.assertEquals(6.0, calc.environment.executeAndPop(expr), 0);
+	}
+
+	@Test
+	public void testHotTierSkipsSingleCommands() {
+		sut.setHotTierThreshold(1);
+		Assert.assertEquals(Value.create(1.0), sut.compile(ExprType.INFIX, "1"));
+	}
+
+	@Test
+	public void testGeneratedClassPreservesOrder() {
+		final List<IExecutable<Double>> commands = Lists.newArrayList();
+		for (int i = 0; i < 200; i++)
+			commands.add(Value.create((double)i));
+
+		final Frame<Double> frame = FrameFactory.createTopFrame();
+		ExecutableClassGenerator.compile(commands).execute(frame);
+
+		Assert.assertEquals(200, frame.stack().size());
+		for (int i = 199; i >= 0; i--)
+			Assert.assertEquals(i, frame.stack().pop(), 0);
+	}
+
+	private static Calculator<Double, ExprType> createCalculator(ExecutionBackend backend) {
+		final Calculator<Double, ExprType> calc = new DoubleCalculatorFactory<ExprType>().create(new BasicCompilerMapFactory<Double>().setExecutionBackend(backend));
+		calc.environment.setGlobalSymbol("a", 3.0);
+		return calc;
+	}
+
+	@Test
+	public void testBytecodeBackendMatchesObjectList() {
+		final Calculator<Double, ExprType> objectCalc = createCalculator(ExecutionBackend.OBJECT_LIST);
+		final Calculator<Double, ExprType> bytecodeCalc = createCalculator(ExecutionBackend.BYTECODE);
+
+		final String[][] inputs = {
+				{ "max(a, 2) * a + -a", "a 2 max$2 a * a neg +" },
+				{ "sum(a, a, 1, 2) / 2", "a a 1 2 sum$4 2 /" },
+				{ "sqrt(a * a) - a ^ 2", "a a * sqrt a 2 ^ -" }
+		};
+
+		for (String[] input : inputs) {
+			final IExecutable<Double> objectInfix = objectCalc.compilers.compile(ExprType.INFIX, input[0]);
+			final IExecutable<Double> bytecodeInfix = bytecodeCalc.compilers.compile(ExprType.INFIX, input[0]);
+			Assert.assertTrue(objectInfix instanceof ExecutableList);
+			Assert.assertTrue(bytecodeInfix instanceof BytecodeProgram);
+			Assert.assertEquals(((ExecutableList<Double>)objectInfix).getCommands().toString(), ((BytecodeProgram<Double>)bytecodeInfix).getCommands().toString());
+			Assert.assertEquals(objectCalc.environment.executeAndPop(objectInfix), bytecodeCalc.environment.executeAndPop(bytecodeInfix));
+
+			final IExecutable<Double> bytecodePostfix = bytecodeCalc.compilers.compile(ExprType.POSTFIX, input[1]);
+			Assert.assertTrue(bytecodePostfix instanceof BytecodeProgram);
+			Assert.assertEquals(bytecodeCalc.environment.executeAndPop(bytecodeInfix), bytecodeCalc.environment.executeAndPop(bytecodePostfix));
+		}
+	}
+
+	@Test
+	public void testBytecodeBackendTracksRedefinitions() {
+		final Calculator<Double, ExprType> calc = createCalculator(ExecutionBackend.BYTECODE);
+		final IExecutable<Double> expr = calc.compilers.compile(ExprType.INFIX, "a * a + a");
+		Assert.assertEquals(12.0, calc.environment.executeAndPop(expr), 0);
+
+		calc.environment.setGlobalSymbol("a", 2.0);
+		Assert.assertEquals(6.0, calc.environment.executeAndPop(expr), 0);
+	}
+
+	@Test
+	public void testBytecodeProgramEquality() {
+		final Calculator<Double, ExprType> calc = createCalculator(ExecutionBackend.BYTECODE);
+		final IExecutable<Double> first = calc.compilers.compile(ExprType.INFIX, "max(a, 2) * sum(a, 1)");
+		final IExecutable<Double> second = calc.compilers.compile(ExprType.INFIX, "max(a, 2) * sum(a, 1)");
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(first, second);
+		Assert.assertEquals(first.hashCode(), second.hashCode());
+
+		Assert.assertNotEquals(first, calc.compilers.compile(ExprType.INFIX, "max(a, 3) * sum(a, 1)"));
+		Assert.assertNotEquals(first, calc.compilers.compile(ExprType.INFIX, "max(a, 2) * sum(a, 1, 0)"));
+		Assert.assertNotEquals(first, calc.compilers.compile(ExprType.INFIX, "max(a, 2) + sum(a, 1)"));
+		Assert.assertNotEquals(first, calc.compilers.compile(ExprType.INFIX, "max(b, 2) * sum(b, 1)"));
+	}
+}
@@ -1,9 +1,24 @@
 package info.openmods.calc;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import info.openmods.calc.CalcTestUtils.CalcCheck;
 import info.openmods.calc.CalcTestUtils.SymbolStub;
+import info.openmods.calc.executable.ExecutableList;
 import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.executable.SymbolCall;
+import info.openmods.calc.executable.SymbolGet;
+import info.openmods.calc.executable.Value;
+import info.openmods.calc.symbol.UnaryFunction;
 import info.openmods.calc.types.fp.DoubleCalculatorFactory;
+import info.openmods.calc.types.fp.DoubleExpression;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class DoubleCalculatorTest {
@@ -285,4 +300,502 @@ public class DoubleCalculatorTest {
 		infix("fail('welp')").expectThrow(ExecutionErrorException.class, "welp");
 		infix("fail()").expectThrow(ExecutionErrorException.class, null);
 	}
+
+	private IExecutable<Double> compile(ExprType type, String expr) {
+		return sut.compilers.compile(type, expr);
+	}
+
+	@Test
+	public void testConstantFolding() {
+		Assert.assertEquals(Value.create(3.0), compile(ExprType.INFIX, "1 + 2"));
+		Assert.assertEquals(Value.create(9.0), compile(ExprType.INFIX, "(1 + 2) * 3"));
+		Assert.assertEquals(Value.create(2 * Math.PI), compile(ExprType.INFIX, "2 * PI"));
+		Assert.assertEquals(Value.create(1.0), compile(ExprType.INFIX, "cos(0)"));
+		Assert.assertEquals(Value.create(-1.0), compile(ExprType.INFIX, "-abs(-1)"));
+		Assert.assertEquals(Value.create(6.0), compile(ExprType.PREFIX, "(* (+ 1 2) 2)"));
+	}
+
+	@Test
+	public void testPartialConstantFolding() {
+		sut.environment.setGlobalSymbol("r", 2.0);
+		final IExecutable<Double> expr = compile(ExprType.INFIX, "2 * PI * r");
+		Assert.assertTrue(expr instanceof ExecutableList);
+		final List<IExecutable<Double>> commands = ((ExecutableList<Double>)expr).getCommands();
+		Assert.assertEquals(3, commands.size());
+		Assert.assertEquals(Value.create(2 * Math.PI), commands.get(0));
+		Assert.assertEquals(new SymbolGet<Double>("r"), commands.get(1));
+
+		compiled(expr).expectResult(4 * Math.PI);
+		sut.environment.setGlobalSymbol("r", 3.0);
+		compiled(expr).expectResult(6 * Math.PI);
+	}
+
+	@Test
+	public void testNoFoldingOfImpureFunctions() {
+		final IExecutable<Double> expr = compile(ExprType.INFIX, "rand() + 1");
+		Assert.assertTrue(expr instanceof ExecutableList);
+		Assert.assertEquals(new SymbolCall<Double>("rand", 0, 1), ((ExecutableList<Double>)expr).getCommands().get(0));
+	}
+
+	@Test
+	public void testNoFoldingOfVariables() {
+		sut.environment.setGlobalSymbol("x", 2.0);
+		final IExecutable<Double> expr = compile(ExprType.INFIX, "x + 1");
+		Assert.assertTrue(expr instanceof ExecutableList);
+		Assert.assertEquals(new SymbolGet<Double>("x"), ((ExecutableList<Double>)expr).getCommands().get(0));
+	}
+
+	@Test
+	public void testNoFoldingInsideLet() {
+		infix("let([PI:3], PI * 2)").expectResult(6.0);
+		infix("let([abs(a):a+1], abs(1))").expectResult(2.0);
+	}
+
+	@Test
+	public void testCachedSymbolRedefinition() {
+		sut.environment.setGlobalSymbol("a", 2.0);
+		final IExecutable<Double> expr = compile(ExprType.INFIX, "a + abs(a)");
+		compiled(expr).expectResult(4.0);
+
+		sut.environment.setGlobalSymbol("a", 3.0);
+		compiled(expr).expectResult(6.0);
+
+		sut.environment.setGlobalSymbol("abs", new UnaryFunction.Direct<Double>() {
+			@Override
+			protected Double call(Double value) {
+				return value * 10;
+			}
+		});
+		compiled(expr).expectResult(33.0);
+	}
+
+	@Test
+	public void testCachedSymbolShadowing() {
+		sut.environment.setGlobalSymbol("a", 2.0);
+		final IExecutable<Double> expr = compile(ExprType.INFIX, "a");
+		compiled(expr).expectResult(2.0);
+
+		final Frame<Double> localFrame = FrameFactory.newLocalFrame(sut.environment.topFrame());
+		expr.execute(localFrame);
+		Assert.assertEquals(2.0, localFrame.stack().pop(), 0);
+
+		localFrame.symbols().put("a", 5.0);
+		expr.execute(localFrame);
+		Assert.assertEquals(5.0, localFrame.stack().pop(), 0);
+
+		compiled(expr).expectResult(2.0);
+	}
+
+	private DoubleExpression expression(String expr) {
+		return DoubleExpression.create(sut.environment, compile(ExprType.INFIX, expr));
+	}
+
+	@Test
+	public void testPrimitiveExpression() {
+		sut.environment.setGlobalSymbol("a", 1.0);
+		sut.environment.setGlobalSymbol("b", 16.0);
+		final DoubleExpression expr = expression("max(a, 2, -a) * sqrt(b) + -a % 3 + atan2(0, a) + avg(a, b)");
+		Assert.assertTrue(expr.isPrimitive());
+		Assert.assertEquals(2 * 4 + -1.0 % 3 + Math.atan2(0, 1) + 8.5, expr.evaluate(), 0);
+
+		sut.environment.setGlobalSymbol("a", 5.0);
+		Assert.assertEquals(5 * 4 + -5.0 % 3 + Math.atan2(0, 5) + 10.5, expr.evaluate(), 0);
+	}
+
+	@Test
+	public void testPrimitiveExpressionWithHotTier() {
+		sut.compilers.setHotTierThreshold(10);
+		sut.environment.setGlobalSymbol("a", 3.0);
+		final DoubleExpression expr = expression("max(a, 2) * sqrt(a * a) + -a");
+		Assert.assertTrue(expr.isPrimitive());
+		Assert.assertEquals(6.0, expr.evaluate(), 0);
+	}
+
+	@Test
+	public void testPrimitiveExpressionDoesNotAllocate() {
+		sut.environment.setGlobalSymbol("a", 3.0);
+		final DoubleExpression expr = expression("max(a, 2, -a) * sqrt(a * a) + -a % 3 + atan2(0, a)");
+		Assert.assertTrue(expr.isPrimitive());
+
+		final long allocatedBytes = CalcTestUtils.allocatedBytesPerRun(new Runnable() {
+			@Override
+			public void run() {
+				expr.evaluate();
+			}
+		}, 10000);
+		Assert.assertEquals(0, allocatedBytes);
+	}
+
+	@Test
+	public void testPrimitiveExpressionFallback() {
+		sut.environment.setGlobalSymbol("a", 2.0);
+		final DoubleExpression expr = expression("let([x:a], x + 1)");
+		Assert.assertFalse(expr.isPrimitive());
+		Assert.assertEquals(3.0, expr.evaluate(), 0);
+
+		Assert.assertFalse(expression("rand() * 0").isPrimitive());
+		Assert.assertEquals(0.0, expression("rand() * 0").evaluate(), 0);
+	}
+
+	@Test
+	public void testPrimitiveExpressionWithRedefinedFunction() {
+		sut.environment.setGlobalSymbol("a", -2.0);
+		final DoubleExpression expr = expression("abs(a) + 1");
+		Assert.assertTrue(expr.isPrimitive());
+		Assert.assertEquals(3.0, expr.evaluate(), 0);
+
+		sut.environment.setGlobalSymbol("abs", new UnaryFunction.Direct<Double>() {
+			@Override
+			protected Double call(Double value) {
+				return value * 10;
+			}
+		});
+		Assert.assertEquals(-19.0, expr.evaluate(), 0);
+	}
+
+	@Test
+	public void testBatchEvaluation() {
+		sut.environment.setGlobalSymbol("k", 10.0);
+		final BatchEvaluator<Double> batch = sut.compileBatch(ExprType.INFIX, "x * k + y");
+		batch.bind("x", BatchEvaluator.InputColumn.of(new double[] { 1, 2, 3 }));
+		batch.bind("y", new Double[] { 0.5, 0.25, 0.125 });
+
+		final double[] output = new double[3];
+		final BatchEvaluator.Result result = batch.evaluate(BatchEvaluator.OutputColumn.of(output));
+		Assert.assertEquals(3, result.rowCount());
+		Assert.assertFalse(result.hasFailures());
+		Assert.assertArrayEquals(new double[] { 10.5, 20.25, 30.125 }, output, 0);
+
+		sut.environment.setGlobalSymbol("k", 100.0);
+		final Double[] boxedOutput = new Double[3];
+		batch.evaluate(boxedOutput);
+		Assert.assertArrayEquals(new Double[] { 100.5, 200.25, 300.125 }, boxedOutput);
+	}
+
+	@Test
+	public void testBatchEvaluationReportsRowFailures() {
+		sut.environment.setGlobalSymbol("check", new UnaryFunction.Direct<Double>() {
+			@Override
+			protected Double call(Double value) {
+				if (value < 0) throw new IllegalArgumentException("negative");
+				return value;
+			}
+		});
+
+		final BatchEvaluator<Double> batch = sut.compileBatch(ExprType.INFIX, "check(x) + 1");
+		batch.bind("x", BatchEvaluator.InputColumn.of(new double[] { 1, -1, 2, -2 }));
+
+		final List<Double> output = Lists.newArrayList(0.0, 0.0, 0.0, 0.0);
+		final BatchEvaluator.Result result = batch.evaluate(output);
+		Assert.assertEquals(2, result.failureCount());
+		Assert.assertEquals(ImmutableSet.of(1, 3), result.failures().keySet());
+		Assert.assertEquals(Lists.newArrayList(2.0, sut.environment.nullValue(), 3.0, sut.environment.nullValue()), output);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBatchEvaluationColumnSizeMismatch() {
+		final BatchEvaluator<Double> batch = sut.compileBatch(ExprType.INFIX, "x + y");
+		batch.bind("x", BatchEvaluator.InputColumn.of(new double[] { 1, 2 }));
+		batch.bind("y", BatchEvaluator.InputColumn.of(new double[] { 1 }));
+		batch.evaluate(new Double[2]);
+	}
+
+	@Test
+	public void testExecutionContextIsolation() {
+		sut.environment.setGlobalSymbol("k", 1.0);
+		final IExecutable<Double> expr = sut.compilers.compile(ExprType.INFIX, "x * 2 + k");
+
+		final ExecutionContext<Double> first = sut.environment.createContext();
+		first.setSymbol("x", 3.0);
+		final ExecutionContext<Double> second = sut.environment.createContext();
+		second.setSymbol("x", 5.0);
+
+		Assert.assertEquals(7.0, first.executeAndPop(expr), 0);
+		Assert.assertEquals(11.0, second.executeAndPop(expr), 0);
+		Assert.assertEquals(7.0, first.getSymbol(Environment.VAR_ANS).get(), 0);
+		Assert.assertNull(sut.environment.topFrame().symbols().get("x"));
+		Assert.assertNull(sut.environment.topFrame().symbols().get(Environment.VAR_ANS));
+
+		sut.environment.setGlobalSymbol("k", 10.0);
+		Assert.assertEquals(16.0, first.executeAndPop(expr), 0);
+	}
+
+	@Test
+	public void testCompiledFunctionInExecutionContext() {
+		sut.compileAndDefineGlobalFunction(ExprType.INFIX, "sq", 1, "_1 * _1");
+		final ExecutionContext<Double> context = sut.environment.createContext();
+		Assert.assertEquals(9.0, context.executeAndPop(sut.compilers.compile(ExprType.INFIX, "sq(3)")), 0);
+		Assert.assertTrue(sut.environment.topFrame().stack().isEmpty());
+	}
+
+	@Test
+	public void testConcurrentExecutionContexts() throws Exception {
+		sut.compilers.setHotTierThreshold(100);
+		sut.environment.setGlobalSymbol("k", 1.0);
+		sut.compileAndDefineGlobalFunction(ExprType.INFIX, "sq", 1, "_1 * _1");
+		final IExecutable<Double> expr = sut.compilers.compile(ExprType.INFIX, "max(x, k) * x + sqrt(sq(x))");
+
+		final int threadCount = 4;
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<Boolean>> results = Lists.newArrayList();
+			for (int i = 0; i < threadCount; i++) {
+				final double x = i + 2;
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						final ExecutionContext<Double> context = sut.environment.createContext();
+						context.setSymbol("x", x);
+						for (int j = 0; j < 10000; j++)
+							if (context.executeAndPop(expr) != x * x + x) return false;
+						return true;
+					}
+				}));
+			}
+
+			for (Future<Boolean> result : results)
+				Assert.assertTrue(result.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelBatchEvaluation() {
+		sut.environment.setGlobalSymbol("check", new UnaryFunction.Direct<Double>() {
+			@Override
+			protected Double call(Double value) {
+				if (value % 7 == 0) throw new IllegalArgumentException("multiple of 7");
+				return value;
+			}
+		});
+
+		final int rowCount = 1000;
+		final double[] input = new double[rowCount];
+		for (int i = 0; i < rowCount; i++)
+			input[i] = i + 1;
+
+		final BatchEvaluator<Double> batch = sut.compileBatch(ExprType.INFIX, "check(x) * 2");
+		batch.bind("x", BatchEvaluator.InputColumn.of(input));
+
+		final double[] sequentialOutput = new double[rowCount];
+		final BatchEvaluator.Result sequentialResult = batch.evaluate(BatchEvaluator.OutputColumn.of(sequentialOutput));
+
+		final double[] parallelOutput = new double[rowCount];
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final BatchEvaluator.Result parallelResult = batch.evaluateParallel(BatchEvaluator.OutputColumn.of(parallelOutput), executor, 64);
+			Assert.assertEquals(rowCount / 7, parallelResult.failureCount());
+			Assert.assertEquals(sequentialResult.failures().keySet(), parallelResult.failures().keySet());
+		} finally {
+			executor.shutdown();
+		}
+
+		Assert.assertArrayEquals(sequentialOutput, parallelOutput, 0);
+		Assert.assertEquals(2.0, parallelOutput[0], 0);
+		Assert.assertEquals(sut.environment.nullValue(), parallelOutput[6], 0);
+	}
+
+	@Test
+	public void testBatchEvaluationUsesExecutionBudget() {
+		sut.compileAndDefineGlobalFunction(ExprType.INFIX, "twice", 1, "_1 * 2");
+		final BatchEvaluator<Double> batch = sut.compileBatch(ExprType.INFIX, "twice(twice(x)) + twice(x)");
+		batch.bind("x", BatchEvaluator.InputColumn.of(new double[] { 1, 2, 3 }));
+
+		sut.environment.setExecutionBudget(ExecutionBudget.create().setMaxInstructions(3));
+		final Double[] output = new Double[3];
+		final BatchEvaluator.Result result = batch.evaluate(output);
+		Assert.assertEquals(ImmutableSet.of(0, 1, 2), result.failures().keySet());
+		for (Exception e : result.failures().values())
+			Assert.assertEquals(ExecutionBudget.Limit.INSTRUCTIONS, ((ExecutionBudgetExceededException)e).limit);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final BatchEvaluator.Result parallelResult = batch.evaluateParallel(BatchEvaluator.OutputColumn.of(output), executor, 2);
+			Assert.assertEquals(ImmutableSet.of(0, 1, 2), parallelResult.failures().keySet());
+		} finally {
+			executor.shutdown();
+		}
+
+		sut.environment.setExecutionBudget(null);
+		Assert.assertFalse(batch.evaluate(output).hasFailures());
+		Assert.assertArrayEquals(new Double[] { 6.0, 12.0, 18.0 }, output);
+	}
+
+	@Test
+	public void testParallelEvaluationOfManyExpressions() {
+		sut.compileAndDefineGlobalFunction(ExprType.INFIX, "twice", 1, "_1 * 2");
+		final List<IExecutable<Double>> expressions = Lists.newArrayList();
+		for (int i = 0; i < 100; i++)
+			expressions.add(sut.compilers.compile(ExprType.INFIX, "twice(" + i + ") + 1"));
+		expressions.add(sut.compilers.compile(ExprType.INFIX, "unknown + 1"));
+
+		final Double[] output = new Double[expressions.size()];
+		final BatchEvaluator.Result result = BatchEvaluator.evaluateAllParallel(sut.environment, expressions, BatchEvaluator.OutputColumn.of(output));
+		for (int i = 0; i < 100; i++)
+			Assert.assertEquals(i * 2 + 1, output[i], 0);
+
+		Assert.assertEquals(ImmutableSet.of(100), result.failures().keySet());
+	}
+
+	private static class RecordingListener implements IExecutionListener {
+		private final List<String> events = Lists.newArrayList();
+
+		@Override
+		public void enter(Kind kind, String id, Frame<?> frame) {
+			events.add("enter " + kind + " " + id);
+		}
+
+		@Override
+		public void exit(Kind kind, String id, Frame<?> frame) {
+			events.add("exit " + kind + " " + id);
+		}
+	}
+
+	@Test
+	public void testExecutionListenerEvents() {
+		sut.environment.setGlobalSymbol("x", 2.0);
+		sut.environment.setGlobalSymbol("y", -3.0);
+
+		final RecordingListener listener = new RecordingListener();
+		sut.environment.setExecutionListener(listener);
+		infix("x + abs(y)").expectResult(5.0);
+
+		Assert.assertEquals(Lists.newArrayList(
+				"enter SYMBOL_GET x", "exit SYMBOL_GET x",
+				"enter SYMBOL_GET y", "exit SYMBOL_GET y",
+				"enter SYMBOL_CALL abs", "exit SYMBOL_CALL abs",
+				"enter OPERATOR +", "exit OPERATOR +"),
+				listener.events);
+
+		sut.environment.setExecutionListener(null);
+		listener.events.clear();
+		infix("x + abs(y)").expectResult(5.0);
+		Assert.assertTrue(listener.events.isEmpty());
+	}
+
+	@Test
+	public void testExecutionListenerInContexts() {
+		final RecordingListener listener = new RecordingListener();
+		sut.environment.setExecutionListener(listener);
+
+		final ExecutionContext<Double> context = sut.environment.createContext();
+		context.setSymbol("x", 4.0);
+		Assert.assertEquals(2.0, context.executeAndPop(sut.compilers.compile(ExprType.INFIX, "sqrt(x)")), 0);
+		Assert.assertEquals(Lists.newArrayList(
+				"enter SYMBOL_GET x", "exit SYMBOL_GET x",
+				"enter SYMBOL_CALL sqrt", "exit SYMBOL_CALL sqrt"),
+				listener.events);
+	}
+
+	@Test
+	public void testExecutionProfilerCounts() {
+		sut.environment.setGlobalSymbol("x", 2.0);
+		final ExecutionProfiler profiler = new ExecutionProfiler();
+		sut.environment.setExecutionListener(profiler);
+
+		final IExecutable<Double> expr = sut.compilers.compile(ExprType.INFIX, "x * x + abs(x)");
+		for (int i = 0; i < 10; i++)
+			sut.environment.executeAndPop(expr);
+
+		Assert.assertEquals(30, profiler.get(IExecutionListener.Kind.SYMBOL_GET, "x").calls());
+		Assert.assertEquals(10, profiler.get(IExecutionListener.Kind.SYMBOL_CALL, "abs").calls());
+		Assert.assertEquals(10, profiler.get(IExecutionListener.Kind.OPERATOR, "*").calls());
+		Assert.assertEquals(10, profiler.get(IExecutionListener.Kind.OPERATOR, "+").calls());
+
+		final ExecutionProfiler.Entry abs = profiler.get(IExecutionListener.Kind.SYMBOL_CALL, "abs");
+		Assert.assertTrue(abs.totalNanos() >= abs.selfNanos());
+		Assert.assertEquals(4, profiler.snapshot().size());
+
+		profiler.reset();
+		Assert.assertTrue(profiler.snapshot().isEmpty());
+	}
+
+	@Test
+	public void testSamplingExecutionProfiler() {
+		sut.environment.setGlobalSymbol("x", 2.0);
+		final ExecutionProfiler profiler = new ExecutionProfiler(4, false);
+		sut.environment.setExecutionListener(profiler);
+
+		final IExecutable<Double> expr = sut.compilers.compile(ExprType.INFIX, "abs(x)");
+		for (int i = 0; i < 12; i++)
+			sut.environment.executeAndPop(expr);
+
+		// get and call are separate top-level executions, so every fourth one is 'x' get
+		Assert.assertEquals(6, profiler.get(IExecutionListener.Kind.SYMBOL_GET, "x").calls());
+		Assert.assertNull(profiler.get(IExecutionListener.Kind.SYMBOL_CALL, "abs"));
+	}
+
+	@Test
+	public void testReactiveDefinitions() {
+		final ReactiveDefinitions<Double, ExprType> defs = sut.createReactiveDefinitions();
+		final List<String> changes = Lists.newArrayList();
+		defs.addListener(new ReactiveDefinitions.IChangeListener<Double>() {
+			@Override
+			public void onChange(String id, Double oldValue, Double newValue) {
+				changes.add(id + ":" + oldValue + "->" + newValue);
+			}
+		});
+
+		defs.setInput("a", 1.0);
+		defs.setInput("b", 2.0);
+		defs.setInput("c", 3.0);
+		Assert.assertEquals(3.0, defs.define(ExprType.INFIX, "sum", "a + b"), 0);
+		Assert.assertEquals(6.0, defs.define(ExprType.INFIX, "double", "sum * 2"), 0);
+		Assert.assertEquals(3.0, defs.define(ExprType.INFIX, "other", "c"), 0);
+		Assert.assertEquals(ImmutableSet.of("a", "b"), defs.getDependencies("sum"));
+
+		changes.clear();
+		defs.setInput("a", 5.0);
+		Assert.assertEquals(Lists.newArrayList("sum:3.0->7.0", "double:6.0->14.0"), changes);
+		infix("double").expectResult(14.0);
+
+		// unchanged value does not propagate further
+		changes.clear();
+		defs.setInputs(ImmutableMap.of("a", 4.0, "b", 3.0));
+		Assert.assertTrue(changes.isEmpty());
+
+		// redefinition updates dependents
+		changes.clear();
+		defs.define(ExprType.INFIX, "sum", "a - b");
+		Assert.assertEquals(Lists.newArrayList("sum:7.0->1.0", "double:14.0->2.0"), changes);
+		Assert.assertEquals(2.0, defs.getValue("double"), 0);
+	}
+
+	@Test
+	public void testReactiveDefinitionsEvaluateOnlyAffected() {
+		final ReactiveDefinitions<Double, ExprType> defs = sut.createReactiveDefinitions();
+		final int[] callCount = new int[1];
+		sut.environment.setGlobalSymbol("expensive", new UnaryFunction.Direct<Double>() {
+			@Override
+			protected Double call(Double value) {
+				callCount[0]++;
+				return value;
+			}
+		});
+
+		defs.setInput("x", 1.0);
+		defs.setInput("y", 1.0);
+		defs.define(ExprType.INFIX, "left", "x + 1");
+		defs.define(ExprType.INFIX, "right", "expensive(y)");
+		defs.define(ExprType.INFIX, "top", "left + right");
+		Assert.assertEquals(1, callCount[0]);
+
+		defs.setInput("x", 2.0);
+		Assert.assertEquals(1, callCount[0]);
+		Assert.assertEquals(4.0, defs.getValue("top"), 0);
+
+		defs.setInput("y", 2.0);
+		Assert.assertEquals(2, callCount[0]);
+		Assert.assertEquals(5.0, defs.getValue("top"), 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReactiveDefinitionsRejectCycles() {
+		final ReactiveDefinitions<Double, ExprType> defs = sut.createReactiveDefinitions();
+		defs.setInput("b", 1.0);
+		defs.define(ExprType.INFIX, "a", "b + 1");
+		defs.undefine("b");
+		defs.define(ExprType.INFIX, "b", "a + 1");
+	}
 }
@@ -1,16 +1,19 @@
 package info.openmods.calc;
 
 import info.openmods.calc.types.multi.IConverter;
+import info.openmods.calc.types.multi.MetaObject;
 import info.openmods.calc.types.multi.TypeDomain;
 import info.openmods.calc.types.multi.TypeDomain.Coercion;
 import info.openmods.calc.types.multi.TypedValue;
+import info.openmods.calc.types.multi.TypedValueComparator;
+import java.math.BigInteger;
 import org.junit.Assert;
 import org.junit.Test;
 
 public class MultiValueTest {
 
 	private static void assertValueEquals(TypedValue value, TypeDomain expectedDomain, Class<?> expectedType, Object expectedValue) {
-		Assert.assertEquals(expectedValue, value.value);
+		Assert.assertEquals(expectedValue, value.value());
 		Assert.assertEquals(expectedType, value.type);
 		Assert.assertEquals(expectedDomain, value.domain);
 	}
@@ -56,6 +59,24 @@ public class MultiValueTest {
 		assertValueEquals(numberValue, domain, Number.class, Integer.valueOf(123));
 	}
 
+	@Test
+	public void testIntegerRepresentations() {
+		final TypeDomain domain = new TypeDomain();
+		domain.registerType(BigInteger.class);
+
+		final BigInteger value = BigInteger.valueOf(Long.MAX_VALUE);
+		final TypedValue compact = domain.create(BigInteger.class, value);
+		// values with own metaobject keep plain BigInteger
+		final TypedValue plain = domain.create(BigInteger.class, value, MetaObject.builder().build());
+		assertValueEquals(compact, domain, BigInteger.class, value);
+
+		Assert.assertEquals(compact, plain);
+		Assert.assertEquals(plain, compact);
+		Assert.assertEquals(compact.hashCode(), plain.hashCode());
+		Assert.assertEquals(0, new TypedValueComparator().compare(compact, plain));
+		Assert.assertEquals(-1, new TypedValueComparator().compare(domain.create(BigInteger.class, BigInteger.ONE), plain));
+	}
+
 	@Test
 	public void testCoercion() {
 		final TypeDomain domain = new TypeDomain();
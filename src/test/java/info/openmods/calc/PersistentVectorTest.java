@@ -0,0 +1,130 @@
+package info.openmods.calc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import info.openmods.calc.types.multi.PersistentVector;
+import info.openmods.calc.types.multi.TypeDomain;
+import info.openmods.calc.types.multi.TypedValue;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentVectorTest {
+
+	private static final TypeDomain domain = new TypeDomain();
+	static {
+		domain.registerType(Integer.class);
+	}
+
+	// sizes around edges of tail and trie levels
+	private static final int[] SIZES = { 0, 1, 31, 32, 33, 64, 65, 1024, 1055, 1056, 1057, 33 * 32 * 32 + 1 };
+
+	private static TypedValue wrap(int v) {
+		return domain.create(Integer.class, v);
+	}
+
+	private static List<TypedValue> values(int start, int end) {
+		final List<TypedValue> result = Lists.newArrayList();
+		for (int i = start; i < end; i++)
+			result.add(wrap(i));
+		return result;
+	}
+
+	private static void assertContents(List<TypedValue> expected, PersistentVector actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+			Assert.assertEquals(expected.get(i), actual.get(i));
+		Assert.assertEquals(expected, ImmutableList.copyOf(actual));
+	}
+
+	@Test
+	public void testEmpty() {
+		Assert.assertTrue(PersistentVector.EMPTY.isEmpty());
+		Assert.assertEquals(0, PersistentVector.EMPTY.size());
+		Assert.assertFalse(PersistentVector.EMPTY.iterator().hasNext());
+		Assert.assertSame(PersistentVector.EMPTY, PersistentVector.create());
+	}
+
+	@Test
+	public void testBuilder() {
+		for (int size : SIZES) {
+			final List<TypedValue> expected = values(0, size);
+			assertContents(expected, PersistentVector.create(expected));
+		}
+	}
+
+	@Test
+	public void testAppend() {
+		final int maxSize = SIZES[SIZES.length - 1];
+		PersistentVector vector = PersistentVector.EMPTY;
+		for (int i = 0; i < maxSize; i++)
+			vector = vector.append(wrap(i));
+
+		assertContents(values(0, maxSize), vector);
+	}
+
+	@Test
+	public void testAppendToBuiltVector() {
+		for (int size : SIZES) {
+			PersistentVector vector = PersistentVector.create(values(0, size));
+			for (int i = size; i < size + 40; i++)
+				vector = vector.append(wrap(i));
+			assertContents(values(0, size + 40), vector);
+		}
+	}
+
+	@Test
+	public void testAppendDoesNotModifyOriginal() {
+		final PersistentVector original = PersistentVector.create(values(0, 32));
+		final PersistentVector a = original.append(wrap(100));
+		final PersistentVector b = original.append(wrap(200));
+
+		assertContents(values(0, 32), original);
+		Assert.assertEquals(wrap(100), a.get(32));
+		Assert.assertEquals(wrap(200), b.get(32));
+	}
+
+	@Test
+	public void testSlice() {
+		final List<TypedValue> expected = values(0, 2000);
+		final PersistentVector vector = PersistentVector.create(expected);
+
+		assertContents(expected.subList(0, 0), vector.slice(0, 0));
+		assertContents(expected.subList(10, 50), vector.slice(10, 50));
+		assertContents(expected.subList(1000, 2000), vector.slice(1000, 2000));
+		assertContents(expected.subList(1990, 1995), vector.slice(1980, 2000).slice(10, 15));
+		Assert.assertSame(vector, vector.slice(0, 2000));
+	}
+
+	@Test
+	public void testAppendToSlice() {
+		final PersistentVector vector = PersistentVector.create(values(0, 100));
+
+		final PersistentVector head = vector.slice(0, 50).append(wrap(-1));
+		final List<TypedValue> expectedHead = values(0, 50);
+		expectedHead.add(wrap(-1));
+		assertContents(expectedHead, head);
+
+		final PersistentVector tail = vector.slice(60, 100).append(wrap(-2));
+		final List<TypedValue> expectedTail = values(60, 100);
+		expectedTail.add(wrap(-2));
+		assertContents(expectedTail, tail);
+
+		assertContents(values(0, 100), vector);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testIndexOutOfSlice() {
+		PersistentVector.create(values(0, 100)).slice(10, 20).get(10);
+	}
+
+	@Test
+	public void testEquals() {
+		final PersistentVector a = PersistentVector.create(values(0, 100)).slice(20, 40);
+		final PersistentVector b = PersistentVector.create(values(20, 40));
+		Assert.assertEquals(a, b);
+		Assert.assertEquals(a.hashCode(), b.hashCode());
+		Assert.assertNotEquals(a, b.append(wrap(0)));
+		Assert.assertNotEquals(a, PersistentVector.create(values(21, 41)));
+	}
+}
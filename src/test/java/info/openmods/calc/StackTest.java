@@ -309,4 +309,53 @@ public class StackTest {
 		Assert.assertTrue(substack.isEmpty());
 		Assert.assertTrue(stack.isEmpty());
 	}
+
+	@Test
+	public void testGrowBeyondInitialCapacity() {
+		final Stack<Integer> stack = new Stack<Integer>(2);
+		for (int i = 0; i < 100; i++)
+			stack.push(i);
+
+		Assert.assertEquals(100, stack.size());
+		for (int i = 99; i >= 0; i--)
+			Assert.assertEquals(Integer.valueOf(i), stack.pop());
+		Assert.assertTrue(stack.isEmpty());
+	}
+
+	@Test
+	public void testDrop() {
+		stack.push(1);
+		stack.push(2);
+		stack.push(3);
+		stack.push(4);
+
+		Assert.assertEquals(Integer.valueOf(3), stack.drop(1));
+		assertValuesOnStack(stack, 1, 2, 4);
+
+		Assert.assertEquals(Integer.valueOf(1), stack.drop(2));
+		assertValuesOnStack(stack, 2, 4);
+	}
+
+	@Test(expected = StackUnderflowException.class)
+	public void testDropUnderSubstack() {
+		stack.push(1);
+		stack.push(2);
+
+		stack.substack(1).drop(1);
+	}
+
+	@Test
+	public void testSubstackViewReuse() {
+		stack.push(1);
+		stack.push(2);
+
+		final Stack<Integer> substack = stack.substack(1);
+		Assert.assertSame(substack, stack.substack(1));
+
+		substack.push(3);
+		final Stack<Integer> otherSubstack = stack.substack(1);
+		Assert.assertNotSame(substack, otherSubstack);
+		assertValuesOnStack(otherSubstack, 3);
+		assertValuesOnStack(substack, 2, 3);
+	}
 }
@@ -0,0 +1,79 @@
+package info.openmods.calc;
+
+import com.google.common.collect.Lists;
+import info.openmods.calc.types.multi.Symbol;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SymbolTest {
+
+	@Test
+	public void testIdentity() {
+		final Symbol a = Symbol.get("test_identity");
+		Assert.assertSame(a, Symbol.get("test_identity"));
+		Assert.assertSame(a, Symbol.get(new String("test_identity")));
+		Assert.assertNotSame(a, Symbol.get("test_identity2"));
+		Assert.assertEquals("test_identity", a.value);
+	}
+
+	@Test
+	public void testConcurrentInterning() throws Exception {
+		final int threadCount = 8;
+		final int symbolCount = 2000;
+		final CountDownLatch start = new CountDownLatch(1);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			final List<Future<Symbol[]>> results = Lists.newArrayList();
+			for (int t = 0; t < threadCount; t++) {
+				results.add(executor.submit(new Callable<Symbol[]>() {
+					@Override
+					public Symbol[] call() throws Exception {
+						start.await();
+						final Symbol[] result = new Symbol[symbolCount];
+						for (int i = 0; i < symbolCount; i++)
+							result[i] = Symbol.get("stress_" + i);
+						return result;
+					}
+				}));
+			}
+
+			start.countDown();
+
+			final Symbol[] expected = results.get(0).get();
+			for (Future<Symbol[]> result : results) {
+				final Symbol[] actual = result.get();
+				for (int i = 0; i < symbolCount; i++)
+					Assert.assertSame(expected[i], actual[i]);
+			}
+
+			for (int i = 0; i < symbolCount; i++)
+				Assert.assertSame(expected[i], Symbol.get("stress_" + i));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static WeakReference<Symbol> createUnreferencedSymbol() {
+		return new WeakReference<Symbol>(Symbol.get("unused_" + System.nanoTime()));
+	}
+
+	@Test
+	public void testUnusedSymbolsAreCollected() throws Exception {
+		final WeakReference<Symbol> ref = createUnreferencedSymbol();
+
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		Assert.assertNull(ref.get());
+	}
+}
@@ -7,6 +7,7 @@ import info.openmods.calc.parsing.token.Token;
 import info.openmods.calc.parsing.token.Tokenizer;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -264,6 +265,15 @@ public class TokenizerTest extends CalcTestUtils {
 				dec("3.4"));
 	}
 
+	@Test
+	public void testOperatorAddedAfterTokenizing() {
+		factory.addOperator("+");
+		verifyTokens("1+2", dec("1"), op("+"), dec("2"));
+		factory.addOperator("+=");
+		verifyTokens("1+=2", dec("1"), op("+="), dec("2"));
+		verifyTokens("1+2", dec("1"), op("+"), dec("2"));
+	}
+
 	@Test
 	public void testModifiers() {
 		factory.addModifier("+");
@@ -371,4 +381,35 @@ public class TokenizerTest extends CalcTestUtils {
 		verifyTokens(" ( 1 , 2 ) ", LEFT_BRACKET, dec("1"), COMMA, dec("2"), RIGHT_BRACKET);
 		verifyTokens("(1+0x2,2)", LEFT_BRACKET, dec("1"), op("+"), hex("2"), COMMA, dec("2"), RIGHT_BRACKET);
 	}
+
+	@Test
+	public void testCharSequenceInput() {
+		factory.addOperator("+");
+		final StringBuilder input = new StringBuilder("0x1+'a'+b$2");
+		final Collection<Token> tokens = Lists.newArrayList(factory.tokenize(input));
+		Assert.assertArrayEquals(new Token[] { hex("1"), op("+"), string("a"), op("+"), symbol_args("b$2") }, tokens.toArray(new Token[tokens.size()]));
+	}
+
+	@Test
+	public void testLongInput() {
+		factory.addOperator("+");
+		factory.addOperator("*");
+
+		final int count = 10000;
+		final StringBuilder input = new StringBuilder();
+		final List<Token> expected = Lists.newArrayList();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				input.append(" + ");
+				expected.add(op("+"));
+			}
+			input.append("x").append(i).append("*0x").append(Integer.toHexString(i));
+			expected.add(symbol("x" + i));
+			expected.add(op("*"));
+			expected.add(hex(Integer.toHexString(i)));
+		}
+
+		final List<Token> actual = Lists.newArrayList(factory.tokenize(input));
+		Assert.assertEquals(expected, actual);
+	}
 }
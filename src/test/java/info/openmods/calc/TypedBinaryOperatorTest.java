@@ -2,6 +2,7 @@ package info.openmods.calc;
 
 import com.google.common.base.Optional;
 import info.openmods.calc.executable.BinaryOperator;
+import info.openmods.calc.types.multi.IConverter;
 import info.openmods.calc.types.multi.MetaObject;
 import info.openmods.calc.types.multi.TypeDomain;
 import info.openmods.calc.types.multi.TypeDomain.Coercion;
@@ -17,7 +18,7 @@ import org.junit.Test;
 public class TypedBinaryOperatorTest {
 
 	private static void assertValueEquals(TypedValue value, TypeDomain expectedDomain, Class<?> expectedType, Object expectedValue) {
-		Assert.assertEquals(expectedValue, value.value);
+		Assert.assertEquals(expectedValue, value.value());
 		Assert.assertEquals(expectedType, value.type);
 		Assert.assertEquals(expectedDomain, value.domain);
 	}
@@ -135,6 +136,66 @@ public class TypedBinaryOperatorTest {
 		assertValueEquals(result, domain, Integer.class, 5);
 	}
 
+	@Test
+	public void testCoercionConvertsValue() {
+		final TypeDomain domain = new TypeDomain();
+		domain.registerType(Integer.class);
+		domain.registerType(String.class);
+
+		domain.registerConverter(new IConverter<Integer, String>() {
+			@Override
+			public String convert(Integer value) {
+				return "#" + value;
+			}
+		});
+		domain.registerCoercionRule(String.class, Integer.class, Coercion.TO_LEFT);
+
+		final BinaryOperator<TypedValue> op = new TypedBinaryOperator.Builder("+", 0)
+				.registerOperation(new ISimpleCoercedOperation<String, String>() {
+					@Override
+					public String apply(String left, String right) {
+						return left + right;
+					}
+				}).build(domain);
+
+		assertValueEquals(execute(op, domain.create(String.class, "a"), domain.create(Integer.class, 3)), domain, String.class, "a#3");
+		assertValueEquals(execute(op, domain.create(String.class, "a"), domain.create(String.class, "b")), domain, String.class, "ab");
+	}
+
+	@Test
+	public void testRegistrationsAfterBuild() {
+		final TypeDomain domain = new TypeDomain();
+		domain.registerType(Integer.class);
+
+		final BinaryOperator<TypedValue> op = new TypedBinaryOperator.Builder("+", 0)
+				.registerOperation(new ISimpleCoercedOperation<Integer, Integer>() {
+					@Override
+					public Integer apply(Integer left, Integer right) {
+						return left + right;
+					}
+				}).build(domain);
+
+		assertValueEquals(execute(op, domain.create(Integer.class, 2), domain.create(Integer.class, 3)), domain, Integer.class, 5);
+
+		domain.registerType(Short.class);
+		domain.registerConverter(new IConverter<Short, Integer>() {
+			@Override
+			public Integer convert(Short value) {
+				return value.intValue();
+			}
+		});
+
+		try {
+			execute(op, domain.create(Short.class, (short)2), domain.create(Integer.class, 3));
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// no coercion rule yet
+		}
+
+		domain.registerCoercionRule(Short.class, Integer.class, Coercion.TO_RIGHT);
+		assertValueEquals(execute(op, domain.create(Short.class, (short)2), domain.create(Integer.class, 3)), domain, Integer.class, 5);
+	}
+
 	@Test
 	public void testDefaultOperation() {
 		final TypeDomain domain = new TypeDomain();
@@ -62,13 +62,13 @@ public class TypedFunctionTest {
 	}
 
 	private static <T> void assertValueEquals(TypedValue value, Class<? extends T> expectedType, T expectedValue) {
-		Assert.assertEquals(expectedValue, value.value);
+		Assert.assertEquals(expectedValue, value.value());
 		Assert.assertEquals(expectedType, value.type);
 		Assert.assertEquals(domain, value.domain);
 	}
 
 	private static void assertValueEquals(TypedValue value, TypedValue expected) {
-		assertValueEquals(value, expected.type, expected.value);
+		assertValueEquals(value, expected.type, expected.value());
 	}
 
 	private static TypedValue execute(ICallable<TypedValue> f, TypedValue... values) {
@@ -323,6 +323,60 @@ public class TypedFunctionTest {
 		Mockito.verifyNoMoreInteractions(mock);
 	}
 
+	@Test
+	public void testSingleMethodManyArgs() {
+		abstract class Intf {
+			@Variant
+			public abstract String test(Integer a, Boolean b, String c, @RawArg TypedValue d, Number e, @OptionalArgs Optional<Integer> f);
+		}
+
+		final Intf mock = Mockito.mock(Intf.class);
+		ICallable<TypedValue> target = createFunction(mock, Intf.class);
+
+		final TypedValue arg4 = wrap(4);
+		Mockito.when(mock.test(anyInt(), anyBoolean(), anyString(), any(TypedValue.class), any(Number.class), ArgumentMatchers.<Optional<Integer>> any())).thenReturn("ok");
+
+		assertValueEquals(execute(target, wrap(1), wrap(true), wrap("3"), arg4, wrap(5)), String.class, "ok");
+		Mockito.verify(mock).test(1, true, "3", arg4, 5, Optional.<Integer> absent());
+
+		assertValueEquals(execute(target, wrap(1), wrap(false), wrap("3"), arg4, wrap(5), wrap(6)), String.class, "ok");
+		Mockito.verify(mock).test(1, false, "3", arg4, 5, Optional.of(6));
+
+		Mockito.verifyNoMoreInteractions(mock);
+	}
+
+	@Test(expected = TypedFunction.MethodInvokeException.class)
+	public void testTooManyArgs() {
+		abstract class Intf {
+			@Variant
+			public abstract Integer test(Integer a);
+		}
+
+		final Intf mock = Mockito.mock(Intf.class);
+		ICallable<TypedValue> target = createFunction(mock, Intf.class);
+		execute(target, wrap(1), wrap(2));
+	}
+
+	@Test
+	public void testExceptionFromMethodIsWrapped() {
+		final IllegalStateException cause = new IllegalStateException();
+		abstract class Intf {
+			@Variant
+			public abstract Integer test(Integer a);
+		}
+
+		final Intf mock = Mockito.mock(Intf.class);
+		Mockito.when(mock.test(anyInt())).thenThrow(cause);
+		ICallable<TypedValue> target = createFunction(mock, Intf.class);
+
+		try {
+			execute(target, wrap(1));
+			Assert.fail();
+		} catch (TypedFunction.MethodInvokeException e) {
+			Assert.assertSame(cause, e.getCause());
+		}
+	}
+
 	@Test
 	public void testSingleMethodRawReturn() {
 		abstract class Intf {
@@ -570,6 +624,52 @@ public class TypedFunctionTest {
 		Mockito.verifyNoMoreInteractions(mock);
 	}
 
+	@Test
+	public void testRepeatedDispatchWithManySignatures() {
+		abstract class Intf {
+			@Variant
+			public abstract String test(@DispatchArg Integer v1, @DispatchArg Integer v2);
+
+			@Variant
+			public abstract String test(@DispatchArg String v1, @DispatchArg Integer v2);
+
+			@Variant
+			public abstract String test(@DispatchArg Boolean v1, @RawArg TypedValue v2);
+		}
+
+		final Intf mock = Mockito.mock(Intf.class);
+		ICallable<TypedValue> target = createFunction(mock, Intf.class);
+
+		Mockito.when(mock.test(anyInt(), anyInt())).thenReturn("int");
+		Mockito.when(mock.test(anyString(), anyInt())).thenReturn("string");
+		Mockito.when(mock.test(anyBoolean(), any(TypedValue.class))).thenReturn("bool");
+
+		final TypedValue intArg = wrap(2);
+		final TypedValue stringArg = wrap("b");
+		final TypedValue boolArg = wrap(false);
+
+		// more signatures than inline cache can hold, so every path of resolution is used
+		for (int i = 0; i < 3; i++) {
+			assertValueEquals(execute(target, wrap(1), intArg), String.class, "int");
+			assertValueEquals(execute(target, wrap("a"), intArg), String.class, "string");
+			assertValueEquals(execute(target, wrap(true), intArg), String.class, "bool");
+			assertValueEquals(execute(target, wrap(true), stringArg), String.class, "bool");
+			assertValueEquals(execute(target, wrap(true), boolArg), String.class, "bool");
+
+			try {
+				execute(target, wrap(1), stringArg);
+				Assert.fail();
+			} catch (DispatchException e) {}
+		}
+
+		Mockito.verify(mock, Mockito.times(3)).test(1, 2);
+		Mockito.verify(mock, Mockito.times(3)).test("a", 2);
+		Mockito.verify(mock, Mockito.times(3)).test(true, intArg);
+		Mockito.verify(mock, Mockito.times(3)).test(true, stringArg);
+		Mockito.verify(mock, Mockito.times(3)).test(true, boolArg);
+		Mockito.verifyNoMoreInteractions(mock);
+	}
+
 	@Test
 	public void testOptionalArgumentDispatch() {
 		abstract class Intf {
@@ -14,7 +14,7 @@ import org.junit.Test;
 public class TypedUnaryOperatorTest {
 
 	private static void assertValueEquals(TypedValue value, TypeDomain expectedDomain, Class<?> expectedType, Object expectedValue) {
-		Assert.assertEquals(expectedValue, value.value);
+		Assert.assertEquals(expectedValue, value.value());
 		Assert.assertEquals(expectedType, value.type);
 		Assert.assertEquals(expectedDomain, value.domain);
 	}
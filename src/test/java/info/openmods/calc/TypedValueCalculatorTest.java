@@ -3,6 +3,7 @@ package info.openmods.calc;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -10,6 +11,7 @@ import info.openmods.calc.CalcTestUtils.CalcCheck;
 import info.openmods.calc.CalcTestUtils.CallableStub;
 import info.openmods.calc.CalcTestUtils.SymbolStub;
 import info.openmods.calc.executable.IExecutable;
+import info.openmods.calc.executable.Value;
 import info.openmods.calc.math.Complex;
 import info.openmods.calc.symbol.BinaryFunction;
 import info.openmods.calc.symbol.ICallable;
@@ -23,6 +25,7 @@ import info.openmods.calc.types.multi.StructWrapper;
 import info.openmods.calc.types.multi.StructWrapper.ExposeMethod;
 import info.openmods.calc.types.multi.StructWrapper.ExposeProperty;
 import info.openmods.calc.types.multi.Symbol;
+import info.openmods.calc.types.multi.PersistentVector;
 import info.openmods.calc.types.multi.TypeDomain;
 import info.openmods.calc.types.multi.TypedCalcConstants;
 import info.openmods.calc.types.multi.TypedFunction.DispatchArg;
@@ -36,6 +39,7 @@ import java.math.BigInteger;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import org.junit.Assert;
 import org.junit.Test;
@@ -84,6 +88,10 @@ public class TypedValueCalculatorTest {
 		return domain.create(BigInteger.class, BigInteger.valueOf(value));
 	}
 
+	private TypedValue i(String value) {
+		return domain.create(BigInteger.class, new BigInteger(value));
+	}
+
 	private TypedValue d(double value) {
 		return domain.create(Double.class, value);
 	}
@@ -108,6 +116,10 @@ public class TypedValueCalculatorTest {
 		return nil();
 	}
 
+	private TypedValue vector(TypedValue... values) {
+		return domain.create(PersistentVector.class, PersistentVector.create(values));
+	}
+
 	private TypedValue list(TypedValue... values) {
 		TypedValue res = nil();
 		for (int i = values.length - 1; i >= 0; i--)
@@ -1438,6 +1450,19 @@ public class TypedValueCalculatorTest {
 				.expectResult(i(4));
 	}
 
+	@Test
+	public void testClosureScopeLookups() {
+		// same body executed with different captured scopes
+		infix("let([f(x) -> (y) -> x + y], f(1)(2) + f(10)(20))").expectResult(i(33));
+		// arguments shadow globals, globals visible when not shadowed
+		sut.environment.setGlobalSymbol("x", i(100));
+		infix("let([f(x) -> x + 1, g(y) -> x + y], f(1) + g(2) + f(3))").expectResult(i(108));
+		sut.environment.setGlobalSymbol("x", i(200));
+		infix("let([g(y) -> x + y], g(2))").expectResult(i(202));
+		// pattern args
+		infix("let([f(a:b, c) -> a - b + c], f(5:3, 1) + f(2:1, 0))").expectResult(i(4));
+	}
+
 	@Test
 	public void testNullaryLambdaOperator() {
 		infix("iscallable(()->2)").expectResult(TRUE);
@@ -2618,6 +2643,21 @@ public class TypedValueCalculatorTest {
 		infix("let([weirdStr=setmetaobject('abc', metaobject(slots.unaryops('-') = (self) -> 'wut?'))], -weirdStr)").expectResult(s("wut?"));
 	}
 
+	@Test
+	public void testOperatorSlotsInUpdatedMetaObject() {
+		infix("letseq([m = metaobject(slots.binaryops('+') = (self, other) -> 'plus'), v = setmetaobject('abc', m(slots.binaryops('*') = (self, other) -> 'times'))], (v + 1) + (v * 1) + str(v < 'abd'))").expectResult(s("plustimestrue"));
+		infix("letseq([m = metaobject(slots.unaryops('-') = (self) -> 'minus'), v = setmetaobject(5, m(slots.binaryops('-') = (self, other) -> 'sub'))], (-v) + (v - 1) + str(v + 1))").expectResult(s("minussub6"));
+	}
+
+	@Test
+	public void testScriptOperatorSlotKeysAreNotIndexed() {
+		final int before = MetaObject.registerOperatorSlot("test_op_before");
+		for (int i = 0; i < 100; i++)
+			infix("let([m = metaobject(slots.binaryops('op" + i + "') = (self, other) -> 'op')], m.binaryops('op" + i + "')(1, 2))").expectResult(s("op"));
+		Assert.assertEquals(before + 1, MetaObject.registerOperatorSlot("test_op_after"));
+		Assert.assertEquals(before, MetaObject.registerOperatorSlot("test_op_before"));
+	}
+
 	@Test
 	public void testCustomMetaObjectSlotRetrievalOptimization() {
 		infix("let([f = (s) -> 'hello'], metaobject(slots.str=f).str == f)").expectResult(TRUE);
@@ -2889,6 +2929,65 @@ public class TypedValueCalculatorTest {
 		infix("range(3,-3,-2)").expectResult(list(i(3), i(1), i(-1)));
 	}
 
+	@Test
+	public void testVectorCreationAndConversion() {
+		infix("vector()").expectResult(vector());
+		infix("vector(1, 'a', #b)").expectResult(vector(i(1), s("a"), sym("b")));
+		infix("type(vector(1)) == vector").expectResult(TRUE);
+
+		infix("tovector([1, 2, 3])").expectResult(vector(i(1), i(2), i(3)));
+		infix("tovector([])").expectResult(vector());
+		infix("tovector(vector(1))").expectResult(vector(i(1)));
+		infix("tolist(vector(1, 2))").expectResult(list(i(1), i(2)));
+		infix("tolist(vector())").expectResult(list());
+		infix("tolist([1])").expectResult(list(i(1)));
+
+		infix("vrange(3)").expectResult(vector(i(0), i(1), i(2)));
+		infix("vrange(3, 1, -1)").expectResult(vector(i(3), i(2)));
+		infix("vrange(1, 3, -1)").expectResult(vector());
+
+		infix("append(vector(), 1)").expectResult(vector(i(1)));
+		infix("append(vector(1), 2, 3)").expectResult(vector(i(1), i(2), i(3)));
+		infix("letseq([a = vector(1), b = append(a, 2)], a)").expectResult(vector(i(1)));
+	}
+
+	@Test
+	public void testVectorSlots() {
+		infix("len(vector())").expectResult(i(0));
+		infix("len(vrange(1000))").expectResult(i(1000));
+		infix("bool(vector())").expectResult(FALSE);
+		infix("bool(vector(0))").expectResult(TRUE);
+
+		infix("vrange(1000)[0]").expectResult(i(0));
+		infix("vrange(1000)[567]").expectResult(i(567));
+		infix("vrange(1000)[-1]").expectResult(i(999));
+		infix("vrange(1000)[10:13]").expectResult(vector(i(10), i(11), i(12)));
+		infix("vrange(1000)[-3:-1]").expectResult(vector(i(997), i(998)));
+		infix("vrange(1000)[500:600][1:3][1]").expectResult(i(502));
+
+		infix("vector(1, 2) == vector(1, 2)").expectResult(TRUE);
+		infix("vrange(10)[2:4] == vector(2, 3)").expectResult(TRUE);
+		infix("vector(1, 2) == [1, 2]").expectResult(FALSE);
+
+		infix("str(vector(1, 'a'))").expectResult(s("vector(1, a)"));
+		infix("repr(vector(1, 'a'))").expectResult(s("vector(1, \"a\")"));
+
+		infix("match((vector(a, b)) -> a + b, (_) -> 'no')(vector(1, 2))").expectResult(i(3));
+		infix("match((vector(a, b)) -> a + b, (_) -> 'no')(vector(1, 2, 3))").expectResult(s("no"));
+	}
+
+	@Test
+	public void testListFunctionsOnVectors() {
+		infix("map((x) -> x * 2, vector(1, 2, 3))").expectResult(vector(i(2), i(4), i(6)));
+		infix("map((x) -> x, vector())").expectResult(vector());
+		infix("filter((x) -> x % 2 == 0, vrange(7))").expectResult(vector(i(0), i(2), i(4), i(6)));
+		infix("reduce((acc, x) -> acc + x, 0, vrange(101))").expectResult(i(5050));
+		infix("sort(vector(3, 1, 2))").expectResult(vector(i(1), i(2), i(3)));
+		infix("sort(vector(3, 1, 2), #reverse=true)").expectResult(vector(i(3), i(2), i(1)));
+		infix("zip(vector(1, 2), ['a', 'b', 'c'])").expectResult(vector(cons(i(1), s("a")), cons(i(2), s("b"))));
+		infix("zip([1, 2], vector('a'))").expectResult(vector(cons(i(1), s("a"))));
+	}
+
 	@Test
 	public void testZipFunction() {
 		infix("zip([],[])").expectResult(list());
@@ -3453,4 +3552,149 @@ public class TypedValueCalculatorTest {
 		infix("test.strValue").expectResult(s("hello!"));
 	}
 
+
+	@Test
+	public void testConstantFolding() {
+		Assert.assertEquals(Value.create(i(7)), sut.compilers.compile(ExprType.INFIX, "1 + 2 * 3"));
+		Assert.assertEquals(Value.create(d(2 * Math.PI)), sut.compilers.compile(ExprType.INFIX, "2 * PI"));
+		Assert.assertEquals(Value.create(b(true)), sut.compilers.compile(ExprType.INFIX, "1 < 2"));
+		Assert.assertEquals(Value.create(d(3.0)), sut.compilers.compile(ExprType.INFIX, "abs(3.0 - 6.0)"));
+		Assert.assertEquals(Value.create(s("ab")), sut.compilers.compile(ExprType.INFIX, "'a' + 'b'"));
+	}
+
+	@Test
+	public void testNestedClosuresReuseSymbolBindings() {
+		sut.environment.setGlobalSymbol("g", i(2));
+		// inner closure is created on every run - lookups should still hit cached bindings
+		final IExecutable<TypedValue> lookups = sut.compilers.compile(ExprType.INFIX, "((x) -> (y) -> x + y + g + g + g + g + g + g + g + g)(1)(2)");
+		final IExecutable<TypedValue> constants = sut.compilers.compile(ExprType.INFIX, "((x) -> (y) -> x + y + 2 + 2 + 2 + 2 + 2 + 2 + 2 + 2)(1)(2)");
+		compiled(lookups).expectResult(i(19));
+		compiled(constants).expectResult(i(19));
+
+		final long extraBytes = CalcTestUtils.extraAllocatedBytesPerRun(sut.environment, lookups, constants, 10000);
+		Assert.assertTrue("Symbol lookups allocated " + extraBytes + " bytes per run", extraBytes < 64);
+	}
+
+	@Test
+	public void testSymbolLookupsInLetDoNotAllocate() {
+		sut.environment.setGlobalSymbol("g", i(2));
+		// let scope is created on every run, so lookups through it can't be cached
+		final IExecutable<TypedValue> lookups = sut.compilers.compile(ExprType.INFIX, "let([x = 1], x + g + g + g + g + g + g + g + g)");
+		final IExecutable<TypedValue> constants = sut.compilers.compile(ExprType.INFIX, "let([x = 1], x + 2 + 2 + 2 + 2 + 2 + 2 + 2 + 2)");
+		compiled(lookups).expectResult(i(17));
+		compiled(constants).expectResult(i(17));
+
+		final long extraBytes = CalcTestUtils.extraAllocatedBytesPerRun(sut.environment, lookups, constants, 10000);
+		Assert.assertTrue("Symbol lookups allocated " + extraBytes + " bytes per run", extraBytes < 64);
+	}
+
+	@Test
+	public void testExecutionProfilerClosureCalls() {
+		final ExecutionProfiler profiler = new ExecutionProfiler();
+		sut.environment.setExecutionListener(profiler);
+		infix("letrec([fact(n)->if(n<=1, 1, n * fact(n - 1))], fact(5))").expectResult(i(120));
+		sut.environment.setExecutionListener(null);
+
+		final ExecutionProfiler.Entry fact = profiler.get(IExecutionListener.Kind.CLOSURE_CALL, "closure(n)");
+		Assert.assertNotNull(fact);
+		Assert.assertEquals(5, fact.calls());
+		Assert.assertTrue(fact.totalNanos() >= fact.selfNanos());
+		Assert.assertEquals(4, profiler.get(IExecutionListener.Kind.OPERATOR, "*").calls());
+	}
+
+	private void expectBudgetExceeded(ExecutionBudget.Limit limit, String expr) {
+		try {
+			sut.compileExecuteAndPop(ExprType.INFIX, expr);
+			Assert.fail("Expected budget exception");
+		} catch (ExecutionBudgetExceededException e) {
+			Assert.assertEquals(limit, e.limit);
+		}
+	}
+
+	@Test
+	public void testInstructionBudget() {
+		sut.environment.setExecutionBudget(ExecutionBudget.create().setMaxInstructions(1000));
+		infix("letrec([loop(n) -> if(n <= 0, n, loop(n - 1))], loop(10))").expectResult(i(0));
+		expectBudgetExceeded(ExecutionBudget.Limit.INSTRUCTIONS, "letrec([loop(n) -> loop(n + 1)], loop(0))");
+
+		// budget is per evaluation
+		infix("letrec([loop(n) -> if(n <= 0, n, loop(n - 1))], loop(10))").expectResult(i(0));
+
+		sut.environment.setExecutionBudget(null);
+		infix("letrec([loop(n) -> if(n <= 0, n, loop(n - 1))], loop(100))").expectResult(i(0));
+	}
+
+	@Test
+	public void testCallDepthBudget() {
+		sut.environment.setExecutionBudget(ExecutionBudget.create().setMaxCallDepth(50));
+		infix("letrec([fact(n)->if(n<=1, 1, n * fact(n - 1))], fact(5))").expectResult(i(120));
+		expectBudgetExceeded(ExecutionBudget.Limit.CALL_DEPTH, "letrec([fact(n)->if(n<=1, 1, n * fact(n - 1))], fact(100))");
+	}
+
+	@Test
+	public void testTimeBudget() {
+		sut.environment.setExecutionBudget(ExecutionBudget.create().setTimeout(0, TimeUnit.MILLISECONDS));
+		infix("1 + 2").expectResult(i(3));
+		expectBudgetExceeded(ExecutionBudget.Limit.TIME, "letrec([loop(n) -> loop(n + 1)], loop(0))");
+	}
+
+	@Test
+	public void testStackDepthBudget() {
+		sut.environment.setExecutionBudget(ExecutionBudget.create().setMaxStackDepth(10));
+		infix("max(1, 2, 3)").expectResult(i(3));
+		expectBudgetExceeded(ExecutionBudget.Limit.STACK_DEPTH, "max(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12)");
+	}
+
+	@Test
+	public void testAllocationBudget() {
+		sut.environment.setExecutionBudget(ExecutionBudget.create().setMaxAllocatedElements(100));
+		infix("len(range(50))").expectResult(i(50));
+		expectBudgetExceeded(ExecutionBudget.Limit.ALLOCATIONS, "range(1000000000)");
+		expectBudgetExceeded(ExecutionBudget.Limit.ALLOCATIONS, "map((x)->x, range(60))");
+	}
+
+	@Test
+	public void testBudgetInSingleExprEvaluator() {
+		final SingleExprEvaluator<TypedValue, ExprType> evaluator = SingleExprEvaluator.create(sut);
+		evaluator.setExecutionBudget(ExecutionBudget.create().setMaxInstructions(100));
+		evaluator.setExpr(ExprType.INFIX, "letrec([loop(n) -> loop(n + 1)], loop(0))");
+
+		final SingleExprEvaluator.EnvironmentConfigurator<TypedValue> noConfig = new SingleExprEvaluator.EnvironmentConfigurator<TypedValue>() {
+			@Override
+			public void accept(Environment<TypedValue> env) {}
+		};
+
+		Assert.assertEquals(s("fallback"), evaluator.evaluate(noConfig, Suppliers.ofInstance(s("fallback"))));
+	}
+
+	@Test
+	public void testCanonicalValues() {
+		Assert.assertSame(sut.compileExecuteAndPop(ExprType.INFIX, "1 < 2"), sut.compileExecuteAndPop(ExprType.INFIX, "3 > 2"));
+		Assert.assertSame(sut.compileExecuteAndPop(ExprType.INFIX, "1 == 2"), sut.compileExecuteAndPop(ExprType.INFIX, "!true"));
+		Assert.assertSame(sut.compileExecuteAndPop(ExprType.INFIX, "2 + 3"), sut.compileExecuteAndPop(ExprType.INFIX, "1 + 4"));
+		Assert.assertSame(sut.compileExecuteAndPop(ExprType.INFIX, "-1 - 2"), sut.compileExecuteAndPop(ExprType.INFIX, "-3"));
+		Assert.assertSame(sut.compileExecuteAndPop(ExprType.INFIX, "0.5 + 0.5"), sut.compileExecuteAndPop(ExprType.INFIX, "2.0 - 1.0"));
+		Assert.assertSame(sut.compileExecuteAndPop(ExprType.INFIX, "#abc"), sut.compileExecuteAndPop(ExprType.INFIX, "symbol('abc')"));
+		Assert.assertSame(NULL, sut.compileExecuteAndPop(ExprType.INFIX, "null"));
+
+		infix("1000 * 1000").expectResult(i(1000000));
+		Assert.assertNotSame(sut.compileExecuteAndPop(ExprType.INFIX, "1000 * 1000"), sut.compileExecuteAndPop(ExprType.INFIX, "1000 * 1000"));
+	}
+
+	@Test
+	public void testIntegerOverflowPromotion() {
+		infix("9223372036854775807 + 1").expectResult(i("9223372036854775808"));
+		infix("-9223372036854775807 - 2").expectResult(i("-9223372036854775809"));
+		infix("-(-9223372036854775807 - 1)").expectResult(i("9223372036854775808"));
+		infix("4294967296 * 4294967296").expectResult(i("18446744073709551616"));
+		infix("(-9223372036854775807 - 1) * -1").expectResult(i("9223372036854775808"));
+		infix("3037000499 * 3037000499").expectResult(i(9223372030926249001L));
+		infix("-3037000499 * 3037000500").expectResult(i(-9223372033963249500L));
+
+		infix("9223372036854775808 - 1").expectResult(i(Long.MAX_VALUE));
+		infix("(9223372036854775807 + 1) - 1 == 9223372036854775807").expectResult(TRUE);
+		infix("9223372036854775807 + 1 > 9223372036854775807").expectResult(TRUE);
+		infix("-9223372036854775809 < -9223372036854775807 - 1").expectResult(TRUE);
+		infix("9223372036854775807 <=> 9223372036854775807 * 2").expectResult(i(-1));
+	}
 }